@@ -5,23 +5,40 @@ import javax.swing.JPanel;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JFileChooser;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
 
 import java.awt.BorderLayout;
+import java.awt.Component;
 import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.Graphics;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
+import java.awt.Graphics2D;
 import java.awt.GridLayout;
+import java.awt.image.BufferedImage;
+import java.io.File;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 
-import java.util.Locale;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-import javax.speech.Central;
-import javax.speech.synthesis.Synthesizer;
-import javax.speech.synthesis.SynthesizerModeDesc;
+import javax.sound.sampled.Clip;
 
 /**
  * Creates a GUI that has a grid of images that represent the communication
@@ -33,14 +50,29 @@ import javax.speech.synthesis.SynthesizerModeDesc;
 public class AAC implements ActionListener {
 
 	private JFrame frame;
-	private static Synthesizer synthesizer;
+	private Container pane;
+	private static CompletableFuture<SpeechEngine> speech = CompletableFuture.completedFuture(null);
 	private int startIndex;
 	private int endIndex;
-	private static final int NUM_ACROSS = 3;
-	private static final int NUM_DOWN = 3;
+	private static final int DEFAULT_ACROSS = 3;
+	private static final int DEFAULT_DOWN = 3;
+	private final int numAcross;
+	private final int numDown;
+	private VirtualGrid grid;
 	private String[] images;
 	private AACPage page;
 	private Scanner input;
+	private long pageChangeStart;
+	private PhraseStrip phrase;
+	private String query = "";
+	private Map<String, VocabularyItem> found;
+	private static final int MAX_RESULTS = 100;
+	private static final String SUGGESTION = "suggestion:";
+	private boolean suggest;
+	private List<VocabularyItem> suggested;
+	private static volatile UtteranceCache audioCache;
+	private static Map<Path, ImageAtlas> atlases = new HashMap<Path, ImageAtlas>();
+	private static Map<String, ImageIcon> prefetched = new ConcurrentHashMap<String, ImageIcon>();
 
 	/**
 	 * Creates the AAC display for the file provided
@@ -49,14 +81,99 @@ public class AAC implements ActionListener {
 	 *                 will be in the AAC
 	 */
 	public AAC(String filename) {
+		this(filename, Integer.getInteger("aac.across", DEFAULT_ACROSS), Integer.getInteger("aac.down", DEFAULT_DOWN),
+				Boolean.getBoolean("aac.scroll"));
+	}
+
+	/**
+	 * Turns the phrase strip on or off. With the strip on, selecting an item
+	 * adds its text to the strip instead of speaking it, and the speak button
+	 * says the whole phrase in one go
+	 * 
+	 * @param enabled true to use the phrase strip, false to speak each item
+	 */
+	public void setPhraseStrip(boolean enabled) {
+		this.phrase = enabled ? new PhraseStrip() : null;
+		loadImages(this.numAcross, this.numDown);
+	}
+
+	/**
+	 * Turns the suggestion row on or off. With the row on, the items most
+	 * likely to be selected next (see AACMappings.predict) are shown above the
+	 * grid, whatever category they are in
+	 * 
+	 * @param enabled true to show suggestions
+	 */
+	public void setSuggestions(boolean enabled) {
+		this.suggest = enabled && this.page instanceof AACMappings;
+		loadImages(this.numAcross, this.numDown);
+	}
+
+	/**
+	 * Creates the AAC display for the file provided with a grid of the given
+	 * size. In scrolling mode, the grid is numAcross wide and scrolls through the
+	 * whole category, only building the cells that are visible; otherwise it
+	 * shows numAcross by numDown images per page with next/back buttons
+	 * 
+	 * @param filename  the name of the file that contains the images and text
+	 *                  that will be in the AAC
+	 * @param numAcross the number of images across
+	 * @param numDown   the number of images down (the number visible at once
+	 *                  when scrolling)
+	 * @param scroll    true to scroll through the category, false to page
+	 */
+	public AAC(String filename, int numAcross, int numDown, boolean scroll) {
+		this(new AACMappings(filename), numAcross, numDown, scroll);
+	}
+
+	/**
+	 * Creates the AAC display for a page that has already been loaded, with a
+	 * grid of the given size (see AAC(String, int, int, boolean))
+	 * 
+	 * @param page      the images and text that will be in the AAC
+	 * @param numAcross the number of images across
+	 * @param numDown   the number of images down
+	 * @param scroll    true to scroll through the category, false to page
+	 */
+	public AAC(AACPage page, int numAcross, int numDown, boolean scroll) {
+		this(page, numAcross, numDown, scroll, false);
+	}
+
+	/**
+	 * Creates the AAC display for a page that has already been loaded. When
+	 * headless, no window is created; the board is built into an offscreen panel
+	 * that can be drawn with render, which works on a machine with no display
+	 * 
+	 * @param page      the images and text that will be in the AAC
+	 * @param numAcross the number of images across
+	 * @param numDown   the number of images down
+	 * @param scroll    true to scroll through the category, false to page
+	 * @param headless  true to build the board without a window
+	 */
+	public AAC(AACPage page, int numAcross, int numDown, boolean scroll, boolean headless) {
+		if (numAcross < 1 || numDown < 1) {
+			throw new IllegalArgumentException("The grid must be at least 1 by 1.");
+		}
+		this.numAcross = numAcross;
+		this.numDown = numDown;
+		if (scroll) {
+			this.grid = new VirtualGrid(numAcross, 500 / numDown, AAC::getIcon);
+			this.grid.addActionListener(this);
+		}
 		// this.page = new AACCategory("test");
-		this.page = new AACMappings(filename);
+		this.page = page;
 		this.images = this.page.getImageLocs();
 		this.startIndex = 0;
-		this.endIndex = Math.min(NUM_ACROSS * NUM_DOWN, this.images.length);
+		this.endIndex = Math.min(pageSize(), this.images.length);
+		if (headless) {
+			pane = new JPanel(new BorderLayout());
+			loadImages(numAcross, numDown);
+			return;
+		}
 		frame = new JFrame();
 		frame.setPreferredSize(new Dimension(500, 500));
-		loadImages(NUM_ACROSS, NUM_DOWN);
+		pane = frame.getContentPane();
+		loadImages(numAcross, numDown);
 		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 		frame.pack();
 		frame.setVisible(true);
@@ -64,13 +181,97 @@ public class AAC implements ActionListener {
 	}
 
 	/**
-	 * Loads the images in the screen in a width by length grid
+	 * Shows the given page of the current category (0 for the first page)
+	 * 
+	 * @param pageIndex which page of images to show
+	 */
+	public void showPage(int pageIndex) {
+		this.startIndex = Math.max(0, Math.min(pageIndex * pageSize(), this.images.length));
+		this.endIndex = Math.min(this.startIndex + pageSize(), this.images.length);
+		loadImages(this.numAcross, this.numDown);
+	}
+
+	/**
+	 * Sizes the board and lays out all of its components, as showing it in a
+	 * window of that size would
+	 * 
+	 * @param width  the width of the board in pixels
+	 * @param height the height of the board in pixels
+	 */
+	public void layoutBoard(int width, int height) {
+		pane.setSize(width, height);
+		layoutAll(pane);
+	}
+
+	/**
+	 * Lays out a container and everything inside it
+	 * 
+	 * @param container the container to lay out
+	 */
+	private static void layoutAll(Container container) {
+		container.doLayout();
+		for (Component child : container.getComponents()) {
+			if (child instanceof Container) {
+				layoutAll((Container) child);
+			}
+		}
+	}
+
+	/**
+	 * Paints the board, as last laid out, into an image
+	 * 
+	 * @param image where to paint the board
+	 */
+	public void paintBoard(BufferedImage image) {
+		Graphics2D g = image.createGraphics();
+		try {
+			pane.printAll(g);
+		} finally {
+			g.dispose();
+		}
+	}
+
+	/**
+	 * Lays out and paints the current board into a new offscreen image
+	 * 
+	 * @param width  the width of the image in pixels
+	 * @param height the height of the image in pixels
+	 * @return the rendered board
+	 */
+	public BufferedImage render(int width, int height) {
+		layoutBoard(width, height);
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		paintBoard(image);
+		return image;
+	}
+
+	/**
+	 * Loads the images in the screen in a width by length grid, recording a
+	 * flight recorder event for the page
 	 * 
 	 * @param width  the number of images across to display
 	 * @param length the number of images down to display
 	 */
 	public void loadImages(int width, int length) {
-		Container pane = frame.getContentPane();
+		AACEvents.PageBuild event = new AACEvents.PageBuild();
+		event.begin();
+		buildPage(width, length);
+		if (event.shouldCommit()) {
+			event.category = this.page.getCategory();
+			event.first = (this.grid != null) ? 0 : this.startIndex;
+			event.items = (this.grid != null) ? this.images.length
+					: Math.max(0, Math.min(width * length, this.images.length - this.startIndex));
+			event.commit();
+		}
+	}
+
+	/**
+	 * Builds the components of the page
+	 * 
+	 * @param width  the number of images across to display
+	 * @param length the number of images down to display
+	 */
+	private void buildPage(int width, int length) {
 		pane.removeAll();
 
 		// add options to go to home screen
@@ -78,7 +279,9 @@ public class AAC implements ActionListener {
 		topPanel.setLayout(new GridBagLayout());
 		GridBagConstraints c = new GridBagConstraints();
 		String category = "Home Page";
-		if (!this.page.getCategory().equals("")) {
+		if (this.found != null) {
+			category = "Search: " + this.query;
+		} else if (!this.page.getCategory().equals("")) {
 			category = this.page.getCategory();
 		}
 		c.gridx = 0;
@@ -87,7 +290,7 @@ public class AAC implements ActionListener {
 		cat.setFont(new Font("Serif", Font.PLAIN, 36));
 		topPanel.add(cat, c);
 		JPanel panel1 = new JPanel();
-		panel1.setLayout(new GridLayout(1, 3));
+		panel1.setLayout(new GridLayout(1, 4));
 		if (this.page instanceof AACMappings) {
 			JButton home = new JButton(new ImageIcon("img/home.png"));
 			home.setActionCommand("");
@@ -97,6 +300,11 @@ public class AAC implements ActionListener {
 			save.setActionCommand("save");
 			save.addActionListener(this);
 			panel1.add(save);
+			JTextField search = new JTextField(this.query, 10);
+			search.setToolTipText("Type the start of a word and press enter to find it in any category");
+			search.setActionCommand("search");
+			search.addActionListener(this);
+			panel1.add(search);
 		}
 		JButton add = new JButton(new ImageIcon("img/plus.png"));
 		add.setActionCommand("add");
@@ -105,6 +313,41 @@ public class AAC implements ActionListener {
 		c.gridx = 0;
 		c.gridy = 1;
 		topPanel.add(panel1, c);
+		if (this.phrase != null) {
+			JPanel strip = new JPanel();
+			strip.add(new JLabel(this.phrase.isEmpty() ? " " : this.phrase.getText()));
+			JButton speak = new JButton("Speak");
+			speak.setActionCommand("speak");
+			speak.addActionListener(this);
+			strip.add(speak);
+			JButton backspace = new JButton("Undo");
+			backspace.setActionCommand("backspace");
+			backspace.addActionListener(this);
+			backspace.setEnabled(!this.phrase.isEmpty());
+			strip.add(backspace);
+			JButton clear = new JButton("Clear");
+			clear.setActionCommand("clear");
+			clear.addActionListener(this);
+			strip.add(clear);
+			c.gridx = 0;
+			c.gridy = 2;
+			topPanel.add(strip, c);
+		}
+		this.suggested = null;
+		if (this.suggest) {
+			this.suggested = ((AACMappings) this.page).predict(width);
+			JPanel suggestions = new JPanel(new GridLayout(1, width));
+			for (int i = 0; i < this.suggested.size(); i++) {
+				JButton button = new JButton(getIcon(this.suggested.get(i).getImageLoc()));
+				button.setToolTipText(this.suggested.get(i).getText());
+				button.setActionCommand(SUGGESTION + i);
+				button.addActionListener(this);
+				suggestions.add(button);
+			}
+			c.gridx = 0;
+			c.gridy = 3;
+			topPanel.add(suggestions, c);
+		}
 		pane.add(topPanel, BorderLayout.PAGE_START);
 
 		// if on page 2+, add back button
@@ -115,14 +358,27 @@ public class AAC implements ActionListener {
 			pane.add(backArrow, BorderLayout.LINE_START);
 		}
 
+		// in scrolling mode, the virtual grid takes the place of the pages
+		if (this.grid != null) {
+			this.grid.setItems(this.images);
+			JPanel holder = timedPanel();
+			holder.setLayout(new BorderLayout());
+			holder.add(new JScrollPane(this.grid), BorderLayout.CENTER);
+			pane.add(holder, BorderLayout.CENTER);
+			pane.add(footer(), BorderLayout.PAGE_END);
+			pane.revalidate();
+			pane.requestFocusInWindow();
+			return;
+		}
+
 		// add images
-		JPanel panel = new JPanel();
-		panel.setLayout(new GridLayout(width, length));
+		JPanel panel = timedPanel();
+		panel.setLayout(new GridLayout(length, width));
 		int currImage = startIndex;
 		for (int y = 0; y < length; y++) {
 			for (int x = 0; x < width; x++) {
 				if (currImage < this.images.length) {
-					ImageIcon img = new ImageIcon(images[currImage]);
+					ImageIcon img = getIcon(images[currImage]);
 					JButton button = new JButton(img);
 					button.setActionCommand(images[currImage]);
 					button.addActionListener(this);
@@ -142,32 +398,439 @@ public class AAC implements ActionListener {
 			pane.add(nextArrow, BorderLayout.LINE_END);
 		}
 
-		JLabel ack = new JLabel("All provided icons are from icons8: icons8.com");
-		pane.add(ack, BorderLayout.PAGE_END);
+		pane.add(footer(), BorderLayout.PAGE_END);
 		pane.revalidate();
 		pane.requestFocusInWindow();
 	}
 
-	public static void main(String[] args) {
+	/**
+	 * Creates a panel that records, the first time it is painted after a page
+	 * change, how long the change took to reach the screen
+	 * 
+	 * @return the panel
+	 */
+	private JPanel timedPanel() {
+		return new JPanel() {
+			@Override
+			protected void paintChildren(Graphics g) {
+				super.paintChildren(g);
+				if (pageChangeStart != 0) {
+					LatencyMonitor.PAGE_TO_PAINT.recordSince(pageChangeStart);
+					pageChangeStart = 0;
+				}
+			}
+		};
+	}
+
+	/**
+	 * Creates the label at the bottom of the board: the icon acknowledgement, or
+	 * the latency summary when debugging (see LatencyMonitor)
+	 * 
+	 * @return the label
+	 */
+	private JLabel footer() {
+		if (LatencyMonitor.DEBUG) {
+			String summary = LatencyMonitor.summary().replace("\n", "<br>");
+			return new JLabel("<html>" + summary + "</html>");
+		}
+		return new JLabel("All provided icons are from icons8: icons8.com");
+	}
+
+	/**
+	 * Returns the number of images shown on a single page
+	 * 
+	 * @return the number of images per page
+	 */
+	private int pageSize() {
+		return this.numAcross * this.numDown;
+	}
+
+	/**
+	 * Returns the icon for an image, taking it from the image's packed atlas
+	 * (see ImageAtlas) when one exists and reading the image file otherwise. Icons
+	 * decoded ahead of time by prefetchIcons are used once and then dropped
+	 * 
+	 * @param imageLoc the location of the image
+	 * @return the icon for the image
+	 */
+	private static ImageIcon getIcon(String imageLoc) {
+		AACEvents.ImageDecode event = new AACEvents.ImageDecode();
+		event.begin();
+		event.image = imageLoc;
+		ImageIcon icon = prefetched.remove(imageLoc);
+		if (icon != null) {
+			AACMetrics.recordImage(true);
+			event.source = "prefetched";
+			return decoded(event, icon);
+		}
+		Path atlasFile = ImageAtlas.atlasFor(imageLoc);
+		ImageAtlas atlas;
+		synchronized (atlases) {
+			if (!atlases.containsKey(atlasFile)) {
+				atlas = null;
+				if (Files.isRegularFile(atlasFile)) {
+					try {
+						atlas = new ImageAtlas(atlasFile);
+					} catch (IOException e) {
+						AACMetrics.recordError();
+						System.err.println("Error: could not open atlas " + atlasFile + " - " + e.getMessage());
+					}
+				}
+				atlases.put(atlasFile, atlas);
+			}
+			atlas = atlases.get(atlasFile);
+		}
+		boolean packed = atlas != null && atlas.hasImage(imageLoc);
+		AACMetrics.recordImage(packed);
+		event.source = packed ? "atlas" : "file";
+		return decoded(event, packed ? atlas.getIcon(imageLoc) : new ImageIcon(imageLoc));
+	}
+
+	/**
+	 * Records the size of a decoded icon in its flight recorder event and commits
+	 * the event
+	 * 
+	 * @param event the event
+	 * @param icon  the icon
+	 * @return the icon
+	 */
+	private static ImageIcon decoded(AACEvents.ImageDecode event, ImageIcon icon) {
+		if (event.shouldCommit()) {
+			event.width = icon.getIconWidth();
+			event.height = icon.getIconHeight();
+			event.commit();
+		}
+		return icon;
+	}
+
+	/**
+	 * Decodes the icons for the given images in parallel so that the first page
+	 * can be shown without waiting on image I/O
+	 * 
+	 * @param imageLocs the images to decode
+	 */
+	private static void prefetchIcons(String[] imageLocs) {
+		Arrays.stream(imageLocs).parallel().forEach(imageLoc -> prefetched.put(imageLoc, getIcon(imageLoc)));
+	}
+
+	/**
+	 * Starts the speech engine chosen with -Daac.speech: "freetts" (the default)
+	 * to speak aloud, "stream" to speak aloud while synthesis is still running
+	 * (see StreamingSpeechEngine), "wav" to write each utterance to a WAV file in
+	 * -Daac.speechDir, or "none" to stay silent. FreeTTS is warmed up with a
+	 * silent utterance so that the voice data is loaded and the speech path is
+	 * compiled before the first real selection
+	 * 
+	 * @return the ready engine, or null if it could not be started
+	 */
+	static SpeechEngine startSpeech() {
+		long start = System.nanoTime();
+		String kind = System.getProperty("aac.speech", "freetts");
+		try {
+			if (kind.equals("none")) {
+				return new TimingSpeechEngine();
+			} else if (kind.equals("stream")) {
+				SpeechEngine engine = new StreamingSpeechEngine(
+						System.getProperty("aac.voice", AudioRenderer.DEFAULT_VOICE), 0);
+				logPhase("voice allocation", start);
+				return engine;
+			} else if (kind.equals("wav")) {
+				AudioRenderer renderer = new AudioRenderer(System.getProperty("aac.voice", AudioRenderer.DEFAULT_VOICE), 0);
+				return new WavFileSpeechEngine(new File(System.getProperty("aac.speechDir", "speech-out")), renderer);
+			}
+			FreeTTSSpeechEngine engine = new FreeTTSSpeechEngine();
+			logPhase("synthesizer allocation", start);
+			long warmStart = System.nanoTime();
+			engine.warmUp();
+			logPhase("synthesizer warm-up", warmStart);
+			return engine;
+		} catch (Exception e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
 
+	/**
+	 * Replaces the speech engine, e.g., with a TimingSpeechEngine to measure the
+	 * selection path without audio hardware
+	 * 
+	 * @param engine the engine to use for all future speech
+	 */
+	public static void setSpeechEngine(SpeechEngine engine) {
+		speech = CompletableFuture.completedFuture(engine);
+	}
+
+	/**
+	 * Creates the cache of pre-synthesized speech (see UtteranceCache) and
+	 * queues every item text in the mappings file to be rendered in the
+	 * background. Disabled with -Daac.audioCache=false, and only used when
+	 * speaking aloud through FreeTTS
+	 * 
+	 * @param filename the mappings file
+	 */
+	private static void startAudioCache(String filename) {
+		if (!Boolean.parseBoolean(System.getProperty("aac.audioCache", "true"))
+				|| !System.getProperty("aac.speech", "freetts").equals("freetts")) {
+			return;
+		}
+		long start = System.nanoTime();
 		try {
-			// Set property as Kevin Dictionary
-			System.setProperty("freetts.voices", "com.sun.speech.freetts.en.us" + ".cmu_us_kal.KevinVoiceDirectory");
+			AudioRenderer renderer = new AudioRenderer(System.getProperty("aac.voice", AudioRenderer.DEFAULT_VOICE), 0);
+			UtteranceCache cache = new UtteranceCache(new File(System.getProperty("aac.audioCacheDir", "audio-cache")),
+					renderer);
+			cache.prefetch(UtteranceCache.readTexts(filename));
+			audioCache = cache;
+			logPhase("audio cache", start);
+		} catch (Exception e) {
+			System.err.println("Error: speech will not be cached - " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Loads the item use counts saved by an earlier run, then saves them every
+	 * minute in the background and once more on exit, so at most a minute of use
+	 * is lost if the program is killed. The file is -Daac.usageFile (default
+	 * aac-usage.txt)
+	 * 
+	 * @param mappings the mappings whose use to track
+	 */
+	private static void startUsageTracking(AACMappings mappings) {
+		String filename = System.getProperty("aac.usageFile", "aac-usage.txt");
+		if (new File(filename).isFile()) {
+			mappings.readUsage(filename);
+		}
+		ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "usage-saver");
+			thread.setDaemon(true);
+			return thread;
+		});
+		saver.scheduleWithFixedDelay(() -> mappings.writeUsage(filename), 1, 1, TimeUnit.MINUTES);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> mappings.writeUsage(filename)));
+	}
+
+	/**
+	 * Reports how long a startup phase took
+	 * 
+	 * @param phase the name of the phase
+	 * @param start when the phase started, from System.nanoTime()
+	 */
+	private static void logPhase(String phase, long start) {
+		System.out.printf("[startup] %s: %d ms%n", phase, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	/**
+	 * Starts the AAC. The speech engine is started in the background while the
+	 * mappings are read and the first page of icons is decoded, so the window
+	 * appears without waiting for the voice to load; the first selection that
+	 * needs speech waits until the engine is ready
+	 * 
+	 * @param args the mappings file to use (defaults to AACMappings.txt)
+	 */
+	public static void main(String[] args) {
+		long start = System.nanoTime();
+		String filename = (args.length > 0) ? args[0] : "AACMappings.txt";
+		speech = CompletableFuture.supplyAsync(AAC::startSpeech);
+		LatencyMonitor.dumpOnExit();
+		speech.thenRunAsync(() -> startAudioCache(filename));
+
+		AACMappings mappings = new AACMappings(filename);
+		AACMetrics.register(mappings);
+		mappings.setMostUsedFirst(Boolean.getBoolean("aac.mostUsedFirst"));
+		startUsageTracking(mappings);
+		mappings.useHistory(System.getProperty("aac.historyFile", "aac-history.txt"));
+		Runtime.getRuntime().addShutdownHook(new Thread(mappings::closeHistory));
+		logPhase("mappings load", start);
+		long iconStart = System.nanoTime();
+		String[] firstPage = mappings.getImageLocs();
+		int across = Integer.getInteger("aac.across", DEFAULT_ACROSS);
+		int down = Integer.getInteger("aac.down", DEFAULT_DOWN);
+		prefetchIcons(Arrays.copyOf(firstPage, Math.min(firstPage.length, across * down)));
+		logPhase("first page icons", iconStart);
+
+		AAC aac = new AAC(mappings, across, down, Boolean.getBoolean("aac.scroll"));
+		if (Boolean.getBoolean("aac.phrase")) {
+			aac.setPhraseStrip(true);
+		}
+		if (Boolean.getBoolean("aac.suggest")) {
+			aac.setSuggestions(true);
+		}
+		logPhase("window shown", start);
+		speech.thenRun(() -> logPhase("ready to speak", start));
+	}
+
+	/**
+	 * Speaks text, playing pre-synthesized audio when it is cached and
+	 * otherwise using the speech engine (waiting for it to start if need be)
+	 * 
+	 * @param toSpeak   the text to speak
+	 * @param clickTime when the request was made, for the latency histograms
+	 * @throws Exception if the text cannot be spoken
+	 */
+	private void speak(String toSpeak, long clickTime) throws Exception {
+		UtteranceCache cache = audioCache;
+		SpeechAudio audio = (cache == null) ? null : cache.get(toSpeak);
+		if (audio != null) {
+			play(audio, toSpeak, clickTime);
+			return;
+		}
+		speakLive(toSpeak, clickTime);
+	}
 
-			// Register Engine
-			Central.registerEngineCentral("com.sun.speech.freetts" + ".jsapi.FreeTTSEngineCentral");
-			synthesizer = Central.createSynthesizer(new SynthesizerModeDesc(Locale.US));
+	/**
+	 * Speaks text with the speech engine (waiting for it to start if need
+	 * be), without looking in or adding to the audio cache
+	 * 
+	 * @param toSpeak   the text to speak
+	 * @param clickTime when the request was made, for the latency histograms
+	 * @throws Exception if the text cannot be spoken
+	 */
+	private void speakLive(String toSpeak, long clickTime) throws Exception {
+		AACEvents.Speech event = new AACEvents.Speech();
+		event.begin();
+		event.text = toSpeak;
+		event.source = "engine";
+		AACMetrics.speechStarted();
+		try {
+			// wait for the background start-up to finish if it has not yet
+			SpeechEngine engine = speech.join();
+			if (engine == null) {
+				System.err.println("Error: no speech engine available to speak - " + toSpeak);
+			} else {
+				engine.speak(toSpeak, () -> LatencyMonitor.CLICK_TO_SPEECH_START.recordSince(clickTime));
+				LatencyMonitor.CLICK_TO_SPEECH_END.recordSince(clickTime);
+			}
+		} finally {
+			AACMetrics.speechDone();
+			event.commit();
+		}
+	}
 
-			// Allocate synthesizer
-			synthesizer.allocate();
+	/**
+	 * Speaks the phrase strip as one utterance. If every word is in the audio
+	 * cache, the cached audio is joined without the silences around each word;
+	 * otherwise the whole phrase is synthesized in one pass, and not cached,
+	 * since phrases rarely repeat
+	 * 
+	 * @param clickTime when the request was made, for the latency histograms
+	 * @throws Exception if the phrase cannot be spoken
+	 */
+	private void speakPhrase(long clickTime) throws Exception {
+		if (this.phrase.isEmpty()) {
+			return;
+		}
+		UtteranceCache cache = audioCache;
+		if (cache != null) {
+			List<SpeechAudio> pieces = new ArrayList<SpeechAudio>();
+			for (String word : this.phrase.getWords()) {
+				SpeechAudio audio = cache.get(word);
+				if (audio == null) {
+					pieces = null;
+					break;
+				}
+				pieces.add(audio);
+			}
+			SpeechAudio joined = (pieces == null) ? null : SpeechAudio.concat(pieces, 60);
+			if (joined != null) {
+				play(joined, this.phrase.getText(), clickTime);
+				return;
+			}
+		}
+		speakLive(this.phrase.getText(), clickTime);
+	}
 
-			// Resume Synthesizer
-			synthesizer.resume();
+	/**
+	 * Plays audio and records how long it took to start and finish
+	 * 
+	 * @param audio     the audio to play
+	 * @param text      the text the audio speaks
+	 * @param clickTime when the request was made, for the latency histograms
+	 * @throws Exception if the audio cannot be played
+	 */
+	private void play(SpeechAudio audio, String text, long clickTime) throws Exception {
+		AACEvents.Speech event = new AACEvents.Speech();
+		event.begin();
+		event.text = text;
+		event.source = "cache";
+		event.bytes = audio.getPcm().length;
+		AACMetrics.speechStarted();
+		try {
+			Clip clip = audio.start();
+			LatencyMonitor.CLICK_TO_SPEECH_START.recordSince(clickTime);
+			SpeechAudio.finish(clip);
+			LatencyMonitor.CLICK_TO_SPEECH_END.recordSince(clickTime);
+		} finally {
+			AACMetrics.speechDone();
+			event.commit();
+		}
+	}
 
+	/**
+	 * Speaks the text of a selected item, or adds it to the phrase strip if
+	 * there is one
+	 * 
+	 * @param toSpeak   the text of the item
+	 * @param clickTime when the item was clicked, for the latency histograms
+	 */
+	private void say(String toSpeak, long clickTime) {
+		LatencyMonitor.CLICK_TO_SELECT.recordSince(clickTime);
+		try {
+			if (this.phrase != null) {
+				this.phrase.add(toSpeak);
+			} else {
+				speak(toSpeak, clickTime);
+			}
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
-		AAC aac = new AAC("AACMappings.txt");
+	}
+
+	/**
+	 * Tells the mappings, if they predict selections, that a sentence has ended
+	 */
+	private void endSentence() {
+		if (this.page instanceof AACMappings) {
+			((AACMappings) this.page).endSentence();
+		}
+	}
+
+	/**
+	 * Shows the items, from every category, whose text or one of whose words
+	 * starts with the query (see AACMappings.search), followed by those that
+	 * nearly match it (see AACMappings.fuzzySearch). An empty query goes back to
+	 * the current category
+	 * 
+	 * @param text the query
+	 */
+	private void search(String text) {
+		if (text.isEmpty()) {
+			clearSearch();
+			this.images = this.page.getImageLocs();
+		} else {
+			this.query = text;
+			this.found = new HashMap<String, VocabularyItem>();
+			List<String> imageLocs = new ArrayList<String>();
+			AACMappings mappings = (AACMappings) this.page;
+			// exact prefixes first, then near misses
+			List<VocabularyItem> results = new ArrayList<VocabularyItem>(mappings.search(text, MAX_RESULTS));
+			results.addAll(mappings.fuzzySearch(text, MAX_RESULTS));
+			for (VocabularyItem item : results) {
+				// the same image in two categories is shown once
+				if (this.found.putIfAbsent(item.getImageLoc(), item) == null) {
+					imageLocs.add(item.getImageLoc());
+				}
+			}
+			this.images = imageLocs.toArray(new String[0]);
+		}
+		this.startIndex = 0;
+		this.endIndex = Math.min(pageSize(), this.images.length);
+	}
+
+	/**
+	 * Forgets the current search, if any
+	 */
+	private void clearSearch() {
+		this.query = "";
+		this.found = null;
 	}
 
 	/**
@@ -176,18 +839,51 @@ public class AAC implements ActionListener {
 	 * the category, it speaks aloud the text
 	 */
 	public void actionPerformed(ActionEvent e) {
+		long clickTime = System.nanoTime();
 		String actionCommand = e.getActionCommand();
 		if (actionCommand.equals("back")) {
-			this.startIndex -= NUM_ACROSS * NUM_DOWN;
-			this.endIndex -= NUM_ACROSS * NUM_DOWN;
+			this.startIndex -= pageSize();
+			this.endIndex -= pageSize();
 		} else if (actionCommand.equals("next")) {
-			this.startIndex += NUM_ACROSS * NUM_DOWN;
-			this.endIndex = Math.min(endIndex + NUM_ACROSS * NUM_DOWN, this.images.length);
+			this.startIndex += pageSize();
+			this.endIndex = Math.min(endIndex + pageSize(), this.images.length);
+		} else if (actionCommand.equals("speak") && this.phrase != null) {
+			try {
+				speakPhrase(clickTime);
+			} catch (Exception e1) {
+				e1.printStackTrace();
+			}
+			endSentence();
+			loadImages(this.numAcross, this.numDown);
+			return;
+		} else if (actionCommand.equals("backspace") && this.phrase != null) {
+			this.phrase.removeLast();
+			loadImages(this.numAcross, this.numDown);
+			return;
+		} else if (actionCommand.equals("clear") && this.phrase != null) {
+			this.phrase.clear();
+			endSentence();
+			loadImages(this.numAcross, this.numDown);
+			return;
+		} else if (actionCommand.equals("search") && this.page instanceof AACMappings) {
+			search(((JTextField) e.getSource()).getText().trim());
+		} else if (this.found != null && this.found.containsKey(actionCommand)) {
+			// a search result speaks without leaving the current category
+			VocabularyItem item = this.found.get(actionCommand);
+			say(((AACMappings) this.page).selectItem(item.getCategoryLoc(), item.getImageLoc()), clickTime);
+			loadImages(this.numAcross, this.numDown);
+			return;
+		} else if (actionCommand.startsWith(SUGGESTION) && this.suggested != null) {
+			VocabularyItem item = this.suggested.get(Integer.parseInt(actionCommand.substring(SUGGESTION.length())));
+			say(((AACMappings) this.page).selectItem(item.getCategoryLoc(), item.getImageLoc()), clickTime);
+			loadImages(this.numAcross, this.numDown);
+			return;
 		} else if (actionCommand.equals("save") && this.page instanceof AACMappings) {
+			clearSearch();
 			((AACMappings) this.page).writeToFile("AACMappingsNew.txt");
 			this.images = this.page.getImageLocs();
 			this.startIndex = 0;
-			this.endIndex = Math.min(NUM_ACROSS * NUM_DOWN, this.images.length);
+			this.endIndex = Math.min(pageSize(), this.images.length);
 		} else if (actionCommand.equals("add")) {
 			JFileChooser chooser = new JFileChooser();
 			int returnVal = chooser.showOpenDialog(frame);
@@ -200,31 +896,36 @@ public class AAC implements ActionListener {
 					this.page.addItem(imageLoc, result);
 				}
 			}
+			clearSearch();
 			this.images = this.page.getImageLocs();
 			this.startIndex = 0;
-			this.endIndex = Math.min(NUM_ACROSS * NUM_DOWN, this.images.length);
+			this.endIndex = Math.min(pageSize(), this.images.length);
 		} else if (actionCommand.equals("") && this.page instanceof AACMappings) {
 			((AACMappings) this.page).reset();
+			clearSearch();
 			this.images = this.page.getImageLocs();
 			this.startIndex = 0;
-			this.endIndex = Math.min(NUM_ACROSS * NUM_DOWN, this.images.length);
+			this.endIndex = Math.min(pageSize(), this.images.length);
 		} else {
 			if (this.page.getCategory().equals("")) {
 				this.page.select(actionCommand);
+				LatencyMonitor.CLICK_TO_SELECT.recordSince(clickTime);
 				this.images = this.page.getImageLocs();
 				this.startIndex = 0;
-				this.endIndex = Math.min(NUM_ACROSS * NUM_DOWN, this.images.length);
+				this.endIndex = Math.min(pageSize(), this.images.length);
 			} else {
 				try {
-					String toSpeak = this.page.select(actionCommand);
-					synthesizer.speakPlainText(toSpeak, null);
-					synthesizer.waitEngineState(Synthesizer.QUEUE_EMPTY);
+					say(this.page.select(actionCommand), clickTime);
 				} catch (Exception e1) {
 					e1.printStackTrace();
 				}
+				// speaking leaves the page as it is
+				loadImages(this.numAcross, this.numDown);
+				return;
 			}
 		}
-		loadImages(NUM_ACROSS, NUM_DOWN);
+		this.pageChangeStart = clickTime;
+		loadImages(this.numAcross, this.numDown);
 
 	}
 
@@ -1,7 +1,8 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.NoSuchElementException;
-import edu.grinnell.csc207.util.AssociativeArray;
-import edu.grinnell.csc207.util.KeyNotFoundException;
-import edu.grinnell.csc207.util.NullKeyException;
+import edu.grinnell.csc207.util.UsageCounts;
 
 /**
  * Represents the mappings for a single category of items that should
@@ -15,8 +16,18 @@ public class AACCategory implements AACPage {
   // Name of the category
   public String categoryName;
 
-  // Associative array mapping image locations to text
-  public AssociativeArray<String, String> items;
+  // Maps image locations to text, in the order they were added (so
+  // adding, selecting and finding an item each take constant time)
+  public LinkedHashMap<String, String> items;
+
+  // How long it takes for a use of an item to count half as much
+  static final long USAGE_HALF_LIFE = 14L * 24 * 60 * 60 * 1000;
+
+  // How often each item has been used, by image location
+  private final UsageCounts<String> usage = new UsageCounts<>(USAGE_HALF_LIFE);
+
+  // The image locations, most used first (null unless ordering by use)
+  private ArrayList<String> ranked;
 
   /**
    * Creates a new empty category with the given name.
@@ -25,7 +36,7 @@ public class AACCategory implements AACPage {
    */
   public AACCategory(String name) {
     this.categoryName = (name == null || name.trim().isEmpty()) ? "Unnamed Category" : name;
-    this.items = new AssociativeArray<>();
+    this.items = new LinkedHashMap<>();
   } // AACCategory
 
 
@@ -40,12 +51,10 @@ public class AACCategory implements AACPage {
     if (imageLoc == null || text == null) {
       throw new IllegalArgumentException("Image location and text cannot be null.");
     } // if
-    try {
-      // Attempt to add the item to the associative array
-      items.set(imageLoc, text); // Add to the associative array
-    } catch (NullKeyException e) {
-      System.err.println("Error: Attempt to add item with a null key - " + e.getMessage());
-    } // try/catch
+    if (items.put(imageLoc, text) == null && ranked != null) {
+      ranked.add(imageLoc);
+      promote(ranked.size() - 1);
+    } // if
   } // addItem
 
   /** 
@@ -56,13 +65,10 @@ public class AACCategory implements AACPage {
    */
   @Override
   public String[] getImageLocs() {
-      String[] imageLocs = new String[items.size()]; // Create an array to hold image locations
-      int index = 0;
-      // Retrieve all keys (image locations) for the items and store in the array
-      for (String key : items.keys()) {
-          imageLocs[index++] = key; // Assign each key to imageLocs
-      }
-      return imageLocs;
+      if (ranked != null) {
+        return ranked.toArray(new String[ranked.size()]);
+      } // if
+      return items.keySet().toArray(new String[items.size()]);
   } // getImageLocs
 
   /**
@@ -75,6 +81,16 @@ public class AACCategory implements AACPage {
     return (categoryName != null && !categoryName.trim().isEmpty()) ? categoryName : "Unnamed Category";
   } // getCategory()
 
+  /**
+   * Returns how often each item in this category has been used, so the
+   * counts can be saved (see AACMappings.writeUsage).
+   *
+   * @return the use counts, by image location
+   */
+  public UsageCounts<String> getUsage() {
+    return this.usage;
+  } // getUsage()
+
   /**
    * Returns the text associated with the given image in this category.
    *
@@ -85,13 +101,11 @@ public class AACCategory implements AACPage {
    */
   @Override
   public String select(String imageLoc) {
-    try {
-      // Attempt to retrieve the text associated with the image location
-      return items.get(imageLoc);
-    } catch (KeyNotFoundException e) {
-      // If the image location is not found, throw a NoSuchElementException
+    String text = (imageLoc == null) ? null : items.get(imageLoc);
+    if (text == null) {
       throw new NoSuchElementException("Image not found in this category: " + imageLoc);
-    } // try/catch
+    } // if
+    return text;
   } // select
 
   /**
@@ -102,6 +116,79 @@ public class AACCategory implements AACPage {
    */
   @Override
   public boolean hasImage(String imageLoc) {
-    return items.hasKey(imageLoc);
+    return imageLoc != null && items.containsKey(imageLoc);
   } // hasImage
+
+  /**
+   * Records that an item has been used (e.g., selected by the user).
+   * When ordering by use, this moves the item ahead of any items that
+   * are now used less, without re-sorting the rest.
+   *
+   * @param imageLoc the location of the image
+   */
+  public void recordUse(String imageLoc) {
+    addUses(imageLoc, 1, System.currentTimeMillis());
+  } // recordUse
+
+  /**
+   * Records uses of an item, e.g., from a saved usage file.
+   *
+   * @param imageLoc the location of the image
+   * @param uses how many uses, as they counted at the time
+   * @param time when they counted that much, in milliseconds since the epoch
+   */
+  public void addUses(String imageLoc, double uses, long time) {
+    usage.record(imageLoc, uses, time);
+    if (ranked != null) {
+      for (int i = ranked.size() - 1; i >= 0; i--) {
+        if (ranked.get(i).equals(imageLoc)) {
+          promote(i);
+          return;
+        } // if
+      } // for
+    } // if
+  } // addUses
+
+  /**
+   * Turns ordering by use on or off. When on, getImageLocs returns the
+   * most used items first (ties in the order they were added); when off,
+   * it returns the items in the order they were added.
+   *
+   * @param mostUsedFirst true to order by use
+   */
+  public void setMostUsedFirst(boolean mostUsedFirst) {
+    if (!mostUsedFirst) {
+      ranked = null;
+    } else if (ranked == null) {
+      // The only full sort; after this, each use moves one item.
+      String[] imageLocs = getImageLocs();
+      double[] scores = new double[imageLocs.length];
+      Integer[] order = new Integer[imageLocs.length];
+      for (int i = 0; i < imageLocs.length; i++) {
+        scores[i] = usage.score(imageLocs[i]);
+        order[i] = i;
+      } // for
+      Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+      ranked = new ArrayList<String>(imageLocs.length);
+      for (int i = 0; i < order.length; i++) {
+        ranked.add(imageLocs[order[i]]);
+      } // for
+    } // if/else
+  } // setMostUsedFirst
+
+  /**
+   * Moves the item at position i of ranked ahead of the items that are
+   * used less than it is.
+   *
+   * @param i the position of the item
+   */
+  private void promote(int i) {
+    String imageLoc = ranked.get(i);
+    double score = usage.score(imageLoc);
+    while (i > 0 && usage.score(ranked.get(i - 1)) < score) {
+      ranked.set(i, ranked.get(i - 1));
+      i--;
+    } // while
+    ranked.set(i, imageLoc);
+  } // promote
 } // AACCategory
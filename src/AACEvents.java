@@ -0,0 +1,211 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Java Flight Recorder events of the AAC, so that a recording of a
+ * device that stutters shows what the board was doing (loading,
+ * saving, selecting, building a page, decoding an image or speaking)
+ * alongside the JVM's own events (garbage collection, lock waits,
+ * samples of the event dispatch thread, and so on).
+ *
+ * Events cost almost nothing unless a recording is running. Record
+ * with the bundled settings, which enable these events and the JVM
+ * events that explain stalls, e.g.,
+ *   java -XX:StartFlightRecording:filename=aac.jfr,settings=aac.jfc AAC
+ * and open the file in JDK Mission Control (or "jfr print").
+ *
+ * @author Princess Alexander
+ */
+public class AACEvents {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The prefix of every event name. */
+  static final String PREFIX = "edu.grinnell.csc207.aac.";
+
+  // +--------+------------------------------------------------------
+  // | Events |
+  // +--------+
+
+  /**
+   * Reading a mapping file (see AACMappings).
+   */
+  @Name(PREFIX + "Load")
+  @Label("Load Mappings")
+  @Category({"AAC", "Mappings"})
+  @Description("Reading a mapping file")
+  @StackTrace(false)
+  public static class Load extends Event {
+    /** The file. */
+    @Label("File")
+    public String file;
+
+    /** The number of categories read. */
+    @Label("Categories")
+    public int categories;
+
+    /** The number of items read. */
+    @Label("Items")
+    public int items;
+  } // class Load
+
+  /**
+   * Writing a mapping file (see AACMappings.writeToFile).
+   */
+  @Name(PREFIX + "Save")
+  @Label("Save Mappings")
+  @Category({"AAC", "Mappings"})
+  @Description("Writing a mapping file")
+  @StackTrace(false)
+  public static class Save extends Event {
+    /** The file. */
+    @Label("File")
+    public String file;
+
+    /** The number of items written. */
+    @Label("Items")
+    public int items;
+
+    /** The size of the file. */
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+  } // class Save
+
+  /**
+   * Selecting an image on the current page (see AACPage.select). Selects
+   * are the board's hottest path, so they are begun and ended through
+   * start and end, which allocate no event unless one is being recorded.
+   */
+  @Name(PREFIX + "Select")
+  @Label("Select")
+  @Category({"AAC", "Board"})
+  @Description("Selecting an image on the current page")
+  @StackTrace(false)
+  public static class Select extends Event {
+    /** The category shown when the image was selected. */
+    @Label("Category")
+    public String category;
+
+    /** The image. */
+    @Label("Image")
+    public String image;
+
+    /** Whether the image was on the page. */
+    @Label("Found")
+    public boolean found;
+
+    /** The type of this event, to check whether it is recorded. */
+    private static final EventType TYPE = EventType.getEventType(Select.class);
+
+    /**
+     * Begin a select event, if select events are being recorded.
+     *
+     * @param category the category shown
+     * @param image the image selected
+     * @return the event, or null if select events are not recorded
+     */
+    static Select start(String category, String image) {
+      if (!TYPE.isEnabled()) {
+        return null;
+      } // if
+      Select event = new Select();
+      event.begin();
+      event.category = category;
+      event.image = image;
+      return event;
+    } // start(String, String)
+
+    /**
+     * End a select event begun by start.
+     *
+     * @param event the event (null if it was not recorded)
+     * @param found whether the image was found
+     */
+    static void end(Select event, boolean found) {
+      if (event != null) {
+        event.found = found;
+        event.commit();
+      } // if
+    } // end(Select, boolean)
+  } // class Select
+
+  /**
+   * Building the components of a page (see AAC.loadImages).
+   */
+  @Name(PREFIX + "PageBuild")
+  @Label("Page Build")
+  @Category({"AAC", "Board"})
+  @Description("Building the buttons and panels of a page of the board")
+  @StackTrace(false)
+  public static class PageBuild extends Event {
+    /** The category shown. */
+    @Label("Category")
+    public String category;
+
+    /** The position of the first item shown, in the category. */
+    @Label("First Item")
+    public int first;
+
+    /** The number of items shown. */
+    @Label("Items")
+    public int items;
+  } // class PageBuild
+
+  /**
+   * Getting the icon for an image.
+   */
+  @Name(PREFIX + "ImageDecode")
+  @Label("Image Decode")
+  @Category({"AAC", "Images"})
+  @Description("Getting the icon for an image, decoded ahead of time, from an atlas or from its file")
+  @StackTrace(false)
+  public static class ImageDecode extends Event {
+    /** The image. */
+    @Label("Image")
+    public String image;
+
+    /** Where the icon came from: "prefetched", "atlas" or "file". */
+    @Label("Source")
+    public String source;
+
+    /** The width of the icon, in pixels. */
+    @Label("Width")
+    public int width;
+
+    /** The height of the icon, in pixels. */
+    @Label("Height")
+    public int height;
+  } // class ImageDecode
+
+  /**
+   * Speaking an utterance, from the request to the end of the audio.
+   */
+  @Name(PREFIX + "Speech")
+  @Label("Speech")
+  @Category({"AAC", "Speech"})
+  @Description("Speaking an utterance, from the request to the end of the audio")
+  @StackTrace(false)
+  public static class Speech extends Event {
+    /** The text spoken. */
+    @Label("Text")
+    public String text;
+
+    /** Where the audio came from: "cache" or "engine". */
+    @Label("Source")
+    public String source;
+
+    /** The size of the audio, for cached audio. */
+    @Label("Audio Size")
+    @DataAmount
+    public long bytes;
+  } // class Speech
+} // class AACEvents
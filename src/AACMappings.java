@@ -1,8 +1,16 @@
-import edu.grinnell.csc207.util.AssociativeArray;
-import edu.grinnell.csc207.util.KeyNotFoundException;
+import edu.grinnell.csc207.util.FuzzyIndex;
 import edu.grinnell.csc207.util.NullKeyException;
+import edu.grinnell.csc207.util.PrefixIndex;
+import edu.grinnell.csc207.util.UsageCounts;
 import java.io.PrintWriter;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.Scanner;
 import java.util.NoSuchElementException;
 
@@ -14,22 +22,58 @@ import java.util.NoSuchElementException;
  * provides the methods for interacting with the categories
  * and updating the set of images that would be shown and handling
  * an interactions.
- * 
+ *
  * The AACMappings class manages categories of images and their corresponding text.
- * It implements the AACPage interface to provide functionality for adding, selecting, and 
+ * It implements the AACPage interface to provide functionality for adding, selecting, and
  * manipulating items in the system.
- * 
+ *
+ * The public methods are synchronized, so the mappings may be shared
+ * with background threads. The current category is shared too, so
+ * threads that should not move each other's page should use the
+ * methods that name a category (e.g., getImageLocs(String), getText,
+ * selectItem and addItem(String, String, String)).
+ *
  * @author Catie Baker & Princess Alexander
  *
  */
 
 public class AACMappings implements AACPage {
 
-  /** Map holding the categories and associated images */
-  private AssociativeArray<String, AssociativeArray<String, String>> categories;
+  /** The home page, mapping the image of each category to its name */
+  private AACCategory topLevel;
+
+  /** Map holding the categories, by the location of their image */
+  private Map<String, AACCategory> categories;
+
+  /** The current selected category (topLevel when on the home page) */
+  private AACCategory current;
+
+  /** The location of the current category's image (null on the home page) */
+  private String currentLoc;
+
+  /** Every item, by the start of its text and of each word in its text */
+  private PrefixIndex<VocabularyItem> searchIndex;
+
+  /** Every item, by its text, for approximate matches */
+  private FuzzyIndex<VocabularyItem> fuzzyIndex;
+
+  /** The items that speak each text, by the text in lower case */
+  private Map<String, List<VocabularyItem>> textIndex;
+
+  /** The items with each image, in every category (usually just one) */
+  private Map<String, VocabularyItem[]> itemIndex;
+
+  /** The use counts of each category's items, by the category's image */
+  private Map<String, UsageCounts<String>> usage;
+
+  /** Whether categories list their most used items first */
+  private boolean mostUsedFirst;
 
-  /** The current selected category */
-  private String currentCategory = ""; // Default to empty string
+  /** Learns from selections to suggest the next one */
+  private SelectionPredictor predictor;
+
+  /** The number of items, in every category */
+  private int itemCount;
 
 
   /**
@@ -41,189 +85,686 @@ public class AACMappings implements AACPage {
 	 * the text location of the category followed by the text name of the
 	 * category and then one line per item in the category that starts with
 	 * > and then has the file name and text of that image
-	 * 
+	 *
 	 * for instance:
 	 * img/food/plate.png food
 	 * >img/food/icons8-french-fries-96.png french fries
 	 * >img/food/icons8-watermelon-96.png watermelon
 	 * img/clothing/hanger.png clothing
 	 * >img/clothing/collaredshirt.png collared shirt
-	 * 
+	 *
 	 * represents the file with two categories, food and clothing
-	 * and food has french fries and watermelon and clothing has a 
+	 * and food has french fries and watermelon and clothing has a
 	 * collared shirt
 	 *
    * @param filename The file containing image categories and text mappings
    *
    */
   public AACMappings(String filename) {
-    categories = new AssociativeArray<String, AssociativeArray<String, String>>();
-    currentCategory = "";
+    long start = System.nanoTime();
+    AACEvents.Load event = new AACEvents.Load();
+    event.begin();
+    event.file = filename;
+    topLevel = new AACCategory("");
+    categories = new HashMap<String, AACCategory>();
+    current = topLevel;
+    searchIndex = new PrefixIndex<VocabularyItem>();
+    fuzzyIndex = new FuzzyIndex<VocabularyItem>();
+    textIndex = new HashMap<String, List<VocabularyItem>>();
+    itemIndex = new HashMap<String, VocabularyItem[]>();
+    usage = new ConcurrentHashMap<String, UsageCounts<String>>();
+    predictor = new SelectionPredictor();
 
     try (Scanner scanner = new Scanner(new File(filename))) {
-      String category = null;
-      AssociativeArray<String, String> imageTextMap = null;
+      AACCategory category = null;
+      String categoryLoc = null;
 
       while (scanner.hasNextLine()) {
         String line = scanner.nextLine().trim();
-        if (line.startsWith("img/")) {
-            String[] parts = line.split(" ", 2);
-            if (line.startsWith(">")) {
-                // This is an image item line
-                String imageLoc = parts[0].substring(1);
-                String text = parts[1];
-                if (imageTextMap != null) {
-                    imageTextMap.set(imageLoc, text);
-                }
-            } else {
-                // This is a new category line
-                if (category != null && imageTextMap != null) {
-                    categories.set(category, imageTextMap);
-                }
-                category = parts[1];
-                imageTextMap = new AssociativeArray<String, String>();
-            }
-        }
-    }
-    // Final check to store the last category
-    if (category != null && imageTextMap != null) {
-        categories.set(category, imageTextMap);
-    }
+        if (line.isEmpty()) {
+          continue;
+        } // if
+        if (line.startsWith(">")) {
+          // This is an image item line
+          String[] parts = line.substring(1).split(" ", 2);
+          if (category != null) {
+            addToCategory(categoryLoc, category, parts[0], (parts.length > 1) ? parts[1] : "");
+          } // if
+        } else {
+          // This is a new category line
+          String[] parts = line.split(" ", 2);
+          categoryLoc = parts[0];
+          category = addCategory(categoryLoc, (parts.length > 1) ? parts[1] : "");
+        } // if/else
+      } // while
+      AACMetrics.recordLoad(System.nanoTime() - start);
     } catch (Exception e) {
+      AACMetrics.recordError();
       e.printStackTrace();
-    } // catch 
+    } // catch
+    event.categories = categories.size();
+    event.items = itemCount;
+    event.commit();
   } // AACMappings
 
   /**
-   * Adds an image and corresponding text to the current category.
+   * Adds an image and corresponding text to the current category. On
+   * the home page, this adds a new (empty) category whose image is
+   * imageLoc and whose name is text.
    *
    *  * @param imageLoc The location of the image
    *  * @param text The text description of the image
    *  */
   @Override
-  public void addItem(String imageLoc, String text) {
+  public synchronized void addItem(String imageLoc, String text) {
     if (imageLoc == null || text == null) {
         throw new IllegalArgumentException("Image location and text cannot be null.");
     } // if
-  
-    if (currentCategory == null || currentCategory.trim().isEmpty()) {
-        throw new IllegalStateException("Current category is not set.");
-    }
 
-    try {
-        if (categories.hasKey(currentCategory)) {
-            categories.get(currentCategory).set(imageLoc, text);
-        } else {
-            System.err.println("Error: Current category not found - " + currentCategory);
-        }
-    } catch (NullKeyException | KeyNotFoundException e) {
-        System.err.println("Error: " + e.getMessage());
-    }
-  }
+    if (current == topLevel) {
+      addCategory(imageLoc, text);
+    } else {
+      addToCategory(currentLoc, current, imageLoc, text);
+    } // if/else
+  } // addItem
 
   /**
-   * Retrieves all image locations for the current category.
+   * Adds (or changes the text of) an item in a category, without
+   * changing the current category.
+   *
+   * @param categoryLoc the location of the category's image
+   * @param imageLoc the location of the item's image
+   * @param text the text of the item
+   * @throws NoSuchElementException if there is no such category
+   */
+  public synchronized void addItem(String categoryLoc, String imageLoc, String text) {
+    if (imageLoc == null || text == null) {
+      throw new IllegalArgumentException("Image location and text cannot be null.");
+    } // if
+    addToCategory(categoryLoc, categoryFor(categoryLoc), imageLoc, text);
+  } // addItem(String, String, String)
+
+  /**
+   * Retrieves all image locations for the current category (or, on the
+   * home page, the images of the categories).
    *
    * @return An array of image locations
    */
   @Override
-  public String[] getImageLocs() {
-      try {
-          if (categories.hasKey(currentCategory)) {
-              AssociativeArray<String, String> currentCategoryItems = categories.get(currentCategory);
-              String[] imageLocs = new String[currentCategoryItems.size()];
-              int index = 0;
-  
-              for (String key : currentCategoryItems.keys()) {
-                  imageLocs[index++] = key;
-              }
-              return imageLocs;
-          } else {
-              return new String[0]; // Return empty array if category is not found
-          }
-      } catch (KeyNotFoundException e) {
-          System.err.println("Error retrieving image locations: " + e.getMessage());
-          return new String[0];
-      }
-  }  
+  public synchronized String[] getImageLocs() {
+    return current.getImageLocs();
+  } // getImageLocs
 
   /**
    * Gets the name of the current category.
    *
-   * @return The name of the current category
+   * @return The name of the current category, or the empty string on
+   *   the home page
    */
-  public String getCategory() {
-    if (currentCategory == null || currentCategory.trim().isEmpty()) {
-        return "Unnamed Category"; 
-    }
-    return currentCategory;
-  }
+  public synchronized String getCategory() {
+    if (current == topLevel) {
+      return "";
+    } // if
+    return current.getCategory();
+  } // getCategory
 
   /**
-   * Selects a specific image from the current category.
+   * Selects a specific image. On the home page, this moves to the
+   * category for that image and returns the empty string. Within a
+   * category, it returns the text associated with the image and counts
+   * the selection as a use of the item (see setMostUsedFirst).
    *
    * @param imageLoc The location of the image to select
    * @return The text associated with the selected image
+   * @throws NoSuchElementException if the image is not on the current page
    */
   @Override
-  public String select(String imageLoc) {
+  public synchronized String select(String imageLoc) {
+    AACEvents.Select event = AACEvents.Select.start(getCategory(), imageLoc);
+    boolean found = false;
     try {
-      if (categories.hasKey(currentCategory)) {
-        AssociativeArray<String, String> currentImages = categories.get(currentCategory);
-        return currentImages.get(imageLoc);
+      if (current == topLevel) {
+        found = categories.containsKey(imageLoc);
+        AACMetrics.recordSelect(found);
+        current = categoryFor(imageLoc);
+        currentLoc = imageLoc;
+        return "";
+      } // if
+      VocabularyItem item = itemFor(currentLoc, imageLoc);
+      found = item != null;
+      AACMetrics.recordSelect(found);
+      if (item == null) {
+        throw new NoSuchElementException("Image not found in this category: " + imageLoc);
       } // if
-    } catch (KeyNotFoundException e) {
-      throw new NoSuchElementException("Image location not found in current category: " + imageLoc);
-    } //catch
-    return "";
+      current.recordUse(imageLoc);
+      predictor.observe(currentLoc, imageLoc);
+      return item.getText();
+    } finally {
+      AACEvents.Select.end(event, found);
+    } // try/finally
   } // select
 
   /**
-   * Checks if the given image location exists in the current category.
+   * Selects an item in any category without changing the current
+   * category (e.g., from search results or suggestions). Like select,
+   * this counts as a use of the item.
+   *
+   * @param categoryLoc the location of the category's image
+   * @param imageLoc the location of the item's image
+   * @return the text of the item
+   * @throws NoSuchElementException if there is no such category or item
+   */
+  public synchronized String selectItem(String categoryLoc, String imageLoc) {
+    AACEvents.Select event = AACEvents.Select.start(categoryLoc, imageLoc);
+    boolean found = false;
+    try {
+      String text = getText(categoryLoc, imageLoc);
+      found = true;
+      categoryFor(categoryLoc).recordUse(imageLoc);
+      predictor.observe(categoryLoc, imageLoc);
+      return text;
+    } finally {
+      AACEvents.Select.end(event, found);
+    } // try/finally
+  } // selectItem
+
+  /**
+   * Finds every item with the given image, in any category. This is one
+   * hash lookup.
+   *
+   * @param imageLoc the location of the item's image
+   * @return the items (empty if there are none)
+   */
+  public synchronized List<VocabularyItem> locate(String imageLoc) {
+    VocabularyItem[] items = itemIndex.get(imageLoc);
+    return (items == null) ? List.of() : List.of(items);
+  } // locate
+
+  /**
+   * Moves to the category that holds the given image, wherever the
+   * current category is. If several categories hold it, this moves to
+   * the one it was first added to.
+   *
+   * @param imageLoc the location of the item's image
+   * @return the item
+   * @throws NoSuchElementException if no category holds the image
+   */
+  public synchronized VocabularyItem jumpTo(String imageLoc) {
+    VocabularyItem[] items = itemIndex.get(imageLoc);
+    if (items == null) {
+      throw new NoSuchElementException("No item with image: " + imageLoc);
+    } // if
+    current = categoryFor(items[0].getCategoryLoc());
+    currentLoc = items[0].getCategoryLoc();
+    return items[0];
+  } // jumpTo
+
+  /**
+   * Checks if the given image location exists on the current page.
    *
    * @param imageLoc The image location to check
    * @return true if the image exists in the current category, false otherwise
    */
   @Override
-  public boolean hasImage(String imageLoc) {
-    try {
-      return categories.get(currentCategory).hasKey(imageLoc); 
-    } catch (KeyNotFoundException e) {
-      // Log the error if needed
-      System.err.println("Error checking for image: " + imageLoc + " - " + e.getMessage());
-      return false;
-    } // try
+  public synchronized boolean hasImage(String imageLoc) {
+    boolean found = (current == topLevel) ? categories.containsKey(imageLoc)
+        : itemFor(currentLoc, imageLoc) != null;
+    AACMetrics.recordHasImage(found);
+    return found;
   } // hasImage
 
   /**
-   * Resets the category to the first available category in the list.
+   * Resets the current category back to the home page.
    */
-  public void reset() {
-    if (categories.size() > 0) {
-        currentCategory = categories.keys()[0];  // Select the first available category
-    } else {
-        currentCategory = "";  // Default to empty if no categories are available, but should handle this better
-        throw new IllegalStateException("No categories available to reset.");
-    }
-  }
+  public synchronized void reset() {
+    current = topLevel;
+    currentLoc = null;
+  } // reset
 
   /**
    * Writes the current categories and their corresponding image-text mappings to a file.
    *
    * @param filename The file to which the mappings should be written
    */
-  public void writeToFile(String filename) {
-    try (PrintWriter writer = new PrintWriter(new File(filename))) {
-      for (String category : categories.keys()) {
-        writer.println("img/" + category + " " + category);
-        AssociativeArray<String, String> imageTextMap = categories.get(category);
-        for (String imageLoc : imageTextMap.keys()) {
-          writer.println(">" + imageLoc + " " + imageTextMap.get(imageLoc));
+  public synchronized void writeToFile(String filename) {
+    long start = System.nanoTime();
+    AACEvents.Save event = new AACEvents.Save();
+    event.begin();
+    event.file = filename;
+    File file = new File(filename);
+    try (PrintWriter writer = new PrintWriter(file)) {
+      for (String categoryLoc : topLevel.getImageLocs()) {
+        writer.println(categoryLoc + " " + topLevel.select(categoryLoc));
+        AACCategory category = categoryFor(categoryLoc);
+        for (String imageLoc : category.getImageLocs()) {
+          writer.println(">" + imageLoc + " " + itemFor(categoryLoc, imageLoc).getText());
         } // for
       } // for
     } catch (Exception e) {
+      AACMetrics.recordError();
       e.printStackTrace();
+      return;
     } // catch
+    long bytes = file.length();
+    AACMetrics.recordSave(System.nanoTime() - start, bytes);
+    event.items = itemCount;
+    event.bytes = bytes;
+    event.commit();
   } // writeToFile
 
+  // +-------+-------------------------------------------------------
+  // | Usage |
+  // +-------+
+
+  /**
+   * Turns ordering by use on or off for every category. When on,
+   * getImageLocs lists the items of a category that have been selected
+   * most (recently) first, so they appear on the first page.
+   *
+   * @param mostUsedFirst true to order by use, false for file order
+   */
+  public synchronized void setMostUsedFirst(boolean mostUsedFirst) {
+    this.mostUsedFirst = mostUsedFirst;
+    for (String categoryLoc : topLevel.getImageLocs()) {
+      categoryFor(categoryLoc).setMostUsedFirst(mostUsedFirst);
+    } // for
+  } // setMostUsedFirst
+
+  /**
+   * Writes how much each item has been used to a file, one item per
+   * line as the decayed count, the category image and the item image.
+   * This may be called from any thread.
+   *
+   * @param filename the file to write
+   */
+  public void writeUsage(String filename) {
+    long now = System.currentTimeMillis();
+    try (PrintWriter writer = new PrintWriter(new File(filename))) {
+      for (Map.Entry<String, UsageCounts<String>> category : usage.entrySet()) {
+        UsageCounts<String> counts = category.getValue();
+        for (String imageLoc : counts.keys()) {
+          writer.println(counts.count(imageLoc, now) + " " + category.getKey() + " " + imageLoc);
+        } // for
+      } // for
+    } catch (Exception e) {
+      AACMetrics.recordError();
+      e.printStackTrace();
+    } // catch
+  } // writeUsage
+
+  /**
+   * Adds the uses saved by writeUsage to the current counts. Lines for
+   * categories that no longer exist are ignored.
+   *
+   * @param filename the file to read
+   */
+  public synchronized void readUsage(String filename) {
+    long now = System.currentTimeMillis();
+    try (Scanner scanner = new Scanner(new File(filename))) {
+      while (scanner.hasNextLine()) {
+        String[] parts = scanner.nextLine().trim().split(" ", 3);
+        if (parts.length == 3 && categories.containsKey(parts[1])) {
+          categoryFor(parts[1]).addUses(parts[2], Double.parseDouble(parts[0]), now);
+        } // if
+      } // while
+    } catch (Exception e) {
+      AACMetrics.recordError();
+      e.printStackTrace();
+    } // catch
+  } // readUsage
+
+  // +--------------+------------------------------------------------
+  // | Reverse Text |
+  // +--------------+
+
+  /**
+   * Finds every item, in any category, that speaks the given text
+   * (ignoring case and surrounding space). This is one hash lookup.
+   *
+   * @param text the text
+   * @return the items, in the order they were added (empty if none)
+   */
+  public synchronized List<VocabularyItem> getItemsWithText(String text) {
+    List<VocabularyItem> items = textIndex.get(textKey(text));
+    return (items == null) ? List.of() : List.copyOf(items);
+  } // getItemsWithText
+
+  /**
+   * Finds the texts spoken by more than one item.
+   *
+   * @return the items that share each such text, by the text in lower case
+   */
+  public synchronized Map<String, List<VocabularyItem>> getDuplicateTexts() {
+    Map<String, List<VocabularyItem>> duplicates = new HashMap<String, List<VocabularyItem>>();
+    for (Map.Entry<String, List<VocabularyItem>> entry : textIndex.entrySet()) {
+      if (entry.getValue().size() > 1) {
+        duplicates.put(entry.getKey(), List.copyOf(entry.getValue()));
+      } // if
+    } // for
+    return duplicates;
+  } // getDuplicateTexts
+
+  /**
+   * Changes the text of every item that speaks the given text (ignoring
+   * case and surrounding space), in every category.
+   *
+   * @param oldText the text to replace
+   * @param newText the text to use instead
+   * @return the number of items changed
+   */
+  public synchronized int replaceText(String oldText, String newText) {
+    if (newText == null) {
+      throw new IllegalArgumentException("Text cannot be null.");
+    } // if
+    List<VocabularyItem> items = getItemsWithText(oldText);
+    for (VocabularyItem item : items) {
+      addToCategory(item.getCategoryLoc(), categoryFor(item.getCategoryLoc()),
+          item.getImageLoc(), newText);
+    } // for
+    return items.size();
+  } // replaceText
+
+  // +------------+--------------------------------------------------
+  // | Prediction |
+  // +------------+
+
+  /**
+   * Suggests the items most likely to be selected next, from the
+   * selections made so far (see SelectionPredictor).
+   *
+   * @param k the most suggestions to make
+   * @return the suggested items, most likely first
+   */
+  public synchronized List<VocabularyItem> predict(int k) {
+    List<VocabularyItem> result = new ArrayList<VocabularyItem>(k);
+    for (String[] item : predictor.predict(k)) {
+      // items that have since been removed are skipped
+      VocabularyItem found = itemFor(item[0], item[1]);
+      if (found != null) {
+        result.add(found);
+      } // if
+    } // for
+    return result;
+  } // predict
+
+  /**
+   * Marks the end of a sentence, so the next selection is predicted as
+   * the start of a new one.
+   */
+  public void endSentence() {
+    predictor.endSentence();
+  } // endSentence
+
+  /**
+   * Trains the predictor on a history file of earlier selections, if
+   * it exists, and logs every later selection to it.
+   *
+   * @param filename the history file
+   */
+  public void useHistory(String filename) {
+    try {
+      predictor.useHistory(filename);
+    } catch (Exception e) {
+      AACMetrics.recordError();
+      e.printStackTrace();
+    } // catch
+  } // useHistory
+
+  /**
+   * Writes every selection still waiting to the history file and stops
+   * logging (e.g., when the program exits).
+   */
+  public void closeHistory() {
+    try {
+      predictor.close();
+    } catch (Exception e) {
+      AACMetrics.recordError();
+      e.printStackTrace();
+    } // catch
+  } // closeHistory
+
+  // +----------------------+----------------------------------------
+  // | Read-only Vocabulary |
+  // +----------------------+
+
+  /**
+   * Returns the image locations of every category, whatever the current
+   * category is.
+   *
+   * @return the category images, in order
+   */
+  public synchronized String[] getCategoryImageLocs() {
+    return topLevel.getImageLocs();
+  } // getCategoryImageLocs
+
+  /**
+   * Counts the categories.
+   *
+   * @return the number of categories
+   */
+  public synchronized int getCategoryCount() {
+    return categories.size();
+  } // getCategoryCount
+
+  /**
+   * Counts the items, in every category. An image in several
+   * categories counts once for each.
+   *
+   * @return the number of items
+   */
+  public synchronized int getItemCount() {
+    return itemCount;
+  } // getItemCount
+
+  /**
+   * Returns the name of the category with the given image.
+   *
+   * @param categoryLoc the location of the category's image
+   * @return the name of the category
+   * @throws NoSuchElementException if there is no such category
+   */
+  public synchronized String getCategoryName(String categoryLoc) {
+    return topLevel.select(categoryLoc);
+  } // getCategoryName
+
+  /**
+   * Returns the image locations of the items in a category, without
+   * changing the current category.
+   *
+   * @param categoryLoc the location of the category's image
+   * @return the item images, in order
+   * @throws NoSuchElementException if there is no such category
+   */
+  public synchronized String[] getImageLocs(String categoryLoc) {
+    return categoryFor(categoryLoc).getImageLocs();
+  } // getImageLocs(String)
+
+  /**
+   * Returns the text of an item in a category, without changing the
+   * current category.
+   *
+   * @param categoryLoc the location of the category's image
+   * @param imageLoc the location of the item's image
+   * @return the text of the item
+   * @throws NoSuchElementException if there is no such category or item
+   */
+  public synchronized String getText(String categoryLoc, String imageLoc) {
+    VocabularyItem item = itemFor(categoryLoc, imageLoc);
+    if (item == null) {
+      categoryFor(categoryLoc);
+      throw new NoSuchElementException("Image not found in this category: " + imageLoc);
+    } // if
+    return item.getText();
+  } // getText
+
+  /**
+   * Finds the items, in any category, whose text or one of whose words
+   * starts with the given prefix, ignoring case. For instance, "fr"
+   * finds both "french fries" and "stir fry", and "french f" finds
+   * "french fries".
+   *
+   * @param prefix what the text or word starts with
+   * @param limit the most items to return
+   * @return the matching items, in alphabetical order of the matched text
+   */
+  public synchronized List<VocabularyItem> search(String prefix, int limit) {
+    return searchIndex.search(prefix.toLowerCase(Locale.ROOT), limit);
+  } // search
+
+  /**
+   * Finds the items, in any category, whose text nearly contains the
+   * query, ignoring case, spaces and punctuation. For instance,
+   * "flipflop" finds "flip flops", "tshirt" finds "T-shirt" and
+   * "sandwitch" finds "sandwich". Longer queries may have more mistakes:
+   * one for up to five letters, two for up to nine, and three after that.
+   *
+   * @param query what to look for (at least three letters or digits)
+   * @param limit the most items to return
+   * @return the matching items, closest first
+   */
+  public synchronized List<VocabularyItem> fuzzySearch(String query, int limit) {
+    int length = FuzzyIndex.normalize(query).length();
+    int maxDistance = (length <= 5) ? 1 : (length <= 9) ? 2 : 3;
+    return fuzzyIndex.search(query, maxDistance, limit);
+  } // fuzzySearch
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Adds (or renames) a category.
+   *
+   * @param imageLoc the location of the category's image
+   * @param name the name of the category
+   * @return the category
+   */
+  private AACCategory addCategory(String imageLoc, String name) {
+    topLevel.addItem(imageLoc, name);
+    AACCategory category = categories.get(imageLoc);
+    if (category != null) {
+      category.categoryName = name;
+      return category;
+    } // if
+    category = new AACCategory(name);
+    category.setMostUsedFirst(mostUsedFirst);
+    categories.put(imageLoc, category);
+    usage.put(imageLoc, category.getUsage());
+    return category;
+  } // addCategory
+
+  /**
+   * Adds (or changes the text of) an item in a category, keeping the
+   * item, text and search indexes up to date.
+   *
+   * @param categoryLoc the location of the category's image
+   * @param category the category
+   * @param imageLoc the location of the item's image
+   * @param text the text of the item
+   */
+  private void addToCategory(String categoryLoc, AACCategory category, String imageLoc,
+      String text) {
+    VocabularyItem old = itemFor(categoryLoc, imageLoc);
+    if (old != null) {
+      for (String key : searchKeys(old.getText())) {
+        searchIndex.remove(key, old);
+      } // for
+      fuzzyIndex.remove(old);
+      List<VocabularyItem> same = textIndex.get(textKey(old.getText()));
+      same.remove(old);
+      if (same.isEmpty()) {
+        textIndex.remove(textKey(old.getText()));
+      } // if
+    } // if
+    category.addItem(imageLoc, text);
+    VocabularyItem item = new VocabularyItem(categoryLoc, imageLoc, text);
+    VocabularyItem[] items = itemIndex.get(imageLoc);
+    if (items == null) {
+      itemCount++;
+      itemIndex.put(imageLoc, new VocabularyItem[] {item});
+    } else if (old != null) {
+      items[Arrays.asList(items).indexOf(old)] = item;
+    } else {
+      itemCount++;
+      items = Arrays.copyOf(items, items.length + 1);
+      items[items.length - 1] = item;
+      itemIndex.put(imageLoc, items);
+    } // if/else
+    fuzzyIndex.add(text, item);
+    textIndex.computeIfAbsent(textKey(text), (key) -> new ArrayList<VocabularyItem>(1)).add(item);
+    try {
+      for (String key : searchKeys(text)) {
+        searchIndex.add(key, item);
+      } // for
+    } catch (NullKeyException e) {
+      // searchKeys never returns null
+    } // try/catch
+  } // addToCategory
+
+  /**
+   * Returns the key of a text in the text index: the text without case
+   * or surrounding space, so that "Water" and "water " count as the same.
+   *
+   * @param text the text
+   * @return the key
+   */
+  private static String textKey(String text) {
+    return text.trim().toLowerCase(Locale.ROOT);
+  } // textKey
+
+  /**
+   * Returns the keys an item's text is found under: the whole text and
+   * the rest of the text from the start of each later word, in lower
+   * case.
+   *
+   * @param text the text of the item
+   * @return the keys
+   */
+  private static String[] searchKeys(String text) {
+    String lower = text.toLowerCase(Locale.ROOT);
+    String[] words = lower.split(" ");
+    String[] keys = new String[words.length];
+    int start = 0;
+    for (int i = 0; i < words.length; i++) {
+      keys[i] = lower.substring(start);
+      start += words[i].length() + 1;
+    } // for
+    return keys;
+  } // searchKeys
+
+  /**
+   * Finds the category with the given image.
+   *
+   * @param categoryLoc the location of the category's image
+   * @return the category
+   * @throws NoSuchElementException if there is no such category
+   */
+  private AACCategory categoryFor(String categoryLoc) {
+    AACCategory category = categories.get(categoryLoc);
+    if (category == null) {
+      throw new NoSuchElementException("No category for image: " + categoryLoc);
+    } // if
+    return category;
+  } // categoryFor
+
+  /**
+   * Finds an item in a category with one hash lookup (and, for an image
+   * used in several categories, a check of each).
+   *
+   * @param categoryLoc the location of the category's image
+   * @param imageLoc the location of the item's image
+   * @return the item, or null if the category does not have the image
+   */
+  private VocabularyItem itemFor(String categoryLoc, String imageLoc) {
+    VocabularyItem[] items = itemIndex.get(imageLoc);
+    if (items != null) {
+      for (VocabularyItem item : items) {
+        if (item.getCategoryLoc().equals(categoryLoc)) {
+          return item;
+        } // if
+      } // for
+    } // if
+    return null;
+  } // itemFor
+
 } // AACMappings
@@ -0,0 +1,319 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts what the AAC does, for monitoring devices with standard JMX
+ * tools (see AACMetricsMBean): loads, saves, selections, icon lookups,
+ * speech and errors.
+ *
+ * Counting is always on. The counters are LongAdders, which spread
+ * updates from different threads over separate cells, so counting costs
+ * a few nanoseconds and never contends; the sums are only added up when
+ * a JMX client reads them. The bean itself is only registered when
+ * register is called (as AAC.main does).
+ *
+ * The counters are static, so there is one set per JVM: every
+ * AACMappings in the process (e.g., each one a test creates) adds to
+ * the same counts, and the counts of items and categories follow
+ * whichever mappings were registered last. An AAC or BoardServer shows
+ * one board, so for them the counts are that board's.
+ *
+ * @author Princess Alexander
+ */
+public class AACMetrics implements AACMetricsMBean {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The name the bean is registered under. */
+  public static final String NAME = "edu.grinnell.csc207.aac:type=Metrics";
+
+  // +----------+----------------------------------------------------
+  // | Counters |
+  // +----------+
+
+  /** The number of loads. */
+  private static final LongAdder loads = new LongAdder();
+
+  /** The time spent loading, in nanoseconds. */
+  private static final LongAdder loadNanos = new LongAdder();
+
+  /** The time the last load took, in nanoseconds. */
+  private static volatile long lastLoadNanos;
+
+  /** The number of selects. */
+  private static final LongAdder selects = new LongAdder();
+
+  /** The number of selects of images not on the page. */
+  private static final LongAdder selectMisses = new LongAdder();
+
+  /** The number of calls to hasImage. */
+  private static final LongAdder hasImages = new LongAdder();
+
+  /** The number of calls to hasImage that returned false. */
+  private static final LongAdder hasImageMisses = new LongAdder();
+
+  /** The number of saves. */
+  private static final LongAdder saves = new LongAdder();
+
+  /** The time spent saving, in nanoseconds. */
+  private static final LongAdder saveNanos = new LongAdder();
+
+  /** The time the last save took, in nanoseconds. */
+  private static volatile long lastSaveNanos;
+
+  /** The bytes saved. */
+  private static final LongAdder saveBytes = new LongAdder();
+
+  /** The size of the last file saved. */
+  private static volatile long lastSaveBytes;
+
+  /** The number of failed file operations. */
+  private static final LongAdder errors = new LongAdder();
+
+  /** The number of icons requested. */
+  private static final LongAdder images = new LongAdder();
+
+  /** The number of icons that did not have to be read from their file. */
+  private static final LongAdder imageHits = new LongAdder();
+
+  /** The number of utterances requested. */
+  private static final LongAdder utterances = new LongAdder();
+
+  /** The number of utterances started but not yet finished. */
+  private static final LongAdder speaking = new LongAdder();
+
+  /** The mappings being shown, for the counts of items and categories. */
+  private static volatile AACMappings mappings;
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Registers the bean with the platform MBean server, if it is not
+   * registered already, and reports the sizes of the given mappings
+   * from now on, in place of any registered before. Failures are
+   * reported but do not stop the AAC.
+   *
+   * @param shown the mappings being shown (or null)
+   */
+  public static void register(AACMappings shown) {
+    mappings = shown;
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(NAME);
+      if (!server.isRegistered(name)) {
+        server.registerMBean(new AACMetrics(), name);
+      } // if
+    } catch (Exception e) {
+      System.err.println("Error: metrics will not be available over JMX - " + e.getMessage());
+    } // try/catch
+  } // register(AACMappings)
+
+  /**
+   * Records a load of a mapping file.
+   *
+   * @param nanos how long it took
+   */
+  public static void recordLoad(long nanos) {
+    loads.increment();
+    loadNanos.add(nanos);
+    lastLoadNanos = nanos;
+  } // recordLoad(long)
+
+  /**
+   * Records a call to select.
+   *
+   * @param found whether the image was on the page
+   */
+  public static void recordSelect(boolean found) {
+    selects.increment();
+    if (!found) {
+      selectMisses.increment();
+    } // if
+  } // recordSelect(boolean)
+
+  /**
+   * Records a call to hasImage.
+   *
+   * @param found what it returned
+   */
+  public static void recordHasImage(boolean found) {
+    hasImages.increment();
+    if (!found) {
+      hasImageMisses.increment();
+    } // if
+  } // recordHasImage(boolean)
+
+  /**
+   * Records a save of a mapping file.
+   *
+   * @param nanos how long it took
+   * @param bytes the size of the file
+   */
+  public static void recordSave(long nanos, long bytes) {
+    saves.increment();
+    saveNanos.add(nanos);
+    lastSaveNanos = nanos;
+    saveBytes.add(bytes);
+    lastSaveBytes = bytes;
+  } // recordSave(long, long)
+
+  /**
+   * Records a failed load, save or other file operation.
+   */
+  public static void recordError() {
+    errors.increment();
+  } // recordError()
+
+  /**
+   * Records a request for an icon.
+   *
+   * @param hit whether it was found without reading its file
+   */
+  public static void recordImage(boolean hit) {
+    images.increment();
+    if (hit) {
+      imageHits.increment();
+    } // if
+  } // recordImage(boolean)
+
+  /**
+   * Records that an utterance has started. Every call must be followed
+   * by a call to speechDone.
+   */
+  public static void speechStarted() {
+    utterances.increment();
+    speaking.increment();
+  } // speechStarted()
+
+  /**
+   * Records that a requested utterance has finished (or failed).
+   */
+  public static void speechDone() {
+    speaking.decrement();
+  } // speechDone()
+
+  // +--------------+------------------------------------------------
+  // | Bean Methods |
+  // +--------------+
+
+  @Override
+  public long getLoadCount() {
+    return loads.sum();
+  } // getLoadCount()
+
+  @Override
+  public double getLastLoadMillis() {
+    return lastLoadNanos / 1e6;
+  } // getLastLoadMillis()
+
+  @Override
+  public double getTotalLoadMillis() {
+    return loadNanos.sum() / 1e6;
+  } // getTotalLoadMillis()
+
+  @Override
+  public int getCategoryCount() {
+    AACMappings shown = mappings;
+    return (shown == null) ? 0 : shown.getCategoryCount();
+  } // getCategoryCount()
+
+  @Override
+  public int getItemCount() {
+    AACMappings shown = mappings;
+    return (shown == null) ? 0 : shown.getItemCount();
+  } // getItemCount()
+
+  @Override
+  public long getSelectCount() {
+    return selects.sum();
+  } // getSelectCount()
+
+  @Override
+  public long getSelectMisses() {
+    return selectMisses.sum();
+  } // getSelectMisses()
+
+  @Override
+  public long getHasImageCount() {
+    return hasImages.sum();
+  } // getHasImageCount()
+
+  @Override
+  public long getHasImageMisses() {
+    return hasImageMisses.sum();
+  } // getHasImageMisses()
+
+  @Override
+  public long getSaveCount() {
+    return saves.sum();
+  } // getSaveCount()
+
+  @Override
+  public double getLastSaveMillis() {
+    return lastSaveNanos / 1e6;
+  } // getLastSaveMillis()
+
+  @Override
+  public double getTotalSaveMillis() {
+    return saveNanos.sum() / 1e6;
+  } // getTotalSaveMillis()
+
+  @Override
+  public long getLastSaveBytes() {
+    return lastSaveBytes;
+  } // getLastSaveBytes()
+
+  @Override
+  public long getTotalSaveBytes() {
+    return saveBytes.sum();
+  } // getTotalSaveBytes()
+
+  @Override
+  public long getErrorCount() {
+    return errors.sum();
+  } // getErrorCount()
+
+  @Override
+  public long getImageRequests() {
+    return images.sum();
+  } // getImageRequests()
+
+  @Override
+  public long getImageCacheHits() {
+    return imageHits.sum();
+  } // getImageCacheHits()
+
+  @Override
+  public double getImageCacheHitRate() {
+    long requests = images.sum();
+    return (requests == 0) ? 0 : (double) imageHits.sum() / requests;
+  } // getImageCacheHitRate()
+
+  @Override
+  public long getUtteranceCount() {
+    return utterances.sum();
+  } // getUtteranceCount()
+
+  @Override
+  public boolean isSpeaking() {
+    return speaking.sum() > 0;
+  } // isSpeaking()
+
+  @Override
+  public void reset() {
+    for (LongAdder counter : new LongAdder[] {loads, loadNanos, selects, selectMisses,
+        hasImages, hasImageMisses, saves, saveNanos, saveBytes, errors, images, imageHits,
+        utterances}) {
+      counter.reset();
+    } // for
+    lastLoadNanos = 0;
+    lastSaveNanos = 0;
+    lastSaveBytes = 0;
+  } // reset()
+} // class AACMetrics
@@ -0,0 +1,96 @@
+/**
+ * What the AAC reports over JMX (see AACMetrics), e.g., to jconsole or
+ * any other JMX client, under the name
+ * edu.grinnell.csc207.aac:type=Metrics. Times are in milliseconds and
+ * sizes in bytes. The counts cover every AACMappings in the JVM.
+ *
+ * @author Princess Alexander
+ */
+public interface AACMetricsMBean {
+
+  // +---------+-----------------------------------------------------
+  // | Loading |
+  // +---------+
+
+  /** @return how many mapping files have been loaded */
+  long getLoadCount();
+
+  /** @return how long the last mapping file took to load */
+  double getLastLoadMillis();
+
+  /** @return how long all the mapping files took to load */
+  double getTotalLoadMillis();
+
+  /** @return the number of categories in the mappings being shown */
+  int getCategoryCount();
+
+  /** @return the number of items in the mappings being shown */
+  int getItemCount();
+
+  // +-----------+---------------------------------------------------
+  // | Selection |
+  // +-----------+
+
+  /** @return how many times select has been called */
+  long getSelectCount();
+
+  /** @return how many selects were of an image not on the page */
+  long getSelectMisses();
+
+  /** @return how many times hasImage has been called */
+  long getHasImageCount();
+
+  /** @return how many times hasImage returned false */
+  long getHasImageMisses();
+
+  // +--------+------------------------------------------------------
+  // | Saving |
+  // +--------+
+
+  /** @return how many mapping files have been saved */
+  long getSaveCount();
+
+  /** @return how long the last save took */
+  double getLastSaveMillis();
+
+  /** @return how long all the saves took */
+  double getTotalSaveMillis();
+
+  /** @return the size of the last file saved */
+  long getLastSaveBytes();
+
+  /** @return the size of all the files saved */
+  long getTotalSaveBytes();
+
+  /** @return how many loads, saves and other file operations failed */
+  long getErrorCount();
+
+  // +-----------------+---------------------------------------------
+  // | Images & Speech |
+  // +-----------------+
+
+  /** @return how many icons have been requested */
+  long getImageRequests();
+
+  /** @return how many icons were already decoded or packed in an atlas */
+  long getImageCacheHits();
+
+  /** @return the fraction of icon requests that were hits (0 if none) */
+  double getImageCacheHitRate();
+
+  /** @return how many utterances have been requested */
+  long getUtteranceCount();
+
+  /**
+   * @return whether an utterance is being spoken (the AAC speaks one
+   *   at a time, on the event thread, so none ever wait)
+   */
+  boolean isSpeaking();
+
+  // +------------+--------------------------------------------------
+  // | Operations |
+  // +------------+
+
+  /** Sets every counter back to zero (the counts of items and categories remain). */
+  void reset();
+} // interface AACMetricsMBean
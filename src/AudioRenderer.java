@@ -0,0 +1,250 @@
+import java.io.ByteArrayOutputStream;
+
+import javax.sound.sampled.AudioFormat;
+
+import com.sun.speech.freetts.Voice;
+import com.sun.speech.freetts.VoiceManager;
+import com.sun.speech.freetts.audio.AudioPlayer;
+
+/**
+ * Turns text into PCM audio with a FreeTTS voice, without playing it.
+ * The voice writes its samples into memory instead of to an audio line,
+ * so the result can be cached, saved or played later.
+ *
+ * A renderer owns its own voice. FreeTTS voices are not safe to share
+ * between threads, so render is synchronized; use one renderer per
+ * thread for parallel work.
+ *
+ * @author Princess Alexander
+ */
+public class AudioRenderer {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The voice used when none is named. */
+  public static final String DEFAULT_VOICE = "kevin16";
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The voice that does the synthesis. */
+  private final Voice voice;
+
+  /** Collects what the voice produces. */
+  private final CapturePlayer capture = new CapturePlayer();
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Loads the named voice.
+   *
+   * @param voiceName the FreeTTS voice to use (e.g., kevin16)
+   * @param rate the speaking rate in words per minute, or 0 for the
+   *             voice's default
+   * @throws IllegalStateException if the voice is not available
+   */
+  public AudioRenderer(String voiceName, float rate) {
+    this.voice = loadVoice(voiceName, rate);
+    this.voice.setAudioPlayer(this.capture);
+  } // AudioRenderer(String, float)
+
+  /**
+   * Creates a renderer with no voice, for subclasses that make their
+   * audio some other way (e.g., in tests, where there may be no voices).
+   * Subclasses must override every public method.
+   */
+  AudioRenderer() {
+    this.voice = null;
+  } // AudioRenderer()
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Returns the name of the voice.
+   *
+   * @return the voice name
+   */
+  public String getVoiceName() {
+    return this.voice.getName();
+  } // getVoiceName
+
+  /**
+   * Returns the speaking rate.
+   *
+   * @return the rate in words per minute
+   */
+  public float getRate() {
+    return this.voice.getRate();
+  } // getRate
+
+  /**
+   * Synthesizes text into audio.
+   *
+   * @param text the text to speak
+   * @return the audio for the text
+   */
+  public synchronized SpeechAudio render(String text) {
+    this.capture.reset();
+    this.voice.speak(text);
+    return new SpeechAudio(this.capture.getAudioFormat(), this.capture.toByteArray());
+  } // render
+
+  /**
+   * Releases the voice.
+   */
+  public synchronized void close() {
+    this.voice.deallocate();
+  } // close
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Loads and allocates a FreeTTS voice.
+   *
+   * @param voiceName the FreeTTS voice to use (e.g., kevin16)
+   * @param rate the speaking rate in words per minute, or 0 for the
+   *             voice's default
+   * @return the allocated voice
+   * @throws IllegalStateException if the voice is not available
+   */
+  static Voice loadVoice(String voiceName, float rate) {
+    if (System.getProperty("freetts.voices") == null) {
+      System.setProperty("freetts.voices", "com.sun.speech.freetts.en.us" + ".cmu_us_kal.KevinVoiceDirectory");
+    } // if
+    Voice voice;
+    try {
+      voice = VoiceManager.getInstance().getVoice(voiceName);
+    } catch (Error e) {
+      // FreeTTS signals a missing voice directory with an Error
+      throw new IllegalStateException("Voices unavailable: " + e.getMessage(), e);
+    } // try/catch
+    if (voice == null) {
+      throw new IllegalStateException("No such voice: " + voiceName);
+    } // if
+    voice.allocate();
+    if (rate > 0) {
+      voice.setRate(rate);
+    } // if
+    return voice;
+  } // loadVoice
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * An AudioPlayer that keeps everything written to it in memory.
+   * Subclasses can override write(byte[], int, int) to send the audio
+   * elsewhere as it is produced.
+   */
+  static class CapturePlayer implements AudioPlayer {
+    /** The format FreeTTS says it is writing. */
+    private AudioFormat format = new AudioFormat(16000f, 16, 1, true, true);
+
+    /** The samples written so far. */
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    /** The volume FreeTTS asked for (ignored; we keep the raw samples). */
+    private float volume = 1.0f;
+
+    /** When the current utterance started, for getTime. */
+    private long start = System.currentTimeMillis();
+
+    byte[] toByteArray() {
+      return this.out.toByteArray();
+    } // toByteArray
+
+    @Override
+    public void setAudioFormat(AudioFormat format) {
+      this.format = format;
+    } // setAudioFormat
+
+    @Override
+    public AudioFormat getAudioFormat() {
+      return this.format;
+    } // getAudioFormat
+
+    @Override
+    public void pause() {
+    } // pause
+
+    @Override
+    public void resume() {
+    } // resume
+
+    @Override
+    public void reset() {
+      this.out.reset();
+    } // reset
+
+    @Override
+    public boolean drain() {
+      return true;
+    } // drain
+
+    @Override
+    public void begin(int size) {
+    } // begin
+
+    @Override
+    public boolean end() {
+      return true;
+    } // end
+
+    @Override
+    public void cancel() {
+    } // cancel
+
+    @Override
+    public void close() {
+    } // close
+
+    @Override
+    public float getVolume() {
+      return this.volume;
+    } // getVolume
+
+    @Override
+    public void setVolume(float volume) {
+      this.volume = volume;
+    } // setVolume
+
+    @Override
+    public long getTime() {
+      return System.currentTimeMillis() - this.start;
+    } // getTime
+
+    @Override
+    public void resetTime() {
+      this.start = System.currentTimeMillis();
+    } // resetTime
+
+    @Override
+    public void startFirstSampleTimer() {
+    } // startFirstSampleTimer
+
+    @Override
+    public boolean write(byte[] audioData) {
+      return write(audioData, 0, audioData.length);
+    } // write(byte[])
+
+    @Override
+    public boolean write(byte[] audioData, int offset, int size) {
+      this.out.write(audioData, offset, size);
+      return true;
+    } // write(byte[], int, int)
+
+    @Override
+    public void showMetrics() {
+    } // showMetrics
+  } // class CapturePlayer
+} // class AudioRenderer
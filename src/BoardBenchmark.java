@@ -0,0 +1,136 @@
+import java.awt.image.BufferedImage;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Measures how long it takes to build, lay out and paint the AAC board
+ * without a display, so that UI regressions can be caught in CI. Boards
+ * are rendered offscreen (see AAC's headless mode) for a range of grid
+ * sizes and category sizes, and the per-frame times are reported as a
+ * table.
+ *
+ * Usage: java -Djava.awt.headless=true BoardBenchmark [frames]
+ *
+ * @author Princess Alexander
+ */
+public class BoardBenchmark {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The grid sizes (across and down) to try. */
+  static final int[] GRID_SIZES = {3, 4, 6, 8};
+
+  /** The category sizes to try. */
+  static final int[] CATEGORY_SIZES = {9, 100, 1000};
+
+  /** The size of the rendered board. */
+  static final int WIDTH = 500;
+
+  /** The size of the rendered board. */
+  static final int HEIGHT = 500;
+
+  /** Images to cycle through when making up categories. */
+  static final String[] IMAGES = {
+    "img/food/icons8-apple-96.png",
+    "img/food/icons8-cookies-96.png",
+    "img/food/icons8-french-fries-96.png",
+    "img/food/icons8-hamburger-96.png",
+    "img/food/icons8-pizza-96.png",
+    "img/food/icons8-strawberry-96.png",
+    "img/food/icons8-watermelon-96.png",
+    "img/clothing/cap.png",
+    "img/clothing/sweater.png",
+  };
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Makes up a category with the given number of items. Every item has
+   * its own image location (so nothing is shared between cells), but
+   * the locations refer to real images.
+   *
+   * @param size the number of items
+   * @return the category
+   */
+  static AACCategory makeCategory(int size) {
+    AACCategory category = new AACCategory("bench" + size);
+    for (int i = 0; i < size; i++) {
+      // "./" segments keep each location distinct but still readable
+      String imageLoc = "./".repeat(i / IMAGES.length) + IMAGES[i % IMAGES.length];
+      category.addItem(imageLoc, "item " + i);
+    } // for
+    return category;
+  } // makeCategory(int)
+
+  /**
+   * Returns the median of some times, in milliseconds.
+   */
+  static double median(long[] nanos) {
+    long[] sorted = nanos.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2] / 1e6;
+  } // median(long[])
+
+  /**
+   * Returns the largest of some times, in milliseconds.
+   */
+  static double max(long[] nanos) {
+    return Arrays.stream(nanos).max().orElse(0) / 1e6;
+  } // max(long[])
+
+  // +------+--------------------------------------------------------
+  // | Main |
+  // +------+
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args
+   *   The number of frames to time for each configuration (default 50).
+   */
+  public static void main(String[] args) {
+    System.setProperty("java.awt.headless", "true");
+    int frames = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+    PrintWriter pen = new PrintWriter(System.out, true);
+    BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+
+    pen.printf("%-6s %-6s %-7s %10s %10s %10s %10s %10s%n", "grid", "items", "mode",
+        "build p50", "layout p50", "paint p50", "total p50", "total max");
+    for (int grid : GRID_SIZES) {
+      for (int size : CATEGORY_SIZES) {
+        for (boolean scroll : new boolean[] {false, true}) {
+          AAC board = new AAC(makeCategory(size), grid, grid, scroll, true);
+          int pages = Math.max(1, (size + grid * grid - 1) / (grid * grid));
+          long[] build = new long[frames];
+          long[] layout = new long[frames];
+          long[] paint = new long[frames];
+          long[] total = new long[frames];
+          // The first pass is warm-up and is not recorded.
+          for (int pass = 0; pass < 2; pass++) {
+            for (int f = 0; f < frames; f++) {
+              long start = System.nanoTime();
+              board.showPage(f % pages);
+              long built = System.nanoTime();
+              board.layoutBoard(WIDTH, HEIGHT);
+              long laidOut = System.nanoTime();
+              board.paintBoard(image);
+              long painted = System.nanoTime();
+              build[f] = built - start;
+              layout[f] = laidOut - built;
+              paint[f] = painted - laidOut;
+              total[f] = painted - start;
+            } // for
+          } // for
+          pen.printf("%-6s %-6d %-7s %10.3f %10.3f %10.3f %10.3f %10.3f%n", grid + "x" + grid,
+              size, scroll ? "scroll" : "paged", median(build), median(layout), median(paint),
+              median(total), max(total));
+        } // for
+      } // for
+    } // for
+    pen.close();
+  } // main(String[])
+} // class BoardBenchmark
@@ -0,0 +1,649 @@
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLConnection;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+
+/**
+ * Serves a board to many tablets at once over HTTP, so one box can
+ * stand in for a copy of AAC on every device. Each tablet keeps track
+ * of its own category; the server only uses the AACMappings methods
+ * that name a category, so sessions never move each other's page and
+ * the server keeps nothing per session.
+ *
+ * The endpoints are:
+ *
+ * GET /categories: the image and name of every category.
+ * GET /page?category=C&offset=O&limit=L: a slice of a category's items.
+ * POST /select?category=C&image=I: select an item, returning its text.
+ * POST /items?category=C&image=I: add (or change) an item; the body is
+ *   its text.
+ * GET /images/I: an image, from its atlas (see ImageAtlas) if there is
+ *   one and otherwise from its file.
+ *
+ * An added item's image must be a relative path, inside the working
+ * directory, to a file whose extension names an image type, with no
+ * whitespace, since the mappings file splits each line at its first
+ * space. Control characters in its text become spaces. Only images on
+ * the board whose bytes decode as an image are served, so the server
+ * cannot be made to hand out other files.
+ *
+ * Boards and pages are JSON. Every GET response has a strong ETag (a
+ * hash of the body), and a request whose If-None-Match matches gets
+ * 304 Not Modified with no body, so tablets only download a page or an
+ * image again when it has changed. Images are read once and kept.
+ *
+ * Requests run on a virtual thread each when the JDK has them (21 and
+ * later) and on a small pool otherwise. Requests are short and do not
+ * block, so the pool does not limit the number of sessions: idle
+ * connections wait in the server's selector, not on a thread.
+ *
+ * Usage: java BoardServer [mappings file] [--host H] [--port P] [--save F]
+ *
+ * The server listens on 127.0.0.1 unless told otherwise. Anyone who can
+ * reach it can add items, so only use --host 0.0.0.0 on a trusted
+ * network.
+ *
+ * @author Princess Alexander
+ */
+public class BoardServer {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The default port. */
+  static final int DEFAULT_PORT = 8207;
+
+  /** The most items returned in one page slice. */
+  static final int MAX_LIMIT = 1000;
+
+  /** How long tablets may use an image before checking it, in seconds. */
+  static final int IMAGE_MAX_AGE = 24 * 60 * 60;
+
+  /** How many connections may wait to be accepted. */
+  static final int BACKLOG = 1024;
+
+  /** How many idle connections the server keeps open (the JDK's default is 200). */
+  static final String MAX_IDLE_CONNECTIONS = "10000";
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The board being served. */
+  private final AACMappings mappings;
+
+  /** The HTTP server. */
+  private final HttpServer server;
+
+  /** Runs the requests. */
+  private final ExecutorService executor;
+
+  /** The images read so far, by location. */
+  private final Map<String, Resource> images = new ConcurrentHashMap<String, Resource>();
+
+  /** The atlases opened so far (empty if there is none), by file. */
+  private final Map<Path, Optional<ImageAtlas>> atlases =
+      new ConcurrentHashMap<Path, Optional<ImageAtlas>>();
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Creates a server for a board. The server does not accept requests
+   * until it is started.
+   *
+   * @param mappings the board
+   * @param address where to listen (port 0 picks a free port)
+   * @throws IOException if the server cannot listen there
+   */
+  public BoardServer(AACMappings mappings, InetSocketAddress address) throws IOException {
+    if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+      System.setProperty("sun.net.httpserver.maxIdleConnections", MAX_IDLE_CONNECTIONS);
+    } // if
+    this.mappings = mappings;
+    this.server = HttpServer.create(address, BACKLOG);
+    this.executor = requestExecutor();
+    this.server.setExecutor(this.executor);
+    this.server.createContext("/categories", (exchange) -> handle(exchange, "GET", this::categories));
+    this.server.createContext("/page", (exchange) -> handle(exchange, "GET", this::page));
+    this.server.createContext("/select", (exchange) -> handle(exchange, "POST", this::select));
+    this.server.createContext("/items", (exchange) -> handle(exchange, "POST", this::addItem));
+    this.server.createContext("/images/", (exchange) -> handle(exchange, "GET", this::image));
+  } // BoardServer(AACMappings, InetSocketAddress)
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Starts accepting requests.
+   */
+  public void start() {
+    this.server.start();
+  } // start()
+
+  /**
+   * Stops accepting requests, lets the ones running finish (for up to a
+   * second), and closes the connections.
+   */
+  public void stop() {
+    this.server.stop(1);
+    this.executor.shutdown();
+    try {
+      this.executor.awaitTermination(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } // try/catch
+  } // stop()
+
+  /**
+   * Returns the port the server listens on.
+   *
+   * @return the port
+   */
+  public int getPort() {
+    return this.server.getAddress().getPort();
+  } // getPort()
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Makes the executor for requests: a virtual thread per request if
+   * the JDK has them (found by reflection, so this still compiles and
+   * runs on 17), and otherwise a pool with a few threads per processor.
+   *
+   * @return the executor
+   */
+  public static ExecutorService requestExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newFixedThreadPool(Math.max(8, 4 * Runtime.getRuntime().availableProcessors()));
+    } // try/catch
+  } // requestExecutor()
+
+  /**
+   * Quotes a string for JSON.
+   *
+   * @param str the string
+   * @return the string in double quotes, with quotes, backslashes and
+   *   control characters escaped
+   */
+  static String quote(String str) {
+    StringBuilder sb = new StringBuilder(str.length() + 2).append('"');
+    for (int i = 0; i < str.length(); i++) {
+      char ch = str.charAt(i);
+      if (ch == '"' || ch == '\\') {
+        sb.append('\\').append(ch);
+      } else if (ch < 0x20) {
+        sb.append(String.format("\\u%04x", (int) ch));
+      } else {
+        sb.append(ch);
+      } // if/else
+    } // for
+    return sb.append('"').toString();
+  } // quote(String)
+
+  /**
+   * Makes a strong ETag from a hash of a body.
+   *
+   * @param body the body
+   * @return the ETag, in double quotes
+   */
+  static String etag(byte[] body) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+      return '"' + HexFormat.of().formatHex(digest, 0, 12) + '"';
+    } catch (NoSuchAlgorithmException e) {
+      // Every JDK has SHA-256.
+      throw new IllegalStateException(e);
+    } // try/catch
+  } // etag(byte[])
+
+  /**
+   * Determines if an image location is safe to read: a relative path
+   * that stays below the directory the server runs in, has no spaces or
+   * control characters (the mappings file could not hold them), and
+   * names an image file (so that, e.g., AACMappings.txt or .git/config
+   * cannot be added to the board and then fetched).
+   *
+   * @param imageLoc the location of the image
+   * @return true if it is safe, false otherwise
+   */
+  static boolean isSafe(String imageLoc) {
+    if (imageLoc.isEmpty()) {
+      return false;
+    } // if
+    for (int i = 0; i < imageLoc.length(); i++) {
+      if (Character.isWhitespace(imageLoc.charAt(i)) || Character.isISOControl(imageLoc.charAt(i))) {
+        return false;
+      } // if
+    } // for
+    String type = URLConnection.guessContentTypeFromName(imageLoc);
+    if (type == null || !type.startsWith("image/")) {
+      return false;
+    } // if
+    try {
+      Path path = Paths.get(imageLoc).normalize();
+      return !path.isAbsolute() && !path.startsWith("..");
+    } catch (RuntimeException e) {
+      return false;
+    } // try/catch
+  } // isSafe(String)
+
+  /**
+   * Determines if bytes decode as an image.
+   *
+   * @param bytes the bytes
+   * @return true if they are an image, false otherwise
+   */
+  static boolean isImage(byte[] bytes) {
+    try {
+      return ImageIO.read(new ByteArrayInputStream(bytes)) != null;
+    } catch (IOException e) {
+      return false;
+    } // try/catch
+  } // isImage(byte[])
+
+  /**
+   * Cleans up the text of an item so that it fits on one line of the
+   * mappings file: every run of control characters (e.g., newlines and
+   * tabs) becomes a single space.
+   *
+   * @param text the text
+   * @return the text on one line, trimmed
+   */
+  static String oneLine(String text) {
+    return text.replaceAll("[\\p{Cntrl}]+", " ").trim();
+  } // oneLine(String)
+
+  // +-----------+---------------------------------------------------
+  // | Endpoints |
+  // +-----------+
+
+  /**
+   * Lists the categories.
+   */
+  private Resource categories(HttpExchange exchange, Map<String, String> params) {
+    StringBuilder json = new StringBuilder("{\"categories\":[");
+    // Hold the lock across the calls, so the names match the images.
+    synchronized (this.mappings) {
+      String[] categoryLocs = this.mappings.getCategoryImageLocs();
+      for (int i = 0; i < categoryLocs.length; i++) {
+        json.append((i == 0) ? "" : ",").append("{\"image\":").append(quote(categoryLocs[i]))
+            .append(",\"name\":").append(quote(this.mappings.getCategoryName(categoryLocs[i])))
+            .append('}');
+      } // for
+    } // synchronized
+    return Resource.json(json.append("]}"));
+  } // categories
+
+  /**
+   * Returns a slice of a category's items.
+   */
+  private Resource page(HttpExchange exchange, Map<String, String> params) {
+    String categoryLoc = required(params, "category");
+    int offset = number(params, "offset", 0);
+    int limit = Math.min(number(params, "limit", MAX_LIMIT), MAX_LIMIT);
+    StringBuilder json = new StringBuilder("{\"category\":").append(quote(categoryLoc));
+    synchronized (this.mappings) {
+      String[] imageLocs = this.mappings.getImageLocs(categoryLoc);
+      int end = (int) Math.min(imageLocs.length, (long) offset + limit);
+      json.append(",\"name\":").append(quote(this.mappings.getCategoryName(categoryLoc)))
+          .append(",\"total\":").append(imageLocs.length)
+          .append(",\"offset\":").append(offset)
+          .append(",\"items\":[");
+      for (int i = offset; i < end; i++) {
+        json.append((i == offset) ? "" : ",").append("{\"image\":").append(quote(imageLocs[i]))
+            .append(",\"text\":").append(quote(this.mappings.getText(categoryLoc, imageLocs[i])))
+            .append('}');
+      } // for
+    } // synchronized
+    return Resource.json(json.append("]}"));
+  } // page
+
+  /**
+   * Selects an item.
+   */
+  private Resource select(HttpExchange exchange, Map<String, String> params) {
+    String text = this.mappings.selectItem(required(params, "category"), required(params, "image"));
+    return Resource.json(new StringBuilder("{\"text\":").append(quote(text)).append('}'));
+  } // select
+
+  /**
+   * Adds an item.
+   */
+  private Resource addItem(HttpExchange exchange, Map<String, String> params) throws IOException {
+    String imageLoc = required(params, "image");
+    if (!isSafe(imageLoc)) {
+      throw new IllegalArgumentException("Bad image location: " + imageLoc);
+    } // if
+    String text;
+    try (InputStream in = exchange.getRequestBody()) {
+      text = oneLine(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    } // try
+    this.mappings.addItem(required(params, "category"), imageLoc, text);
+    return Resource.json(new StringBuilder("{\"image\":").append(quote(imageLoc))
+        .append(",\"text\":").append(quote(text)).append('}'));
+  } // addItem
+
+  /**
+   * Returns an image. Only images on the board are served.
+   */
+  private Resource image(HttpExchange exchange, Map<String, String> params) throws IOException {
+    String imageLoc = exchange.getRequestURI().getPath().substring("/images/".length());
+    if (!isSafe(imageLoc)
+        || (this.mappings.locate(imageLoc).isEmpty() && !isCategory(imageLoc))) {
+      throw new NoSuchElementException("No such image: " + imageLoc);
+    } // if
+    Resource image = this.images.get(imageLoc);
+    if (image == null) {
+      Optional<ImageAtlas> atlas = this.atlases.computeIfAbsent(ImageAtlas.atlasFor(imageLoc),
+          (file) -> {
+            try {
+              return Files.isRegularFile(file) ? Optional.of(new ImageAtlas(file))
+                  : Optional.empty();
+            } catch (IOException e) {
+              System.err.println("Error: could not open atlas " + file + " - " + e.getMessage());
+              return Optional.empty();
+            } // try/catch
+          });
+      byte[] bytes = atlas.map((a) -> a.getBytes(imageLoc)).orElse(null);
+      if (bytes == null) {
+        Path file = Paths.get(imageLoc);
+        if (!Files.isRegularFile(file)) {
+          throw new NoSuchElementException("No such image: " + imageLoc);
+        } // if
+        bytes = Files.readAllBytes(file);
+      } // if
+      if (!isImage(bytes)) {
+        throw new NoSuchElementException("Not an image: " + imageLoc);
+      } // if
+      String type = URLConnection.guessContentTypeFromName(imageLoc);
+      image = new Resource(bytes, (type == null) ? "application/octet-stream" : type,
+          "max-age=" + IMAGE_MAX_AGE);
+      this.images.put(imageLoc, image);
+    } // if
+    return image;
+  } // image
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Something that can handle a request.
+   */
+  interface Endpoint {
+    /**
+     * Handles a request.
+     *
+     * @param exchange the request
+     * @param params the query parameters
+     * @return the response
+     * @throws IOException if the request cannot be read
+     */
+    Resource handle(HttpExchange exchange, Map<String, String> params) throws IOException;
+  } // interface Endpoint
+
+  /**
+   * Runs an endpoint and sends its response (or an error, or 304 Not
+   * Modified when the tablet already has it).
+   */
+  private void handle(HttpExchange exchange, String method, Endpoint endpoint) throws IOException {
+    try (exchange) {
+      String requested = exchange.getRequestMethod();
+      boolean head = requested.equals("HEAD") && method.equals("GET");
+      if (!requested.equals(method) && !head) {
+        exchange.getResponseHeaders().set("Allow", method.equals("GET") ? "GET, HEAD" : method);
+        send(exchange, 405, Resource.text("Method not allowed"), false);
+        return;
+      } // if
+      Resource response;
+      try {
+        response = endpoint.handle(exchange, params(exchange));
+      } catch (NoSuchElementException e) {
+        send(exchange, 404, Resource.text(e.getMessage()), head);
+        return;
+      } catch (IllegalArgumentException e) {
+        send(exchange, 400, Resource.text(e.getMessage()), head);
+        return;
+      } catch (RuntimeException e) {
+        System.err.println("Error: " + exchange.getRequestURI() + " - " + e);
+        send(exchange, 500, Resource.text("Internal error"), head);
+        return;
+      } // try/catch
+      Headers headers = exchange.getResponseHeaders();
+      if (method.equals("GET")) {
+        headers.set("ETag", response.etag);
+        headers.set("Cache-Control", response.cacheControl);
+        if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), response.etag)) {
+          drain(exchange);
+          exchange.sendResponseHeaders(304, -1);
+          return;
+        } // if
+      } // if
+      send(exchange, 200, response, head);
+    } // try
+  } // handle(HttpExchange, String, Endpoint)
+
+  /**
+   * Sends a response.
+   */
+  private static void send(HttpExchange exchange, int status, Resource response, boolean head)
+      throws IOException {
+    drain(exchange);
+    exchange.getResponseHeaders().set("Content-Type", response.type);
+    if (head) {
+      exchange.getResponseHeaders().set("Content-Length", Integer.toString(response.body.length));
+      exchange.sendResponseHeaders(status, -1);
+      return;
+    } // if
+    exchange.sendResponseHeaders(status, response.body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(response.body);
+    } // try
+  } // send(HttpExchange, int, Resource, boolean)
+
+  /**
+   * Reads the rest of the request body. The server keeps a connection
+   * open only if the request was read to the end by the time the
+   * response finishes, which for a 304 is as soon as its headers go
+   * out; otherwise it closes it under a tablet that may already be
+   * sending its next request there.
+   */
+  private static void drain(HttpExchange exchange) throws IOException {
+    exchange.getRequestBody().close();
+  } // drain(HttpExchange)
+
+  /**
+   * Determines if an If-None-Match header matches an ETag.
+   */
+  static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    } // if
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+        return true;
+      } // if
+    } // for
+    return false;
+  } // matches(String, String)
+
+  /**
+   * Reads the query parameters of a request.
+   */
+  private static Map<String, String> params(HttpExchange exchange) {
+    Map<String, String> params = new HashMap<String, String>();
+    String query = exchange.getRequestURI().getRawQuery();
+    if (query != null) {
+      for (String pair : query.split("&")) {
+        int eq = pair.indexOf('=');
+        if (eq > 0) {
+          params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+              URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        } // if
+      } // for
+    } // if
+    return params;
+  } // params(HttpExchange)
+
+  /**
+   * Gets a parameter that must be there.
+   */
+  private static String required(Map<String, String> params, String name) {
+    String value = params.get(name);
+    if (value == null) {
+      throw new IllegalArgumentException("Missing parameter: " + name);
+    } // if
+    return value;
+  } // required(Map, String)
+
+  /**
+   * Gets a non-negative number parameter.
+   */
+  private static int number(Map<String, String> params, String name, int otherwise) {
+    String value = params.get(name);
+    if (value == null) {
+      return otherwise;
+    } // if
+    int number = Integer.parseInt(value);
+    if (number < 0) {
+      throw new IllegalArgumentException("Negative " + name + ": " + number);
+    } // if
+    return number;
+  } // number(Map, String, int)
+
+  /**
+   * Determines if an image is a category's image.
+   */
+  private boolean isCategory(String imageLoc) {
+    try {
+      this.mappings.getCategoryName(imageLoc);
+      return true;
+    } catch (NoSuchElementException e) {
+      return false;
+    } // try/catch
+  } // isCategory(String)
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * A response body, with its type, ETag and caching rule.
+   */
+  static class Resource {
+    /** The body. */
+    final byte[] body;
+
+    /** The content type. */
+    final String type;
+
+    /** The ETag of the body. */
+    final String etag;
+
+    /** The Cache-Control header. */
+    final String cacheControl;
+
+    /**
+     * Creates a resource.
+     */
+    Resource(byte[] body, String type, String cacheControl) {
+      this.body = body;
+      this.type = type;
+      this.etag = etag(body);
+      this.cacheControl = cacheControl;
+    } // Resource(byte[], String, String)
+
+    /**
+     * Creates a JSON resource that tablets must check before reusing.
+     */
+    static Resource json(CharSequence json) {
+      return new Resource(json.toString().getBytes(StandardCharsets.UTF_8),
+          "application/json; charset=utf-8", "no-cache");
+    } // json(CharSequence)
+
+    /**
+     * Creates a plain text resource (for errors).
+     */
+    static Resource text(String text) {
+      return new Resource(String.valueOf(text).getBytes(StandardCharsets.UTF_8),
+          "text/plain; charset=utf-8", "no-store");
+    } // text(String)
+  } // class Resource
+
+  // +------+--------------------------------------------------------
+  // | Main |
+  // +------+
+
+  /**
+   * Serves a board until the process is stopped.
+   *
+   * @param args the options described above
+   * @throws IOException if the server cannot start
+   */
+  public static void main(String[] args) throws IOException {
+    String filename = "AACMappings.txt";
+    String host = "127.0.0.1";
+    int port = DEFAULT_PORT;
+    String save = null;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--host":
+          host = args[++i];
+          break;
+        case "--port":
+          port = Integer.parseInt(args[++i]);
+          break;
+        case "--save":
+          save = args[++i];
+          break;
+        default:
+          filename = args[i];
+      } // switch
+    } // for
+
+    AACMappings mappings = new AACMappings(filename);
+    AACMetrics.register(mappings);
+    BoardServer server = new BoardServer(mappings, new InetSocketAddress(host, port));
+    String saveTo = save;
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      server.stop();
+      if (saveTo != null) {
+        mappings.writeToFile(saveTo);
+      } // if
+    }));
+    server.start();
+    System.err.println("Serving " + filename + " on http://" + host + ":" + server.getPort() + "/");
+  } // main(String[])
+} // class BoardServer
@@ -0,0 +1,504 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+/**
+ * Keeps a board for each user (tenant) of a server without keeping a
+ * copy of the whole vocabulary for each. Every board starts as a shared,
+ * read-only base vocabulary. When a user changes a category, that
+ * category alone is copied into the user's overlay and changed there
+ * (copy on write); reads look in the overlay first and then in the base.
+ * So a user who has changed nothing costs a few hundred bytes, and a
+ * user who has changed one category costs about that category.
+ *
+ * The overlays of users who have not been seen for a while are written
+ * to disk and dropped when the overlays in memory grow past a limit
+ * (least recently used first), and read back when the user returns.
+ * Each user's file is in the mappings file format (see AACMappings) and
+ * holds only the categories they changed or added.
+ *
+ * Like AACMappings, the methods are synchronized and name everything
+ * they use (the user, the category and the item), so the store may be
+ * shared by a server's request threads.
+ *
+ * @author Princess Alexander
+ */
+public class BoardStore {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** About how much memory a user with no changes takes. */
+  static final long TENANT_BYTES = 256;
+
+  /** About how much memory a category takes, apart from its items. */
+  static final long CATEGORY_BYTES = 256;
+
+  /** About how much memory an item takes, apart from its strings. */
+  static final long ITEM_BYTES = 96;
+
+  /** The suffix of the users' files. */
+  static final String SUFFIX = ".txt";
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The shared categories, by the location of their image (never changed). */
+  private final Map<String, Category> base;
+
+  /** Where overlays are written when they are dropped. */
+  private final Path dir;
+
+  /** The most memory the overlays should take, in (estimated) bytes. */
+  private final long maxBytes;
+
+  /** The overlays in memory, least recently used first. */
+  private final LinkedHashMap<String, Overlay> resident =
+      new LinkedHashMap<String, Overlay>(16, 0.75f, true);
+
+  /** The memory the overlays in memory take, in (estimated) bytes. */
+  private long residentBytes;
+
+  /** How many overlays have been dropped. */
+  private long evictions;
+
+  /** How many overlays have been read back from disk. */
+  private long reloads;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Creates a store.
+   *
+   * @param baseFile the mappings file every board starts from
+   * @param dir where users' changes are kept (created if need be)
+   * @param maxBytes about how much memory the users' changes may take
+   * @throws IOException if the base cannot be read or the directory
+   *   cannot be made
+   */
+  public BoardStore(String baseFile, Path dir, long maxBytes) throws IOException {
+    this.base = read(new File(baseFile));
+    this.dir = Files.createDirectories(dir);
+    this.maxBytes = maxBytes;
+  } // BoardStore(String, Path, long)
+
+  // +---------+-----------------------------------------------------
+  // | Reading |
+  // +---------+
+
+  /**
+   * Returns the image locations of every category on a user's board.
+   *
+   * @param tenant the user
+   * @return the base's categories, then the ones the user added
+   */
+  public synchronized String[] getCategoryImageLocs(String tenant) {
+    Overlay overlay = overlay(tenant);
+    List<String> categoryLocs = new ArrayList<String>(this.base.keySet());
+    for (String categoryLoc : overlay.categories.keySet()) {
+      if (!this.base.containsKey(categoryLoc)) {
+        categoryLocs.add(categoryLoc);
+      } // if
+    } // for
+    return categoryLocs.toArray(new String[0]);
+  } // getCategoryImageLocs(String)
+
+  /**
+   * Returns the name of a category on a user's board.
+   *
+   * @param tenant the user
+   * @param categoryLoc the location of the category's image
+   * @return the name
+   * @throws NoSuchElementException if there is no such category
+   */
+  public synchronized String getCategoryName(String tenant, String categoryLoc) {
+    return category(overlay(tenant), categoryLoc).name;
+  } // getCategoryName(String, String)
+
+  /**
+   * Returns the image locations of the items in a category on a user's
+   * board.
+   *
+   * @param tenant the user
+   * @param categoryLoc the location of the category's image
+   * @return the item images, in order
+   * @throws NoSuchElementException if there is no such category
+   */
+  public synchronized String[] getImageLocs(String tenant, String categoryLoc) {
+    return category(overlay(tenant), categoryLoc).texts.keySet().toArray(new String[0]);
+  } // getImageLocs(String, String)
+
+  /**
+   * Returns the text of an item on a user's board.
+   *
+   * @param tenant the user
+   * @param categoryLoc the location of the category's image
+   * @param imageLoc the location of the item's image
+   * @return the text
+   * @throws NoSuchElementException if there is no such category or item
+   */
+  public synchronized String getText(String tenant, String categoryLoc, String imageLoc) {
+    String text = category(overlay(tenant), categoryLoc).texts.get(imageLoc);
+    if (text == null) {
+      throw new NoSuchElementException("Image not found in this category: " + imageLoc);
+    } // if
+    return text;
+  } // getText(String, String, String)
+
+  // +----------+----------------------------------------------------
+  // | Changing |
+  // +----------+
+
+  /**
+   * Adds (or renames) a category on a user's board.
+   *
+   * @param tenant the user
+   * @param categoryLoc the location of the category's image
+   * @param name the name of the category
+   */
+  public synchronized void addCategory(String tenant, String categoryLoc, String name) {
+    if (categoryLoc == null || name == null) {
+      throw new IllegalArgumentException("Image location and name cannot be null.");
+    } // if
+    Overlay overlay = overlay(tenant);
+    Category category = overlay.categories.get(categoryLoc);
+    if (category == null) {
+      Category shared = this.base.get(categoryLoc);
+      category = (shared == null) ? new Category(name) : shared.copy();
+      overlay.categories.put(categoryLoc, category);
+      category.name = name;
+      changed(overlay, category.bytes());
+    } else {
+      changed(overlay, 2L * (name.length() - category.name.length()));
+      category.name = name;
+    } // if/else
+    evict(tenant);
+  } // addCategory(String, String, String)
+
+  /**
+   * Adds (or changes the text of) an item on a user's board. The first
+   * change to a category copies it from the base.
+   *
+   * @param tenant the user
+   * @param categoryLoc the location of the category's image
+   * @param imageLoc the location of the item's image
+   * @param text the text of the item
+   * @throws NoSuchElementException if there is no such category
+   */
+  public synchronized void addItem(String tenant, String categoryLoc, String imageLoc,
+      String text) {
+    if (imageLoc == null || text == null) {
+      throw new IllegalArgumentException("Image location and text cannot be null.");
+    } // if
+    Overlay overlay = overlay(tenant);
+    Category category = overlay.categories.get(categoryLoc);
+    if (category == null) {
+      Category shared = this.base.get(categoryLoc);
+      if (shared == null) {
+        throw new NoSuchElementException("No category for image: " + categoryLoc);
+      } // if
+      category = shared.copy();
+      overlay.categories.put(categoryLoc, category);
+      changed(overlay, category.bytes());
+    } // if
+    String old = category.texts.put(imageLoc, text);
+    changed(overlay, (old == null) ? Category.itemBytes(imageLoc, text)
+        : 2L * (text.length() - old.length()));
+    evict(tenant);
+  } // addItem(String, String, String, String)
+
+  /**
+   * Writes a user's whole board (the base with their changes) as a
+   * mappings file, e.g., for AACMappings or AAC.
+   *
+   * @param tenant the user
+   * @param filename where to write it
+   * @throws IOException if the file cannot be written
+   */
+  public synchronized void writeToFile(String tenant, String filename) throws IOException {
+    Overlay overlay = overlay(tenant);
+    try (PrintWriter writer = new PrintWriter(filename, StandardCharsets.UTF_8)) {
+      for (String categoryLoc : getCategoryImageLocs(tenant)) {
+        category(overlay, categoryLoc).write(writer, categoryLoc);
+      } // for
+    } // try
+  } // writeToFile(String, String)
+
+  /**
+   * Writes every changed overlay in memory to disk (e.g., at shutdown).
+   *
+   * @throws IOException if an overlay cannot be written
+   */
+  public synchronized void flush() throws IOException {
+    for (Map.Entry<String, Overlay> entry : this.resident.entrySet()) {
+      save(entry.getKey(), entry.getValue());
+    } // for
+  } // flush()
+
+  // +------------+--------------------------------------------------
+  // | Statistics |
+  // +------------+
+
+  /**
+   * Counts the users whose overlays are in memory.
+   *
+   * @return the number of users
+   */
+  public synchronized int getResidentTenants() {
+    return this.resident.size();
+  } // getResidentTenants()
+
+  /**
+   * Estimates the memory the overlays in memory take.
+   *
+   * @return the (estimated) bytes
+   */
+  public synchronized long getResidentBytes() {
+    return this.residentBytes;
+  } // getResidentBytes()
+
+  /**
+   * Counts the overlays dropped from memory so far.
+   *
+   * @return the number of evictions
+   */
+  public synchronized long getEvictions() {
+    return this.evictions;
+  } // getEvictions()
+
+  /**
+   * Counts the overlays read back from disk so far.
+   *
+   * @return the number of reloads
+   */
+  public synchronized long getReloads() {
+    return this.reloads;
+  } // getReloads()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Finds a user's overlay, reading it back from disk if it was dropped
+   * (or making an empty one for a new user), and marks it as just used.
+   */
+  private Overlay overlay(String tenant) {
+    if (tenant == null) {
+      throw new IllegalArgumentException("Tenant cannot be null.");
+    } // if
+    Overlay overlay = this.resident.get(tenant);
+    if (overlay == null) {
+      overlay = new Overlay();
+      File file = file(tenant);
+      if (file.isFile()) {
+        try {
+          overlay.categories.putAll(read(file));
+        } catch (IOException e) {
+          // This should not happen; we wrote the file.
+          throw new IllegalStateException("Could not read " + file, e);
+        } // try/catch
+        this.reloads++;
+      } // if
+      for (Category category : overlay.categories.values()) {
+        overlay.bytes += category.bytes();
+      } // for
+      this.resident.put(tenant, overlay);
+      this.residentBytes += overlay.bytes;
+      evict(tenant);
+    } // if
+    return overlay;
+  } // overlay(String)
+
+  /**
+   * Finds a category on a user's board.
+   */
+  private Category category(Overlay overlay, String categoryLoc) {
+    Category category = overlay.categories.get(categoryLoc);
+    if (category == null) {
+      category = this.base.get(categoryLoc);
+    } // if
+    if (category == null) {
+      throw new NoSuchElementException("No category for image: " + categoryLoc);
+    } // if
+    return category;
+  } // category(Overlay, String)
+
+  /**
+   * Notes that an overlay has changed and grown (or shrunk).
+   */
+  private void changed(Overlay overlay, long bytes) {
+    overlay.dirty = true;
+    overlay.bytes += bytes;
+    this.residentBytes += bytes;
+  } // changed(Overlay, long)
+
+  /**
+   * Drops the least recently used overlays (other than the current
+   * user's) until the rest fit, writing the changed ones to disk first.
+   */
+  private void evict(String current) {
+    Iterator<Map.Entry<String, Overlay>> eldest = this.resident.entrySet().iterator();
+    while (this.residentBytes > this.maxBytes && eldest.hasNext()) {
+      Map.Entry<String, Overlay> entry = eldest.next();
+      if (entry.getKey().equals(current)) {
+        continue;
+      } // if
+      try {
+        save(entry.getKey(), entry.getValue());
+      } catch (IOException e) {
+        // Keep the overlay rather than lose the user's changes.
+        System.err.println("Error: could not save " + entry.getKey() + " - " + e.getMessage());
+        continue;
+      } // try/catch
+      this.residentBytes -= entry.getValue().bytes;
+      this.evictions++;
+      eldest.remove();
+    } // while
+  } // evict(String)
+
+  /**
+   * Writes an overlay to disk, if it has changed since it was last
+   * written.
+   */
+  private void save(String tenant, Overlay overlay) throws IOException {
+    if (!overlay.dirty) {
+      return;
+    } // if
+    Path file = file(tenant).toPath();
+    Path temp = Files.createTempFile(this.dir, "tenant", ".tmp");
+    try (PrintWriter writer = new PrintWriter(temp.toFile(), StandardCharsets.UTF_8)) {
+      for (Map.Entry<String, Category> entry : overlay.categories.entrySet()) {
+        entry.getValue().write(writer, entry.getKey());
+      } // for
+    } // try
+    // Replace the old file in one step, so a crash never leaves half of it.
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    overlay.dirty = false;
+  } // save(String, Overlay)
+
+  /**
+   * Returns the file that holds a user's changes.
+   */
+  private File file(String tenant) {
+    return this.dir.resolve(URLEncoder.encode(tenant, StandardCharsets.UTF_8) + SUFFIX).toFile();
+  } // file(String)
+
+  /**
+   * Reads the categories in a mappings file.
+   */
+  private static Map<String, Category> read(File file) throws IOException {
+    Map<String, Category> categories = new LinkedHashMap<String, Category>();
+    try (Scanner scanner = new Scanner(file, StandardCharsets.UTF_8)) {
+      Category category = null;
+      while (scanner.hasNextLine()) {
+        String line = scanner.nextLine().trim();
+        if (line.isEmpty()) {
+          continue;
+        } // if
+        if (line.startsWith(">")) {
+          String[] parts = line.substring(1).split(" ", 2);
+          if (category != null) {
+            category.texts.put(parts[0], (parts.length > 1) ? parts[1] : "");
+          } // if
+        } else {
+          String[] parts = line.split(" ", 2);
+          category = new Category((parts.length > 1) ? parts[1] : "");
+          categories.put(parts[0], category);
+        } // if/else
+      } // while
+    } // try
+    return categories;
+  } // read(File)
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * A category: its name and the text of each item, by image, in order.
+   * The base's categories are never changed; users change copies.
+   */
+  static class Category {
+    /** The name. */
+    String name;
+
+    /** The text of each item, by image, in order. */
+    final LinkedHashMap<String, String> texts = new LinkedHashMap<String, String>();
+
+    /**
+     * Creates an empty category.
+     */
+    Category(String name) {
+      this.name = name;
+    } // Category(String)
+
+    /**
+     * Copies the category (the strings are shared, not copied).
+     */
+    Category copy() {
+      Category copy = new Category(this.name);
+      copy.texts.putAll(this.texts);
+      return copy;
+    } // copy()
+
+    /**
+     * Estimates the memory the category takes. Strings are counted even
+     * when they are shared with the base, so this errs high.
+     */
+    long bytes() {
+      long bytes = CATEGORY_BYTES + 2L * this.name.length();
+      for (Map.Entry<String, String> item : this.texts.entrySet()) {
+        bytes += itemBytes(item.getKey(), item.getValue());
+      } // for
+      return bytes;
+    } // bytes()
+
+    /**
+     * Estimates the memory an item takes.
+     */
+    static long itemBytes(String imageLoc, String text) {
+      return ITEM_BYTES + 2L * (imageLoc.length() + text.length());
+    } // itemBytes(String, String)
+
+    /**
+     * Writes the category in the mappings file format.
+     */
+    void write(PrintWriter writer, String categoryLoc) {
+      writer.println(categoryLoc + " " + this.name);
+      for (Map.Entry<String, String> item : this.texts.entrySet()) {
+        writer.println(">" + item.getKey() + " " + item.getValue());
+      } // for
+    } // write(PrintWriter, String)
+  } // class Category
+
+  /**
+   * A user's changes: the categories they have changed or added.
+   */
+  static class Overlay {
+    /** The changed and added categories, by image, in the order changed. */
+    final Map<String, Category> categories = new LinkedHashMap<String, Category>();
+
+    /** The memory the overlay takes, in (estimated) bytes. */
+    long bytes = TENANT_BYTES;
+
+    /** Whether the overlay has changed since it was last written. */
+    boolean dirty;
+  } // class Overlay
+} // class BoardStore
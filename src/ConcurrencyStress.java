@@ -0,0 +1,426 @@
+import edu.grinnell.csc207.experiments.Linearizability;
+import edu.grinnell.csc207.experiments.Linearizability.Operation;
+import edu.grinnell.csc207.util.AssociativeArray;
+import edu.grinnell.csc207.util.KeyNotFoundException;
+import edu.grinnell.csc207.util.NullKeyException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Stress tests the mapping structures from many threads at once. Each
+ * thread runs a random mix of puts, gets, removes and checks on a small
+ * set of keys (so threads often collide on the same key) and records
+ * when each operation was called and returned and what it saw. The
+ * history is then checked against a sequential map (see
+ * Linearizability), and the throughput is reported for each number of
+ * threads.
+ *
+ * The structures tested are an AssociativeArray with every call
+ * synchronized on it (AssociativeArray itself is not safe for threads),
+ * a ConcurrentHashMap for comparison, and AACMappings, whose items are
+ * put with addItem(String, String, String), got with selectItem and
+ * checked with getImageLocs(String).
+ *
+ * AACMappings is also tested through its stateful select and reset, as
+ * the AAC window uses it while other threads (e.g., a BoardServer) add
+ * items: one thread gets items by resetting, selecting the category and
+ * then selecting the item, while the rest put, get and check as above.
+ * Only one thread navigates, since select and reset move a current
+ * category that every caller shares: two threads navigating at once
+ * would select items in each other's categories, which is why
+ * concurrent sessions use selectItem instead.
+ *
+ * Recording the history costs about as much as a fast operation, so
+ * the throughput is lower than the structures can manage alone, but
+ * the comparison between thread counts holds.
+ *
+ * Usage: java ConcurrencyStress [--threads 1,2,4,8] [--ops N] [--seed N]
+ *
+ * @author Princess Alexander
+ */
+public class ConcurrencyStress {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The thread counts tried by default. */
+  static final int[] THREADS = {1, 2, 4, 8};
+
+  /** The number of keys the threads share. */
+  static final int KEYS = 64;
+
+  /** The number of categories the AACMappings keys are spread over. */
+  static final int CATEGORIES = 8;
+
+  /** Added to every value put, so they differ from the initial values. */
+  static final int PUT_BASE = 1 << 28;
+
+  // +---------+-----------------------------------------------------
+  // | Targets |
+  // +---------+
+
+  /**
+   * A structure under test, seen as a map from keys to values.
+   */
+  abstract static class Target {
+    /**
+     * Returns the name of the structure.
+     */
+    abstract String name();
+
+    /**
+     * Returns the percentages of puts, gets, removes and checks.
+     */
+    abstract int[] mix();
+
+    /**
+     * Returns the value of a key before the test (or ABSENT).
+     */
+    abstract int initial(long key);
+
+    /**
+     * Runs an operation.
+     *
+     * @param thread the number of the thread running it
+     * @param kind PUT, GET, REMOVE or HAS (see Linearizability)
+     * @param key the key
+     * @param value the value to put
+     * @return the value got, or for HAS 1 or 0 (anything for the others)
+     */
+    abstract int apply(int thread, int kind, long key, int value);
+  } // class Target
+
+  /**
+   * Makes an AssociativeArray target, synchronized on the array.
+   *
+   * @return the target
+   */
+  static Target synchronizedArray() {
+    AssociativeArray<Long, Integer> array = new AssociativeArray<Long, Integer>();
+    return new Target() {
+      String name() {
+        return "AssociativeArray (synchronized)";
+      } // name()
+
+      int[] mix() {
+        return new int[] {30, 40, 10, 20};
+      } // mix()
+
+      int initial(long key) {
+        return Linearizability.ABSENT;
+      } // initial(long)
+
+      int apply(int thread, int kind, long key, int value) {
+        synchronized (array) {
+          try {
+            switch (kind) {
+              case Linearizability.PUT:
+                array.set(key, value);
+                return value;
+              case Linearizability.GET:
+                return array.get(key);
+              case Linearizability.REMOVE:
+                array.remove(key);
+                return 0;
+              default:
+                return array.hasKey(key) ? 1 : 0;
+            } // switch
+          } catch (KeyNotFoundException e) {
+            return Linearizability.ABSENT;
+          } catch (NullKeyException e) {
+            throw new IllegalStateException(e);
+          } // try/catch
+        } // synchronized
+      } // apply(int, int, long, int)
+    };
+  } // synchronizedArray()
+
+  /**
+   * Makes a ConcurrentHashMap target.
+   *
+   * @return the target
+   */
+  static Target concurrentHashMap() {
+    ConcurrentHashMap<Long, Integer> map = new ConcurrentHashMap<Long, Integer>();
+    return new Target() {
+      String name() {
+        return "ConcurrentHashMap";
+      } // name()
+
+      int[] mix() {
+        return new int[] {30, 40, 10, 20};
+      } // mix()
+
+      int initial(long key) {
+        return Linearizability.ABSENT;
+      } // initial(long)
+
+      int apply(int thread, int kind, long key, int value) {
+        switch (kind) {
+          case Linearizability.PUT:
+            map.put(key, value);
+            return value;
+          case Linearizability.GET:
+            Integer found = map.get(key);
+            return (found == null) ? Linearizability.ABSENT : found;
+          case Linearizability.REMOVE:
+            map.remove(key);
+            return 0;
+          default:
+            return map.containsKey(key) ? 1 : 0;
+        } // switch
+      } // apply(int, int, long, int)
+    };
+  } // concurrentHashMap()
+
+  /**
+   * Makes an AACMappings target. Key k is the item "img" + k in the
+   * category "cat" + (k % CATEGORIES), and its value is the item's
+   * text. The even keys start out with their own number as their text;
+   * the odd keys start out missing. AACMappings cannot remove items, so
+   * there are no removes.
+   *
+   * @param dir where to write the mappings file
+   * @return the target
+   * @throws IOException if the mappings file cannot be written
+   */
+  static Target mappings(Path dir) throws IOException {
+    return mappings(dir, false);
+  } // mappings(Path)
+
+  /**
+   * Makes an AACMappings target, as mappings(Path) does, optionally with
+   * thread 0 getting items through reset and select.
+   *
+   * @param dir where to write the mappings file
+   * @param navigate true if thread 0 gets items with reset and select
+   * @return the target
+   * @throws IOException if the mappings file cannot be written
+   */
+  static Target mappings(Path dir, boolean navigate) throws IOException {
+    StringBuilder file = new StringBuilder();
+    for (int c = 0; c < CATEGORIES; c++) {
+      file.append("cat").append(c).append(" category ").append(c).append('\n');
+      for (int k = c; k < KEYS; k += CATEGORIES) {
+        if (k % 2 == 0) {
+          file.append(">img").append(k).append(' ').append(k).append('\n');
+        } // if
+      } // for
+    } // for
+    Path path = Files.createTempFile(dir, "stress", ".txt");
+    Files.writeString(path, file);
+    AACMappings mappings = new AACMappings(path.toString());
+    Files.delete(path);
+    return new Target() {
+      String name() {
+        return navigate ? "AACMappings (select)" : "AACMappings";
+      } // name()
+
+      int[] mix() {
+        return new int[] {20, 50, 0, 30};
+      } // mix()
+
+      int initial(long key) {
+        return (key % 2 == 0) ? (int) key : Linearizability.ABSENT;
+      } // initial(long)
+
+      int apply(int thread, int kind, long key, int value) {
+        String categoryLoc = "cat" + (key % CATEGORIES);
+        String imageLoc = "img" + key;
+        switch (kind) {
+          case Linearizability.PUT:
+            mappings.addItem(categoryLoc, imageLoc, Integer.toString(value));
+            return value;
+          case Linearizability.GET:
+            try {
+              if (navigate && thread == 0) {
+                // The get is the last select; the first two only move.
+                mappings.reset();
+                if (!mappings.select(categoryLoc).isEmpty()) {
+                  throw new IllegalStateException("Selecting " + categoryLoc + " gave text");
+                } // if
+                return Integer.parseInt(mappings.select(imageLoc));
+              } // if
+              return Integer.parseInt(mappings.selectItem(categoryLoc, imageLoc));
+            } catch (NoSuchElementException e) {
+              return Linearizability.ABSENT;
+            } // try/catch
+          default:
+            return Arrays.asList(mappings.getImageLocs(categoryLoc)).contains(imageLoc) ? 1 : 0;
+        } // switch
+      } // apply(int, int, long, int)
+    };
+  } // mappings(Path, boolean)
+
+  // +---------+-----------------------------------------------------
+  // | Running |
+  // +---------+
+
+  /**
+   * The outcome of one run.
+   */
+  static class Outcome {
+    /** The number of operations run. */
+    long ops;
+
+    /** How long the run took, in nanoseconds. */
+    long nanos;
+
+    /** Why the history is not linearizable (null if it is). */
+    String violation;
+
+    /** The first exception a thread threw (null if none did). */
+    Throwable error;
+
+    /**
+     * Returns the operations per second.
+     */
+    double opsPerSecond() {
+      return this.ops * 1e9 / Math.max(1, this.nanos);
+    } // opsPerSecond()
+
+    /**
+     * Returns true if the history was linearizable and nothing failed.
+     */
+    boolean ok() {
+      return this.violation == null && this.error == null;
+    } // ok()
+  } // class Outcome
+
+  /**
+   * Runs random operations on a target from several threads at once and
+   * checks the history.
+   *
+   * @param target the structure under test
+   * @param threads the number of threads
+   * @param opsPerThread the number of operations each thread runs
+   * @param seed the seed for the operations
+   * @return the outcome
+   * @throws InterruptedException if interrupted while waiting for the threads
+   */
+  static Outcome run(Target target, int threads, int opsPerThread, long seed)
+      throws InterruptedException {
+    Outcome outcome = new Outcome();
+    List<List<Operation>> histories = new ArrayList<List<Operation>>();
+    Throwable[] errors = new Throwable[threads];
+    CyclicBarrier barrier = new CyclicBarrier(threads);
+    Thread[] workers = new Thread[threads];
+    int[] mix = target.mix();
+    for (int t = 0; t < threads; t++) {
+      List<Operation> history = new ArrayList<Operation>(opsPerThread);
+      histories.add(history);
+      int thread = t;
+      workers[t] = new Thread(() -> {
+        Random random = new Random(seed * 31 + thread);
+        try {
+          barrier.await();
+          for (int i = 0; i < opsPerThread; i++) {
+            int pick = random.nextInt(100);
+            int kind = 0;
+            while (pick >= mix[kind]) {
+              pick -= mix[kind];
+              kind++;
+            } // while
+            long key = random.nextInt(KEYS);
+            int value = PUT_BASE + (thread << 20) + i;
+            long called = System.nanoTime();
+            int result = target.apply(thread, kind, key, value);
+            long returned = System.nanoTime();
+            history.add(new Operation(thread, kind, key,
+                (kind == Linearizability.PUT) ? value : result, called, returned));
+          } // for
+        } catch (Throwable e) {
+          errors[thread] = e;
+        } // try/catch
+      }, "stress-" + t);
+    } // for
+    long start = System.nanoTime();
+    for (Thread worker : workers) {
+      worker.start();
+    } // for
+    for (Thread worker : workers) {
+      worker.join();
+    } // for
+    outcome.nanos = System.nanoTime() - start;
+
+    List<Operation> all = new ArrayList<Operation>();
+    for (List<Operation> history : histories) {
+      all.addAll(history);
+    } // for
+    outcome.ops = all.size();
+    for (Throwable error : errors) {
+      if (error != null && outcome.error == null) {
+        outcome.error = error;
+      } // if
+    } // for
+    outcome.violation = Linearizability.check(all, target::initial);
+    return outcome;
+  } // run(Target, int, int, long)
+
+  // +------+--------------------------------------------------------
+  // | Main |
+  // +------+
+
+  /**
+   * Runs every target at every thread count and reports the results.
+   * Exits with status 1 if any run failed.
+   *
+   * @param args the options described above
+   * @throws Exception if a run cannot be set up
+   */
+  public static void main(String[] args) throws Exception {
+    int[] threadCounts = THREADS;
+    int ops = 20000;
+    long seed = 207;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--threads":
+          threadCounts = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+          break;
+        case "--ops":
+          ops = Integer.parseInt(args[++i]);
+          break;
+        case "--seed":
+          seed = Long.parseLong(args[++i]);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      } // switch
+    } // for
+
+    PrintWriter pen = new PrintWriter(System.out, true);
+    Path dir = Files.createTempDirectory("stress");
+    int failures = 0;
+    pen.printf("%-32s %7s %10s %14s  %s%n", "structure", "threads", "ops", "ops/s", "result");
+    for (int threads : threadCounts) {
+      for (Target target : new Target[] {synchronizedArray(), concurrentHashMap(),
+          mappings(dir), mappings(dir, true)}) {
+        Outcome outcome = run(target, threads, ops, seed);
+        pen.printf("%-32s %7d %10d %14.0f  %s%n", target.name(), threads, outcome.ops,
+            outcome.opsPerSecond(), outcome.ok() ? "linearizable" : "FAILED");
+        if (outcome.error != null) {
+          pen.println("  " + outcome.error);
+        } // if
+        if (outcome.violation != null) {
+          pen.println(outcome.violation);
+        } // if
+        failures += outcome.ok() ? 0 : 1;
+      } // for
+    } // for
+    Files.delete(dir);
+    pen.close();
+    if (failures > 0) {
+      System.exit(1);
+    } // if
+  } // main(String[])
+} // class ConcurrencyStress
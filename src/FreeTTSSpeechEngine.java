@@ -0,0 +1,110 @@
+import java.util.Locale;
+
+import javax.speech.Central;
+import javax.speech.synthesis.SpeakableAdapter;
+import javax.speech.synthesis.SpeakableEvent;
+import javax.speech.synthesis.Synthesizer;
+import javax.speech.synthesis.SynthesizerModeDesc;
+import javax.speech.synthesis.SynthesizerProperties;
+
+/**
+ * Speaks through the FreeTTS synthesizer, registered with javax.speech,
+ * using the Kevin voice.
+ *
+ * @author Princess Alexander
+ */
+public class FreeTTSSpeechEngine implements SpeechEngine {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The synthesizer that does the work. */
+  private final Synthesizer synthesizer;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Creates, allocates and resumes the synthesizer.
+   *
+   * @throws SpeechException if the synthesizer cannot be started
+   */
+  public FreeTTSSpeechEngine() throws SpeechException {
+    try {
+      // Set property as Kevin Dictionary
+      System.setProperty("freetts.voices", "com.sun.speech.freetts.en.us" + ".cmu_us_kal.KevinVoiceDirectory");
+
+      // Register Engine
+      Central.registerEngineCentral("com.sun.speech.freetts" + ".jsapi.FreeTTSEngineCentral");
+      this.synthesizer = Central.createSynthesizer(new SynthesizerModeDesc(Locale.US));
+      if (this.synthesizer == null) {
+        throw new SpeechException("No synthesizer available for " + Locale.US);
+      } // if
+
+      // Allocate synthesizer
+      this.synthesizer.allocate();
+
+      // Resume Synthesizer
+      this.synthesizer.resume();
+    } catch (SpeechException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new SpeechException("Could not start the synthesizer: " + e.getMessage(), e);
+    } // try/catch
+  } // FreeTTSSpeechEngine()
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Speaks a silent utterance, so that the voice data is loaded and the
+   * speech path is compiled before the first real request.
+   *
+   * @throws SpeechException if the utterance cannot be spoken
+   */
+  public void warmUp() throws SpeechException {
+    SynthesizerProperties props = this.synthesizer.getSynthesizerProperties();
+    float volume = props.getVolume();
+    try {
+      props.setVolume(0.0f);
+      speak("ready", null);
+    } catch (Exception e) {
+      throw new SpeechException("Could not warm up the synthesizer: " + e.getMessage(), e);
+    } finally {
+      try {
+        props.setVolume(volume);
+      } catch (Exception e) {
+        System.err.println("Error: could not restore the volume - " + e.getMessage());
+      } // try/catch
+    } // try/catch/finally
+  } // warmUp
+
+  @Override
+  public void speak(String text, Runnable onStart) throws SpeechException {
+    try {
+      this.synthesizer.speakPlainText(text, new SpeakableAdapter() {
+        @Override
+        public void speakableStarted(SpeakableEvent event) {
+          if (onStart != null) {
+            onStart.run();
+          } // if
+        } // speakableStarted
+      });
+      this.synthesizer.waitEngineState(Synthesizer.QUEUE_EMPTY);
+    } catch (Exception e) {
+      throw new SpeechException("Could not speak \"" + text + "\": " + e.getMessage(), e);
+    } // try/catch
+  } // speak
+
+  @Override
+  public void close() {
+    try {
+      this.synthesizer.deallocate();
+    } catch (Exception e) {
+      System.err.println("Error: could not release the synthesizer - " + e.getMessage());
+    } // try/catch
+  } // close
+} // class FreeTTSSpeechEngine
@@ -0,0 +1,323 @@
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+import javax.swing.ImageIcon;
+
+/**
+ * A packed set of images that share a directory (e.g., img/food),
+ * stored in a single file so that a page of icons costs one read
+ * rather than one open/read per image.
+ *
+ * The file is laid out as a small header, an index of
+ * (imageLoc, offset, length, modified, size) entries, and then the raw
+ * image bytes. The whole file is memory-mapped when opened and icons
+ * are sliced out of the mapping on request. Offsets are kept in an int
+ * once mapped, so an atlas may not be larger than 2 GB.
+ *
+ * The index records when each image file was last modified and how big
+ * it was when it was packed. When an atlas is opened, images whose file
+ * has since changed (or gone) are left out, so callers read the file
+ * instead of serving stale bytes until the atlas is packed again.
+ *
+ * Atlases are optional. An atlas for the images in img/food lives
+ * in img/food.atlas; if no such file exists, callers should fall back
+ * to reading the individual image files.
+ *
+ * @author Princess Alexander
+ */
+public class ImageAtlas {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** Marks the start of an atlas file ("AACA"). */
+  static final int MAGIC = 0x41414341;
+
+  /** The current version of the atlas format. */
+  static final int VERSION = 2;
+
+  /** The largest atlas, so that every offset fits in an int. */
+  static final long MAX_SIZE = Integer.MAX_VALUE;
+
+  /** The suffix added to a directory name to get its atlas file. */
+  public static final String SUFFIX = ".atlas";
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The mapped contents of the atlas file. */
+  private final MappedByteBuffer data;
+
+  /** Maps each image location to its position in offsets/lengths. */
+  private final Map<String, Integer> index;
+
+  /** Where each image starts within the file. */
+  private final int[] offsets;
+
+  /** How many bytes each image takes. */
+  private final int[] lengths;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Opens an existing atlas file with a single memory mapping. Images
+   * whose file has changed since they were packed are left out.
+   *
+   * @param atlasFile the atlas to open
+   * @throws IOException if the file cannot be read or is not an atlas
+   *                     (of this version)
+   */
+  public ImageAtlas(Path atlasFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(atlasFile, StandardOpenOption.READ)) {
+      if (channel.size() > MAX_SIZE) {
+        throw new IOException("Image atlas too large: " + atlasFile);
+      } // if
+      this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } // try
+    try {
+      ByteBuffer buf = this.data.duplicate();
+      if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+        throw new IOException("Not an image atlas (version " + VERSION + "): " + atlasFile);
+      } // if
+      int count = buf.getInt();
+      this.index = new HashMap<String, Integer>(count * 2);
+      this.offsets = new int[count];
+      this.lengths = new int[count];
+      for (int i = 0; i < count; i++) {
+        byte[] name = new byte[buf.getInt()];
+        buf.get(name);
+        String imageLoc = new String(name, StandardCharsets.UTF_8);
+        long offset = buf.getLong();
+        this.lengths[i] = buf.getInt();
+        long modified = buf.getLong();
+        long size = buf.getLong();
+        if (offset < 0 || this.lengths[i] < 0 || offset + this.lengths[i] > this.data.limit()) {
+          throw new IOException("Corrupt image atlas: " + atlasFile);
+        } // if
+        this.offsets[i] = (int) offset;
+        if (unchanged(imageLoc, modified, size)) {
+          this.index.put(imageLoc, i);
+        } // if
+      } // for
+    } catch (BufferUnderflowException | NegativeArraySizeException e) {
+      throw new IOException("Corrupt image atlas: " + atlasFile, e);
+    } // try/catch
+  } // ImageAtlas(Path)
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Determines if the atlas holds the given image.
+   *
+   * @param imageLoc the location of the image
+   * @return true if the image is packed in this atlas, false otherwise
+   */
+  public boolean hasImage(String imageLoc) {
+    return this.index.containsKey(imageLoc);
+  } // hasImage
+
+  /**
+   * Returns the raw (encoded) bytes of an image.
+   *
+   * @param imageLoc the location of the image
+   * @return the bytes of the image, or null if it is not in the atlas
+   */
+  public byte[] getBytes(String imageLoc) {
+    Integer i = this.index.get(imageLoc);
+    if (i == null) {
+      return null;
+    } // if
+    byte[] bytes = new byte[this.lengths[i]];
+    ByteBuffer slice = this.data.duplicate();
+    slice.position(this.offsets[i]);
+    slice.get(bytes);
+    return bytes;
+  } // getBytes
+
+  /**
+   * Returns an icon for the given image.
+   *
+   * @param imageLoc the location of the image
+   * @return the icon, or null if the image is not in the atlas
+   */
+  public ImageIcon getIcon(String imageLoc) {
+    byte[] bytes = getBytes(imageLoc);
+    return (bytes == null) ? null : new ImageIcon(bytes);
+  } // getIcon
+
+  /**
+   * Returns the number of images in the atlas that are up to date.
+   *
+   * @return the number of images
+   */
+  public int size() {
+    return this.index.size();
+  } // size
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Returns the atlas file that would hold the given image.
+   *
+   * @param imageLoc the location of the image
+   * @return the path of the atlas for the image's directory
+   */
+  public static Path atlasFor(String imageLoc) {
+    Path parent = Paths.get(imageLoc).getParent();
+    if (parent == null) {
+      parent = Paths.get(".");
+    } // if
+    return Paths.get(parent.toString() + SUFFIX);
+  } // atlasFor
+
+  /**
+   * Packs the given images into a single atlas file. Images that
+   * cannot be read are skipped with a warning.
+   *
+   * @param atlasFile where to write the atlas
+   * @param imageLocs the images to pack
+   * @return the number of images written
+   * @throws IOException if the atlas cannot be written or would be
+   *                     larger than 2 GB
+   */
+  public static int write(Path atlasFile, List<String> imageLocs) throws IOException {
+    List<byte[]> names = new ArrayList<byte[]>();
+    List<byte[]> images = new ArrayList<byte[]>();
+    List<long[]> stamps = new ArrayList<long[]>();
+    for (String imageLoc : imageLocs) {
+      try {
+        Path file = Paths.get(imageLoc);
+        // Stamp before reading, so a change made while reading shows.
+        long[] stamp = {Files.getLastModifiedTime(file).toMillis(), Files.size(file)};
+        images.add(Files.readAllBytes(file));
+        names.add(imageLoc.getBytes(StandardCharsets.UTF_8));
+        stamps.add(stamp);
+      } catch (IOException e) {
+        System.err.println("Warning: skipping unreadable image " + imageLoc);
+      } // try/catch
+    } // for
+
+    // Header and index come first, so the data starts after them.
+    long offset = 12;
+    for (byte[] name : names) {
+      offset += 4 + name.length + 8 + 4 + 8 + 8;
+    } // for
+    long total = offset;
+    for (byte[] image : images) {
+      total += image.length;
+    } // for
+    if (total > MAX_SIZE) {
+      throw new IOException("Image atlas would be larger than 2 GB: " + atlasFile);
+    } // if
+
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(atlasFile.toFile())))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(names.size());
+      for (int i = 0; i < names.size(); i++) {
+        out.writeInt(names.get(i).length);
+        out.write(names.get(i));
+        out.writeLong(offset);
+        out.writeInt(images.get(i).length);
+        out.writeLong(stamps.get(i)[0]);
+        out.writeLong(stamps.get(i)[1]);
+        offset += images.get(i).length;
+      } // for
+      for (byte[] image : images) {
+        out.write(image);
+      } // for
+    } // try
+    return names.size();
+  } // write
+
+  /**
+   * Determines if an image file is still as it was when it was packed.
+   *
+   * @param imageLoc the location of the image
+   * @param modified when the file was last modified, in ms
+   * @param size the size of the file
+   * @return true if the file has the same time and size, false if it
+   *         differs or cannot be read
+   */
+  static boolean unchanged(String imageLoc, long modified, long size) {
+    try {
+      Path file = Paths.get(imageLoc);
+      return Files.getLastModifiedTime(file).toMillis() == modified && Files.size(file) == size;
+    } catch (IOException | RuntimeException e) {
+      return false;
+    } // try/catch
+  } // unchanged
+
+  /**
+   * Reads a mappings file (in the format described in AACMappings) and
+   * groups every image it mentions by directory.
+   *
+   * @param filename the mappings file
+   * @return a map from atlas file to the images that belong in it
+   * @throws IOException if the mappings file cannot be read
+   */
+  public static Map<Path, List<String>> groupImages(String filename) throws IOException {
+    Map<Path, List<String>> groups = new LinkedHashMap<Path, List<String>>();
+    try (Scanner scanner = new Scanner(new File(filename))) {
+      while (scanner.hasNextLine()) {
+        String line = scanner.nextLine().trim();
+        if (line.startsWith(">")) {
+          line = line.substring(1);
+        } // if
+        if (line.isEmpty()) {
+          continue;
+        } // if
+        String imageLoc = line.split(" ", 2)[0];
+        Path atlas = atlasFor(imageLoc);
+        if (!groups.containsKey(atlas)) {
+          groups.put(atlas, new ArrayList<String>());
+        } // if
+        if (!groups.get(atlas).contains(imageLoc)) {
+          groups.get(atlas).add(imageLoc);
+        } // if
+      } // while
+    } // try
+    return groups;
+  } // groupImages
+
+  /**
+   * Generates one atlas per image directory for a mappings file.
+   *
+   * @param args the mappings file to pack (defaults to AACMappings.txt)
+   * @throws IOException if any file cannot be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    String filename = (args.length > 0) ? args[0] : "AACMappings.txt";
+    for (Map.Entry<Path, List<String>> group : groupImages(filename).entrySet()) {
+      int count = write(group.getKey(), group.getValue());
+      System.out.println(group.getKey() + ": " + count + " images");
+    } // for
+  } // main(String[])
+} // class ImageAtlas
@@ -0,0 +1,91 @@
+import edu.grinnell.csc207.util.LatencyHistogram;
+import java.io.File;
+import java.io.PrintWriter;
+
+/**
+ * The latency histograms for the interactions that users notice: from
+ * tapping an item to its text being found, to speech starting and to
+ * speech finishing, and from changing pages to the new grid being
+ * painted, as well as the time to first sound of streamed speech. All
+ * times are recorded in nanoseconds.
+ *
+ * Recording is always on (it is cheap; see LatencyHistogram). Running
+ * with -Daac.debug=true shows the summary on the board and writes it to
+ * the file named by -Daac.latencyFile (default aac-latency.txt) on exit.
+ *
+ * @author Princess Alexander
+ */
+public class LatencyMonitor {
+
+  // +---------+-----------------------------------------------------
+  // | Globals |
+  // +---------+
+
+  /** From the button event to AACPage.select returning. */
+  public static final LatencyHistogram CLICK_TO_SELECT = new LatencyHistogram("click to select");
+
+  /** From the button event to the first audio of the selection. */
+  public static final LatencyHistogram CLICK_TO_SPEECH_START =
+      new LatencyHistogram("click to speech start");
+
+  /** From the button event to the end of the selection's audio. */
+  public static final LatencyHistogram CLICK_TO_SPEECH_END =
+      new LatencyHistogram("click to speech end");
+
+  /** From asking a streaming engine to speak to its first audio. */
+  public static final LatencyHistogram TIME_TO_FIRST_SOUND =
+      new LatencyHistogram("time to first sound");
+
+  /** From a page or category change to the new grid being painted. */
+  public static final LatencyHistogram PAGE_TO_PAINT = new LatencyHistogram("page to paint");
+
+  /** Every histogram, in the order they are reported. */
+  static final LatencyHistogram[] ALL = {
+    CLICK_TO_SELECT, CLICK_TO_SPEECH_START, CLICK_TO_SPEECH_END, TIME_TO_FIRST_SOUND,
+    PAGE_TO_PAINT
+  };
+
+  /** Whether the debug overlay and dump file are enabled. */
+  public static final boolean DEBUG = Boolean.getBoolean("aac.debug");
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Summarizes every histogram on one line each.
+   *
+   * @return the summary
+   */
+  public static String summary() {
+    StringBuilder sb = new StringBuilder();
+    for (LatencyHistogram histogram : ALL) {
+      sb.append(histogram.toString()).append('\n');
+    } // for
+    return sb.toString();
+  } // summary
+
+  /**
+   * Writes the summary to a file.
+   *
+   * @param filename the file to write
+   */
+  public static void writeToFile(String filename) {
+    try (PrintWriter writer = new PrintWriter(new File(filename))) {
+      writer.print(summary());
+    } catch (Exception e) {
+      e.printStackTrace();
+    } // catch
+  } // writeToFile
+
+  /**
+   * Arranges for the summary to be written when the program exits, if
+   * debugging is enabled.
+   */
+  public static void dumpOnExit() {
+    if (DEBUG) {
+      String filename = System.getProperty("aac.latencyFile", "aac-latency.txt");
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> writeToFile(filename)));
+    } // if
+  } // dumpOnExit
+} // class LatencyMonitor
@@ -0,0 +1,218 @@
+import edu.grinnell.csc207.experiments.Harness;
+import edu.grinnell.csc207.experiments.VocabularyGenerator;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Measures AACMappings at scale: loading a mapping file, getImageLocs,
+ * select and writeToFile, on made-up vocabularies (see
+ * VocabularyGenerator) of a thousand to a million items. Each size has
+ * about sqrt(n) categories of sqrt(n) items, unless --categories is
+ * given.
+ *
+ * Results are written as CSV: the benchmark, the number of items and
+ * categories, the columns of Harness.CSV_HEADER, the operations and
+ * items per second, the allocation rate, and the peak heap used while
+ * measuring. The peak is the sum of the peaks of the heap pools, so it
+ * can overstate the true peak a little. "retained_mb" is the heap still
+ * in use by the loaded mappings after a full collection.
+ *
+ * Large sizes need a large heap, e.g.,
+ *   java -Xmx4g MappingsBenchmark --sizes 1000000
+ *
+ * Usage: java MappingsBenchmark [--csv FILE] [--sizes 1000,10000,...]
+ *   [--categories N] [--path N] [--text N] [--seed N] [--dir DIR]
+ *   [--quick]
+ *
+ * @author Princess Alexander
+ */
+public class MappingsBenchmark {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The numbers of items measured by default. */
+  static final int[] SIZES = {1000, 10000, 100000, 1000000};
+
+  /** The CSV header. */
+  static final String HEADER = "benchmark,items,categories," + Harness.CSV_HEADER
+      + ",ops_per_sec,items_per_sec,alloc_mb_per_sec,peak_heap_mb,retained_mb";
+
+  /** The heap pools, for the peak heap. */
+  static final MemoryPoolMXBean[] HEAP = ManagementFactory.getMemoryPoolMXBeans().stream()
+      .filter((pool) -> pool.getType() == MemoryType.HEAP).toArray(MemoryPoolMXBean[]::new);
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Returns the heap in use after a full collection, in bytes.
+   */
+  static long retained() {
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  } // retained()
+
+  /**
+   * Measures one benchmark and writes its row.
+   *
+   * @param csv where to write the row
+   * @param harness the harness
+   * @param label the first columns of the row
+   * @param itemsPerOp how many items each operation handles
+   * @param retained the heap retained by the mappings, in bytes
+   * @param body the benchmark
+   */
+  static void measure(PrintWriter csv, Harness harness, String label, long itemsPerOp,
+      long retained, IntToLongFunction body) {
+    for (MemoryPoolMXBean pool : HEAP) {
+      pool.resetPeakUsage();
+    } // for
+    Harness.Result result = harness.run(body);
+    long peak = 0;
+    for (MemoryPoolMXBean pool : HEAP) {
+      peak += pool.getPeakUsage().getUsed();
+    } // for
+    double opsPerSec = 1e9 / result.nsPerOp;
+    String row = label + "," + result.toCsv() + String.format(Locale.ROOT,
+        ",%.1f,%.1f,%.2f,%.1f,%.1f", opsPerSec, opsPerSec * itemsPerOp,
+        result.bytesPerOp * opsPerSec / (1 << 20), peak / (double) (1 << 20),
+        retained / (double) (1 << 20));
+    csv.println(row);
+    csv.flush();
+    System.err.println(row);
+  } // measure(PrintWriter, Harness, String, long, long, IntToLongFunction)
+
+  // +------+--------------------------------------------------------
+  // | Main |
+  // +------+
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args the options described above
+   * @throws IOException if a file cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    String csvFile = null;
+    int[] sizes = SIZES;
+    int fixedCategories = 0;
+    int pathLength = 32;
+    int textLength = 12;
+    long seed = 207;
+    String dir = System.getProperty("java.io.tmpdir");
+    // Loading and saving take long enough that one operation fills an
+    // iteration; lookups need many.
+    Harness slow = new Harness(1, 3, 200);
+    Harness fast = new Harness(5, 10, 100);
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--csv":
+          csvFile = args[++i];
+          break;
+        case "--sizes":
+          sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+          break;
+        case "--categories":
+          fixedCategories = Integer.parseInt(args[++i]);
+          break;
+        case "--path":
+          pathLength = Integer.parseInt(args[++i]);
+          break;
+        case "--text":
+          textLength = Integer.parseInt(args[++i]);
+          break;
+        case "--seed":
+          seed = Long.parseLong(args[++i]);
+          break;
+        case "--dir":
+          dir = args[++i];
+          break;
+        case "--quick":
+          slow = new Harness(0, 1, 50);
+          fast = new Harness(2, 3, 20);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      } // switch
+    } // for
+
+    PrintWriter csv = (csvFile == null) ? new PrintWriter(System.out, true)
+        : new PrintWriter(new FileWriter(csvFile));
+    csv.println(HEADER);
+    for (int size : sizes) {
+      int categories = (fixedCategories > 0) ? fixedCategories
+          : Math.max(1, (int) Math.round(Math.sqrt(size)));
+      int perCategory = Math.max(1, size / categories);
+      int items = categories * perCategory;
+      File input = new File(dir, "mappings-" + items + ".txt");
+      File output = new File(dir, "mappings-" + items + "-out.txt");
+      new VocabularyGenerator(categories, perCategory, pathLength, textLength, seed)
+          .write(input.getPath());
+      run(csv, slow, fast, items + "," + categories, items, input.getPath(), output.getPath());
+      input.delete();
+      output.delete();
+    } // for
+    csv.close();
+  } // main(String[])
+
+  /**
+   * Runs every benchmark on one mapping file.
+   */
+  static void run(PrintWriter csv, Harness slow, Harness fast, String prefix, int items,
+      String input, String output) {
+    long before = retained();
+    AACMappings mappings = new AACMappings(input);
+    long retained = Math.max(0, retained() - before);
+    measure(csv, slow, "load," + prefix, items, retained, (n) -> {
+      long total = 0;
+      for (int i = 0; i < n; i++) {
+        total += new AACMappings(input).getImageLocs().length;
+      } // for
+      return total;
+    });
+
+    String[] categoryLocs = mappings.getImageLocs();
+    String categoryLoc = categoryLocs[categoryLocs.length / 2];
+    String[] imageLocs = mappings.getImageLocs(categoryLoc);
+    measure(csv, fast, "getImageLocs:home," + prefix, categoryLocs.length, retained, (n) -> {
+      long total = 0;
+      for (int i = 0; i < n; i++) {
+        mappings.reset();
+        total += mappings.getImageLocs().length;
+      } // for
+      return total;
+    });
+    mappings.select(categoryLoc);
+    measure(csv, fast, "getImageLocs:category," + prefix, imageLocs.length, retained, (n) -> {
+      long total = 0;
+      for (int i = 0; i < n; i++) {
+        total += mappings.getImageLocs().length;
+      } // for
+      return total;
+    });
+    measure(csv, fast, "select," + prefix, 1, retained, (n) -> {
+      long total = 0;
+      for (int i = 0; i < n; i++) {
+        total += mappings.select(imageLocs[i % imageLocs.length]).length();
+      } // for
+      return total;
+    });
+    measure(csv, slow, "writeToFile," + prefix, items, retained, (n) -> {
+      for (int i = 0; i < n; i++) {
+        mappings.writeToFile(output);
+      } // for
+      return new File(output).length();
+    });
+  } // run(PrintWriter, Harness, Harness, String, int, String, String)
+} // class MappingsBenchmark
@@ -0,0 +1,78 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The words a user has picked so far to build a sentence (e.g., "I
+ * want" + "pizza"), so that the whole phrase can be spoken at once
+ * rather than one word at a time.
+ *
+ * @author Princess Alexander
+ */
+public class PhraseStrip {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The texts picked so far, in order. */
+  private final List<String> words = new ArrayList<String>();
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Adds a text to the end of the phrase. Empty texts (e.g., from
+   * selecting a category) are ignored.
+   *
+   * @param text the text to add
+   */
+  public void add(String text) {
+    if (text != null && !text.isEmpty()) {
+      this.words.add(text);
+    } // if
+  } // add
+
+  /**
+   * Removes the most recently added text, if any.
+   */
+  public void removeLast() {
+    if (!this.words.isEmpty()) {
+      this.words.remove(this.words.size() - 1);
+    } // if
+  } // removeLast
+
+  /**
+   * Removes every text.
+   */
+  public void clear() {
+    this.words.clear();
+  } // clear
+
+  /**
+   * Determines if nothing has been picked.
+   *
+   * @return true if the phrase is empty, false otherwise
+   */
+  public boolean isEmpty() {
+    return this.words.isEmpty();
+  } // isEmpty
+
+  /**
+   * Returns the texts in the phrase.
+   *
+   * @return a copy of the texts, in order
+   */
+  public List<String> getWords() {
+    return new ArrayList<String>(this.words);
+  } // getWords
+
+  /**
+   * Returns the whole phrase as one piece of text.
+   *
+   * @return the texts, separated by spaces
+   */
+  public String getText() {
+    return String.join(" ", this.words);
+  } // getText
+} // class PhraseStrip
@@ -0,0 +1,344 @@
+import edu.grinnell.csc207.util.NgramPredictor;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Suggests what the user is likely to select next, from what they
+ * have selected so far (see NgramPredictor). Items are identified by
+ * the image of their category and their own image.
+ *
+ * Selections can be logged to a history file, one per line as the time
+ * in milliseconds, the category image and the item image, with a blank
+ * line at the end of each sentence. Reading the log back at startup
+ * trains the predictor on earlier sessions. Only the most recent lines
+ * are kept: once the file has twice as many, it is cut back to them,
+ * so the file and the time to replay it stay bounded. Lines are
+ * written on a background thread, so selecting never waits for the
+ * disk.
+ *
+ * @author Princess Alexander
+ */
+public class SelectionPredictor {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The most contexts the model keeps (about 10 MB). */
+  static final int MAX_CONTEXTS = 1 << 16;
+
+  /** A pause longer than this (in ms) between selections ends a sentence. */
+  static final long SENTENCE_GAP = 60_000;
+
+  /** How many lines of history are kept, by default. */
+  static final int MAX_HISTORY = 100_000;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The model. */
+  private final NgramPredictor model = new NgramPredictor(MAX_CONTEXTS);
+
+  /**
+   * The id of each item, by category image and then item image (two
+   * lookups, so a selection need not build a combined key).
+   */
+  private final Map<String, Map<String, Integer>> ids =
+      new HashMap<String, Map<String, Integer>>();
+
+  /** The category image and item image of each id. */
+  private final List<String[]> items = new ArrayList<String[]>();
+
+  /** When the last selection was made, in ms since the epoch. */
+  private long lastTime;
+
+  /** How many lines of history are kept. */
+  private final int maxHistory;
+
+  /** Whether selections are being logged. */
+  private volatile boolean logging;
+
+  /** The history file, or null. Only used on the writer thread. */
+  private File logFile;
+
+  /** Where new selections are logged, or null. Only used on the writer thread. */
+  private PrintWriter log;
+
+  /** How many lines the history file has. Only used on the writer thread. */
+  private int logged;
+
+  /** Writes the history, in order. */
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "selection-history");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Creates a predictor that keeps MAX_HISTORY lines of history.
+   */
+  public SelectionPredictor() {
+    this(MAX_HISTORY);
+  } // SelectionPredictor()
+
+  /**
+   * Creates a predictor that keeps a given number of lines of history.
+   *
+   * @param maxHistory how many lines of history to keep
+   */
+  public SelectionPredictor(int maxHistory) {
+    this.maxHistory = Math.max(1, maxHistory);
+  } // SelectionPredictor(int)
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Learns from a selection and logs it if there is a log.
+   *
+   * @param categoryLoc the image of the item's category
+   * @param imageLoc the image of the item
+   */
+  public synchronized void observe(String categoryLoc, String imageLoc) {
+    long now = System.currentTimeMillis();
+    observe(categoryLoc, imageLoc, now);
+    if (this.logging) {
+      append(now + " " + categoryLoc + " " + imageLoc);
+    } // if
+  } // observe(String, String)
+
+  /**
+   * Ends the current sentence, so the next selection starts a new one.
+   */
+  public synchronized void endSentence() {
+    this.model.endSequence();
+    if (this.logging) {
+      append("");
+    } // if
+  } // endSentence
+
+  /**
+   * Suggests the most likely next selections.
+   *
+   * @param k the most suggestions to make
+   * @return the category image and item image of each suggestion, most
+   *   likely first
+   */
+  public synchronized List<String[]> predict(int k) {
+    int[] symbols = new int[k];
+    int n = this.model.predict(symbols);
+    List<String[]> result = new ArrayList<String[]>(n);
+    for (int i = 0; i < n; i++) {
+      result.add(this.items.get(symbols[i]));
+    } // for
+    return result;
+  } // predict
+
+  /**
+   * Trains on the most recent lines of a history file, if it exists,
+   * and then appends every new selection and sentence end to it. Lines
+   * that cannot be read are skipped.
+   *
+   * @param filename the history file
+   * @throws IOException if the file cannot be read or opened for
+   *   appending
+   */
+  public synchronized void useHistory(String filename) throws IOException {
+    File file = new File(filename);
+    ArrayDeque<String> lines = new ArrayDeque<String>();
+    int total = tail(file, this.maxHistory, lines);
+    for (String line : lines) {
+      String[] parts = line.trim().split(" ", 3);
+      if (parts.length < 3) {
+        this.model.endSequence();
+        continue;
+      } // if
+      long time;
+      try {
+        time = Long.parseLong(parts[0]);
+      } catch (NumberFormatException e) {
+        // A damaged line (e.g., cut short by a crash); skip it.
+        continue;
+      } // try/catch
+      observe(parts[1], parts[2], time);
+    } // for
+    this.model.endSequence();
+    await(() -> {
+      if (this.log != null) {
+        this.log.close();
+      } // if
+      this.logFile = file;
+      this.logged = total;
+      if (total > lines.size()) {
+        rewrite(lines);
+      } // if
+      this.log = new PrintWriter(new FileWriter(file, true));
+      return null;
+    });
+    this.logging = true;
+  } // useHistory
+
+  /**
+   * Waits until every selection so far has been written to the history.
+   *
+   * @throws IOException if the history could not be written
+   */
+  public void flush() throws IOException {
+    if (!this.writer.isShutdown()) {
+      await(() -> null);
+    } // if
+  } // flush
+
+  /**
+   * Writes every selection so far to the history, closes it and stops
+   * the thread that writes it. The predictor still learns and predicts,
+   * but no longer logs. Closing again has no effect.
+   *
+   * @throws IOException if the history could not be written
+   */
+  public synchronized void close() throws IOException {
+    if (this.writer.isShutdown()) {
+      return;
+    } // if
+    this.logging = false;
+    try {
+      await(() -> {
+        if (this.log != null) {
+          this.log.close();
+          this.log = null;
+        } // if
+        return null;
+      });
+    } finally {
+      this.writer.shutdown();
+    } // try/finally
+  } // close
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Learns from a selection made at a given time.
+   */
+  private void observe(String categoryLoc, String imageLoc, long time) {
+    if (time - this.lastTime > SENTENCE_GAP) {
+      this.model.endSequence();
+    } // if
+    this.lastTime = time;
+    Map<String, Integer> category = this.ids.get(categoryLoc);
+    if (category == null) {
+      category = new HashMap<String, Integer>();
+      this.ids.put(categoryLoc, category);
+    } // if
+    Integer id = category.get(imageLoc);
+    if (id == null) {
+      if (this.items.size() > NgramPredictor.MAX_SYMBOL) {
+        return;
+      } // if
+      id = this.items.size();
+      category.put(imageLoc, id);
+      this.items.add(new String[] {categoryLoc, imageLoc});
+    } // if
+    this.model.observe(id);
+  } // observe(String, String, long)
+
+  /**
+   * Queues a line to be appended to the history, if there is one, and
+   * cuts the file back to its last lines once it has twice as many.
+   */
+  private void append(String line) {
+    this.writer.submit(() -> {
+      if (this.log == null) {
+        return;
+      } // if
+      this.log.println(line);
+      this.log.flush();
+      if (++this.logged >= 2 * this.maxHistory) {
+        try {
+          this.log.close();
+          ArrayDeque<String> lines = new ArrayDeque<String>();
+          tail(this.logFile, this.maxHistory, lines);
+          rewrite(lines);
+          this.log = new PrintWriter(new FileWriter(this.logFile, true));
+        } catch (IOException e) {
+          System.err.println("Error: could not trim " + this.logFile + " - " + e.getMessage());
+          this.log = null;
+        } // try/catch
+      } // if
+    });
+  } // append(String)
+
+  /**
+   * Replaces the history file with the given lines (on the writer
+   * thread).
+   */
+  private void rewrite(ArrayDeque<String> lines) throws IOException {
+    File temp = new File(this.logFile.getPath() + ".tmp");
+    try (PrintWriter out = new PrintWriter(new FileWriter(temp))) {
+      for (String line : lines) {
+        out.println(line);
+      } // for
+    } // try
+    Files.move(temp.toPath(), this.logFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    this.logged = lines.size();
+  } // rewrite(ArrayDeque<String>)
+
+  /**
+   * Runs a task on the writer thread and waits for it.
+   */
+  private void await(Callable<Void> task) throws IOException {
+    try {
+      this.writer.submit(task).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      } // if
+      throw new IllegalStateException(e.getCause());
+    } // try/catch
+  } // await(Callable<Void>)
+
+  /**
+   * Reads the last n lines of a file, if it exists, into lines.
+   *
+   * @return the number of lines in the file
+   */
+  private static int tail(File file, int n, ArrayDeque<String> lines) throws IOException {
+    int total = 0;
+    if (!file.isFile()) {
+      return total;
+    } // if
+    try (Scanner scanner = new Scanner(file)) {
+      while (scanner.hasNextLine()) {
+        lines.addLast(scanner.nextLine());
+        total++;
+        if (lines.size() > n) {
+          lines.removeFirst();
+        } // if
+      } // while
+    } // try
+    return total;
+  } // tail(File, int, ArrayDeque<String>)
+} // class SelectionPredictor
@@ -0,0 +1,259 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineEvent;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * A piece of synthesized speech as raw PCM audio, ready to be played
+ * directly through javax.sound.sampled or saved as a WAV file.
+ *
+ * @author Princess Alexander
+ */
+public class SpeechAudio {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** Samples quieter than this (out of 32767) count as silence. */
+  static final int SILENCE = 200;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The format of the samples. */
+  private final AudioFormat format;
+
+  /** The samples themselves. */
+  private final byte[] pcm;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Creates a new piece of audio.
+   *
+   * @param format the format of the samples
+   * @param pcm the samples
+   */
+  public SpeechAudio(AudioFormat format, byte[] pcm) {
+    this.format = format;
+    this.pcm = pcm;
+  } // SpeechAudio(AudioFormat, byte[])
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Returns the format of the samples.
+   *
+   * @return the format
+   */
+  public AudioFormat getFormat() {
+    return this.format;
+  } // getFormat
+
+  /**
+   * Returns the samples. The array is shared, so callers must not
+   * change it.
+   *
+   * @return the samples
+   */
+  public byte[] getPcm() {
+    return this.pcm;
+  } // getPcm
+
+  /**
+   * Returns how long the audio lasts.
+   *
+   * @return the length in milliseconds
+   */
+  public long getMillis() {
+    long frames = this.pcm.length / Math.max(1, this.format.getFrameSize());
+    return (long) (frames * 1000 / this.format.getFrameRate());
+  } // getMillis
+
+  /**
+   * Starts playing the audio and returns without waiting for it to
+   * finish. Use finish to wait for the clip and release it.
+   *
+   * @return the playing clip
+   * @throws LineUnavailableException if no audio line is available
+   */
+  public Clip start() throws LineUnavailableException {
+    Clip clip = AudioSystem.getClip();
+    clip.open(this.format, this.pcm, 0, this.pcm.length);
+    clip.start();
+    return clip;
+  } // start
+
+  /**
+   * Plays the audio and waits until it is done.
+   *
+   * @throws LineUnavailableException if no audio line is available
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void play() throws LineUnavailableException, InterruptedException {
+    finish(start());
+  } // play
+
+  /**
+   * Returns a copy of the audio without the quiet stretches at the start
+   * and end, so that pieces can be joined without gaps. Only 16-bit
+   * PCM is trimmed; other formats are returned as they are.
+   *
+   * @param threshold the largest sample (in absolute value) that counts
+   *                  as silence
+   * @return the trimmed audio
+   */
+  public SpeechAudio trimSilence(int threshold) {
+    if (!isPcm16()) {
+      return this;
+    } // if
+    int frameSize = this.format.getFrameSize();
+    int frames = this.pcm.length / frameSize;
+    int first = 0;
+    while (first < frames && isQuiet(first, threshold)) {
+      first++;
+    } // while
+    int last = frames - 1;
+    while (last > first && isQuiet(last, threshold)) {
+      last--;
+    } // while
+    if (first >= frames) {
+      return new SpeechAudio(this.format, new byte[0]);
+    } // if
+    return new SpeechAudio(this.format,
+        Arrays.copyOfRange(this.pcm, first * frameSize, (last + 1) * frameSize));
+  } // trimSilence
+
+  /**
+   * Writes the audio to a WAV file.
+   *
+   * @param file where to write the audio
+   * @throws IOException if the file cannot be written
+   */
+  public void writeWav(File file) throws IOException {
+    long frames = this.pcm.length / Math.max(1, this.format.getFrameSize());
+    try (AudioInputStream stream =
+        new AudioInputStream(new ByteArrayInputStream(this.pcm), this.format, frames)) {
+      AudioSystem.write(stream, AudioFileFormat.Type.WAVE, file);
+    } // try
+  } // writeWav
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Waits for a clip started by start to finish and then closes it.
+   *
+   * @param clip the clip
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public static void finish(Clip clip) throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    clip.addLineListener(event -> {
+      if (event.getType() == LineEvent.Type.STOP) {
+        done.countDown();
+      } // if
+    });
+    if (clip.isRunning() || clip.getFramePosition() < clip.getFrameLength()) {
+      // In case the STOP came before we were listening, never wait much
+      // longer than the clip itself.
+      done.await(clip.getMicrosecondLength() / 1000 + 1000, TimeUnit.MILLISECONDS);
+    } // if
+    clip.close();
+  } // finish
+
+  /**
+   * Joins pieces of audio into one, trimming the silence around each
+   * piece and putting a short pause between them.
+   *
+   * @param pieces the audio to join, in order
+   * @param pauseMillis how long to pause between pieces
+   * @return the joined audio, or null if the pieces are not all 16-bit
+   *         PCM in the same format
+   */
+  public static SpeechAudio concat(List<SpeechAudio> pieces, int pauseMillis) {
+    if (pieces.isEmpty()) {
+      return null;
+    } // if
+    AudioFormat format = pieces.get(0).getFormat();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    int pauseBytes = (int) (format.getFrameRate() * pauseMillis / 1000) * format.getFrameSize();
+    for (int i = 0; i < pieces.size(); i++) {
+      SpeechAudio piece = pieces.get(i);
+      if (!piece.isPcm16() || !piece.getFormat().matches(format)) {
+        return null;
+      } // if
+      if (i > 0) {
+        out.write(new byte[pauseBytes], 0, pauseBytes);
+      } // if
+      byte[] trimmed = piece.trimSilence(SILENCE).getPcm();
+      out.write(trimmed, 0, trimmed.length);
+    } // for
+    return new SpeechAudio(format, out.toByteArray());
+  } // concat
+
+  /**
+   * Reads audio from a WAV file.
+   *
+   * @param file the file to read
+   * @return the audio
+   * @throws IOException if the file cannot be read or is not audio
+   */
+  public static SpeechAudio readWav(File file) throws IOException {
+    try (AudioInputStream stream = AudioSystem.getAudioInputStream(file)) {
+      return new SpeechAudio(stream.getFormat(), stream.readAllBytes());
+    } catch (UnsupportedAudioFileException e) {
+      throw new IOException("Not a supported audio file: " + file, e);
+    } // try/catch
+  } // readWav
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Determines if the samples are signed 16-bit PCM.
+   */
+  private boolean isPcm16() {
+    return this.format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED
+        && this.format.getSampleSizeInBits() == 16;
+  } // isPcm16
+
+  /**
+   * Determines if every channel of a 16-bit frame is quiet.
+   */
+  private boolean isQuiet(int frame, int threshold) {
+    int channels = this.format.getChannels();
+    boolean bigEndian = this.format.isBigEndian();
+    for (int c = 0; c < channels; c++) {
+      int at = (frame * channels + c) * 2;
+      int hi = bigEndian ? this.pcm[at] : this.pcm[at + 1];
+      int lo = bigEndian ? this.pcm[at + 1] : this.pcm[at];
+      int sample = (hi << 8) | (lo & 0xff);
+      if (Math.abs(sample) > threshold) {
+        return false;
+      } // if
+    } // for
+    return true;
+  } // isQuiet
+} // class SpeechAudio
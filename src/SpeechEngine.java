@@ -0,0 +1,25 @@
+/**
+ * This interface represents something that can speak text aloud (or
+ * pretend to), so that the AAC does not depend on a particular speech
+ * synthesizer or on having audio hardware.
+ *
+ * @author Princess Alexander
+ *
+ */
+public interface SpeechEngine {
+
+	/**
+	 * Speaks the text and returns once it has been spoken
+	 * @param text the text to speak
+	 * @param onStart called when the speech starts (e.g., when the first
+	 * audio is heard); may be null
+	 * @throws SpeechException if the text cannot be spoken
+	 */
+	public void speak(String text, Runnable onStart) throws SpeechException;
+
+	/**
+	 * Releases anything the engine holds (e.g., the synthesizer)
+	 */
+	public void close();
+
+}
@@ -0,0 +1,39 @@
+/**
+ * Exceptions that indicate that text could not be spoken.
+ *
+ * @author Princess Alexander
+ */
+public class SpeechException extends Exception {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The version of the serialized form. */
+  private static final long serialVersionUID = 1L;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new exception with a particular message.
+   *
+   * @param message
+   *   The exception's message.
+   */
+  public SpeechException(String message) {
+    super(message);
+  } // SpeechException(String)
+
+  /**
+   * Create a new exception with a particular message and cause.
+   *
+   * @param message
+   *   The exception's message.
+   * @param cause
+   *   What went wrong underneath.
+   */
+  public SpeechException(String message, Throwable cause) {
+    super(message, cause);
+  } // SpeechException(String, Throwable)
+} // class SpeechException
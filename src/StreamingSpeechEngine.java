@@ -0,0 +1,178 @@
+import edu.grinnell.csc207.util.ByteRingBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.SourceDataLine;
+
+import com.sun.speech.freetts.Voice;
+
+/**
+ * Speaks through a FreeTTS voice, playing each chunk of audio as soon
+ * as the voice produces it rather than after the whole text has been
+ * synthesized. The voice writes into a small ring buffer and a playback
+ * thread drains the buffer into an audio line, so the time to the first
+ * sound depends on the first chunk, not on the length of the text.
+ *
+ * The time to first sound of every utterance is recorded in
+ * LatencyMonitor.TIME_TO_FIRST_SOUND.
+ *
+ * @author Princess Alexander
+ */
+public class StreamingSpeechEngine implements SpeechEngine {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** How many bytes of audio may wait between the voice and the line. */
+  static final int BUFFER_BYTES = 16 * 1024;
+
+  /** How many bytes the playback thread moves at once. */
+  static final int CHUNK_BYTES = 2 * 1024;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The voice that does the synthesis. */
+  private final Voice voice;
+
+  /** Receives the audio from the voice. */
+  private final StreamPlayer player = new StreamPlayer();
+
+  /** Plays the audio. */
+  private final ExecutorService playback = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "speech-playback");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /** The audio line, opened when the first audio arrives. */
+  private SourceDataLine line;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Loads the named voice.
+   *
+   * @param voiceName the FreeTTS voice to use (e.g., kevin16)
+   * @param rate the speaking rate in words per minute, or 0 for the
+   *             voice's default
+   * @throws SpeechException if the voice is not available
+   */
+  public StreamingSpeechEngine(String voiceName, float rate) throws SpeechException {
+    try {
+      this.voice = AudioRenderer.loadVoice(voiceName, rate);
+    } catch (IllegalStateException e) {
+      throw new SpeechException(e.getMessage(), e);
+    } // try/catch
+    this.voice.setAudioPlayer(this.player);
+  } // StreamingSpeechEngine(String, float)
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  @Override
+  public synchronized void speak(String text, Runnable onStart) throws SpeechException {
+    long start = System.nanoTime();
+    ByteRingBuffer ring = new ByteRingBuffer(BUFFER_BYTES);
+    this.player.ring = ring;
+    Future<?> playing = this.playback.submit(() -> {
+      byte[] chunk = new byte[CHUNK_BYTES];
+      boolean first = true;
+      int count;
+      try {
+        while ((count = ring.read(chunk, 0, chunk.length)) > 0) {
+          SourceDataLine out = lineFor(this.player.getAudioFormat());
+          out.write(chunk, 0, count);
+          if (first) {
+            first = false;
+            LatencyMonitor.TIME_TO_FIRST_SOUND.recordSince(start);
+            if (onStart != null) {
+              onStart.run();
+            } // if
+          } // if
+        } // while
+        if (this.line != null) {
+          this.line.drain();
+        } // if
+      } finally {
+        // If playback fails, this stops the voice rather than leaving it
+        // waiting for room that will never come.
+        ring.close();
+      } // try/finally
+      return null;
+    });
+    try {
+      this.voice.speak(text);
+      ring.close();
+      playing.get();
+    } catch (Exception e) {
+      ring.close();
+      playing.cancel(true);
+      throw new SpeechException("Could not speak \"" + text + "\": " + e.getMessage(), e);
+    } // try/catch
+  } // speak
+
+  @Override
+  public synchronized void close() {
+    this.playback.shutdownNow();
+    if (this.line != null) {
+      this.line.close();
+    } // if
+    this.voice.deallocate();
+  } // close
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Returns an open, started line for the format, reusing the current
+   * line when the format has not changed.
+   */
+  private SourceDataLine lineFor(AudioFormat format) throws Exception {
+    if (this.line == null || !this.line.getFormat().matches(format)) {
+      if (this.line != null) {
+        this.line.close();
+      } // if
+      this.line = AudioSystem.getSourceDataLine(format);
+      // A small line buffer keeps the first sound close to the first chunk.
+      this.line.open(format, CHUNK_BYTES * 4);
+      this.line.start();
+    } // if
+    return this.line;
+  } // lineFor
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * Passes what the voice writes into the current ring buffer.
+   */
+  static class StreamPlayer extends AudioRenderer.CapturePlayer {
+    /** Where the current utterance goes. */
+    volatile ByteRingBuffer ring;
+
+    @Override
+    public boolean write(byte[] audioData, int offset, int size) {
+      try {
+        this.ring.write(audioData, offset, size);
+        return true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      } catch (IllegalStateException e) {
+        // Playback has stopped; tell the voice to stop too.
+        return false;
+      } // try/catch
+    } // write(byte[], int, int)
+  } // class StreamPlayer
+} // class StreamingSpeechEngine
@@ -155,4 +155,38 @@ public class TestAACCategory {
     assertTrue(containsString(abc, "imageC"), "imageLocs contains imageC");
   } // testImageLocs()
 
+  /**
+   * When ordering by use, do the most used items come first, with new
+   * items after used ones and older uses counting for less?
+   */
+  @Test
+  void testMostUsedFirst() {
+    AACCategory category = new AACCategory("testMostUsedFirst");
+    category.addItem("imageA", "Apple");
+    category.addItem("imageB", "Banana");
+    category.addItem("imageC", "Cherry");
+    category.recordUse("imageC");
+    assertArrayEquals(new String[] {"imageA", "imageB", "imageC"}, category.getImageLocs(),
+        "Insertion order unless asked");
+
+    category.setMostUsedFirst(true);
+    assertArrayEquals(new String[] {"imageC", "imageA", "imageB"}, category.getImageLocs(),
+        "Used item first, others in insertion order");
+    category.recordUse("imageB");
+    category.recordUse("imageB");
+    assertArrayEquals(new String[] {"imageB", "imageC", "imageA"}, category.getImageLocs(),
+        "Most used moves ahead");
+    category.addItem("imageD", "Date");
+    assertArrayEquals(new String[] {"imageB", "imageC", "imageA", "imageD"},
+        category.getImageLocs(), "New items go after used ones");
+    // Three uses a month ago count for less than one now.
+    category.addUses("imageD", 3, System.currentTimeMillis() - 30L * 24 * 60 * 60 * 1000);
+    assertArrayEquals(new String[] {"imageB", "imageC", "imageD", "imageA"},
+        category.getImageLocs(), "Old uses decay");
+
+    category.setMostUsedFirst(false);
+    assertArrayEquals(new String[] {"imageA", "imageB", "imageC", "imageD"},
+        category.getImageLocs(), "Back to insertion order");
+  } // testMostUsedFirst()
+
 } // class TestAACCategory
\ No newline at end of file
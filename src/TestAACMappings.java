@@ -1,5 +1,6 @@
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -14,6 +15,19 @@ import java.io.IOException;
 import java.io.File;
 import java.io.FileWriter;
 
+import java.lang.management.ManagementFactory;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 /**
  * Tests of AACMappings.
  *
@@ -463,4 +477,225 @@ public class TestAACMappings {
     assertEquals(4, mappings.getImageLocs().length, "4 toppings");
     assertEquals("pepperoni", mappings.select("p"), "selecting topping p");
   } // testAdd()
-} // class TestAACMappings
\ No newline at end of file
+
+  /**
+   * Test finding items by the start of their text or of a word, across
+   * categories, including items added and changed after loading.
+   *
+   * @throws IOException
+   *   If an IO operation fails.
+   */
+  @Test
+  public void testSearch() throws IOException {
+    AACMappings mappings = new AACMappings(configFile(TEST_CONFIG));
+    assertEquals(List.of(new VocabularyItem("one", "a", "apple")),
+        mappings.search("app", 10), "one match");
+    assertEquals(List.of(new VocabularyItem("two", "e", "extra ear rings")),
+        mappings.search("RIN", 10), "later words, ignoring case");
+    assertEquals(9, mappings.search("", 100).size(), "each item once");
+    assertEquals(List.of(new VocabularyItem("two", "e", "extra ear rings")),
+        mappings.search("ear r", 10), "several words");
+    assertEquals(1, mappings.search("", 1).size(), "limited");
+    assertTrue(mappings.search("zebra", 10).isEmpty(), "no match");
+
+    mappings.select("three");
+    mappings.addItem("z", "zebra crossing");
+    mappings.addItem("h", "laundry hamper");
+    assertEquals(List.of(new VocabularyItem("three", "z", "zebra crossing")),
+        mappings.search("cross", 10), "added item");
+    assertEquals(List.of(new VocabularyItem("three", "h", "laundry hamper")),
+        mappings.search("ham", 10), "changed item, new text");
+    assertTrue(mappings.search("hamper", 10).stream()
+        .noneMatch((item) -> item.getText().equals("hamper")), "changed item, old text");
+
+    // Many items sharing a word, some of them later changed.
+    for (int i = 0; i < 20; i++) {
+      mappings.addItem("s" + i, "snow " + i);
+    } // for
+    for (int i = 0; i < 20; i += 2) {
+      mappings.addItem("s" + i, "ice " + i);
+    } // for
+    List<VocabularyItem> snow = mappings.search("snow", 100);
+    assertEquals(10, snow.size(), "shared word");
+    assertEquals(new VocabularyItem("three", "s1", "snow 1"), snow.get(0), "in order");
+    assertEquals(10, mappings.search("ice", 100).size(), "shared word, changed");
+  } // testSearch()
+
+  /**
+   * Test finding items despite misspellings, run-together words and
+   * punctuation, including items added after loading.
+   *
+   * @throws IOException
+   *   If an IO operation fails.
+   */
+  @Test
+  public void testFuzzySearch() throws IOException {
+    AACMappings mappings = new AACMappings(configFile(TEST_CONFIG));
+    assertEquals(List.of(new VocabularyItem("two", "f", "fitted shirt")),
+        mappings.fuzzySearch("fitedshirt", 10), "missing letter and space");
+    assertEquals(List.of(new VocabularyItem("two", "e", "extra ear rings")),
+        mappings.fuzzySearch("Ear-Ring", 10), "punctuation and part of the text");
+    assertEquals(new VocabularyItem("three", "i", "igloo"),
+        mappings.fuzzySearch("iglo", 10).get(0), "closest first");
+    assertTrue(mappings.fuzzySearch("glovs", 10).contains(
+        new VocabularyItem("two", "g", "gloves")), "one mistake");
+    assertTrue(mappings.fuzzySearch("zebra", 10).isEmpty(), "too far from everything");
+    assertTrue(mappings.fuzzySearch("ap", 10).isEmpty(), "too short");
+    assertEquals(List.of(new VocabularyItem("two", "d", "dress")),
+        mappings.fuzzySearch("drass", 10), "no trigram in common");
+
+    mappings.select("one");
+    mappings.addItem("f", "flip flops");
+    assertEquals(List.of(new VocabularyItem("one", "f", "flip flops")),
+        mappings.fuzzySearch("flipflop", 10), "added item");
+    mappings.addItem("k", "cat");
+    assertEquals(List.of(new VocabularyItem("one", "k", "cat")),
+        mappings.fuzzySearch("cut", 10), "short query");
+
+    // Replaced texts are dropped, however often they change.
+    for (int i = 0; i < 500; i++) {
+      mappings.addItem("f", "flip flops " + i);
+    } // for
+    assertEquals(List.of(new VocabularyItem("one", "f", "flip flops 499")),
+        mappings.fuzzySearch("flipflops499", 10), "after many changes");
+    assertEquals(List.of(new VocabularyItem("two", "d", "dress")),
+        mappings.fuzzySearch("drass", 10), "after many changes");
+  } // testFuzzySearch()
+
+  /**
+   * Test finding, listing and replacing items by their exact text,
+   * across categories.
+   *
+   * @throws IOException
+   *   If an IO operation fails.
+   */
+  @Test
+  public void testReverseText() throws IOException {
+    AACMappings mappings = new AACMappings(configFile(TEST_CONFIG + ">j Apple\n"));
+    assertEquals(List.of(new VocabularyItem("one", "a", "apple"),
+        new VocabularyItem("three", "j", "Apple")),
+        mappings.getItemsWithText("APPLE "), "both apples, ignoring case");
+    assertTrue(mappings.getItemsWithText("pear").isEmpty(), "no pears");
+    assertEquals(Set.of("apple"), mappings.getDuplicateTexts().keySet(), "one duplicate");
+
+    assertEquals(2, mappings.replaceText("apple", "green apple"), "replaced both");
+    assertTrue(mappings.getItemsWithText("apple").isEmpty(), "old text gone");
+    assertEquals(2, mappings.getItemsWithText("green apple").size(), "new text");
+    assertEquals("green apple", mappings.getText("three", "j"), "text changed");
+
+    mappings.select("one");
+    mappings.addItem("a", "red apple");
+    assertEquals(List.of(new VocabularyItem("three", "j", "green apple")),
+        mappings.getItemsWithText("green apple"), "changed by addItem");
+    assertTrue(mappings.getDuplicateTexts().isEmpty(), "no duplicates left");
+  } // testReverseText()
+
+  /**
+   * Test finding and jumping to items by image, from any category.
+   *
+   * @throws IOException
+   *   If an IO operation fails.
+   */
+  @Test
+  public void testLocate() throws IOException {
+    AACMappings mappings = new AACMappings(configFile(TEST_CONFIG + ">a apricot\n"));
+    assertEquals(List.of(new VocabularyItem("one", "a", "apple"),
+        new VocabularyItem("three", "a", "apricot")),
+        mappings.locate("a"), "one image in two categories");
+    assertTrue(mappings.locate("z").isEmpty(), "no such image");
+    assertFalse(mappings.hasImage("g"), "items are not on the home page");
+
+    assertEquals(new VocabularyItem("two", "g", "gloves"), mappings.jumpTo("g"), "jump");
+    assertEquals("clothes", mappings.getCategory(), "moved to the item's category");
+    assertTrue(mappings.hasImage("g"), "item is now on the page");
+    assertFalse(mappings.hasImage("a"), "a is in other categories");
+    assertEquals("gloves", mappings.select("g"), "select after jumping");
+
+    mappings.addItem("g", "mittens");
+    assertEquals(List.of(new VocabularyItem("two", "g", "mittens")),
+        mappings.locate("g"), "changed by addItem");
+    mappings.reset();
+    mappings.select("three");
+    assertEquals("apricot", mappings.select("a"), "the item in the current category");
+  } // testLocate()
+
+  /**
+   * Test that the JMX metrics count loads, selects, hasImage and saves.
+   *
+   * @throws Exception
+   *   If an IO or JMX operation fails.
+   */
+  @Test
+  public void testMetrics() throws Exception {
+    AACMappings mappings = new AACMappings(configFile(TEST_CONFIG));
+    AACMetrics.register(mappings);
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(AACMetrics.NAME);
+    server.invoke(name, "reset", null, null);
+    assertEquals(3, server.getAttribute(name, "CategoryCount"), "categories");
+    assertEquals(9, server.getAttribute(name, "ItemCount"), "items");
+
+    mappings.select("two");
+    mappings.select("d");
+    try {
+      mappings.select("a");
+      fail("a is not in clothes");
+    } catch (NoSuchElementException e) {
+      // expected
+    } // try/catch
+    mappings.hasImage("e");
+    mappings.hasImage("z");
+    assertEquals(3L, server.getAttribute(name, "SelectCount"), "selects");
+    assertEquals(1L, server.getAttribute(name, "SelectMisses"), "select misses");
+    assertEquals(2L, server.getAttribute(name, "HasImageCount"), "hasImage calls");
+    assertEquals(1L, server.getAttribute(name, "HasImageMisses"), "hasImage misses");
+
+    String saved = tempDir.resolve("metrics.txt").toString();
+    mappings.writeToFile(saved);
+    assertEquals(1L, server.getAttribute(name, "SaveCount"), "saves");
+    assertEquals(new File(saved).length(), server.getAttribute(name, "LastSaveBytes"), "size");
+
+    assertEquals(false, server.getAttribute(name, "Speaking"), "not speaking");
+    AACMetrics.speechStarted();
+    assertEquals(true, server.getAttribute(name, "Speaking"), "speaking");
+    AACMetrics.speechDone();
+    assertEquals(false, server.getAttribute(name, "Speaking"), "done speaking");
+  } // testMetrics()
+
+  /**
+   * Test that selections record flight recorder events, however they
+   * are made, including ones that fail.
+   *
+   * @throws Exception
+   *   If recording fails.
+   */
+  @Test
+  public void testSelectEvents() throws Exception {
+    AACMappings mappings = new AACMappings(configFile(TEST_CONFIG));
+    Path file = tempDir.resolve("select.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(AACEvents.PREFIX + "Select");
+      recording.start();
+      mappings.select("two");
+      mappings.select("d");
+      mappings.selectItem("one", "a");
+      try {
+        mappings.select("z");
+        fail("selected a missing image");
+      } catch (NoSuchElementException e) {
+        // Expected
+      } // try/catch
+      recording.stop();
+      recording.dump(file);
+    } // try
+    List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+    events.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+    assertEquals(4, events.size(), "one event per select");
+    assertEquals("two", events.get(0).getString("image"), "category");
+    assertEquals("", events.get(0).getString("category"), "from the home page");
+    assertEquals("d", events.get(1).getString("image"), "item");
+    assertEquals("one", events.get(2).getString("category"), "selectItem");
+    assertFalse(events.get(3).getBoolean("found"), "missing image");
+    assertTrue(events.get(1).getBoolean("found"), "found image");
+  } // testSelectEvents()
+} // class TestAACMappings
@@ -0,0 +1,176 @@
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import edu.grinnell.csc207.util.AssociativeArray;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Allocation budgets for the hot read paths. Each path is run until the
+ * JIT has compiled it, then run many more times while the bytes this
+ * thread allocates are counted. A path fails if it allocates more than
+ * its budget per call, so a change that adds garbage to a select or a
+ * lookup (an exception on a miss, a string built for a key) is caught
+ * before it ships.
+ *
+ * @author Princess Alexander
+ */
+public class TestAllocation {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** Calls made before counting, so the JIT has compiled the path. */
+  static final int WARMUP = 50_000;
+
+  /** Calls counted. */
+  static final int ITERATIONS = 100_000;
+
+  /** Bytes allowed in total for noise in the count itself. */
+  static final long SLACK = 1024;
+
+  /** The bytes each call of a read path may allocate. */
+  static final long READ_BUDGET = 0;
+
+  /** A small board. */
+  static final String CONFIG =
+      """
+      one fruit
+      >a apple
+      >b banana
+      >c cherry
+      two clothes
+      >d dress
+      >e extra ear rings
+      """;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** Somewhere for results to go, so the calls are not optimized away. */
+  static volatile Object sink;
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Count the bytes a call allocates, on average, after warming it up.
+   */
+  static double bytesPerCall(Runnable call) {
+    assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+        "allocation counts are not available");
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported(), "allocation counts are not available");
+    threads.setThreadAllocatedMemoryEnabled(true);
+    long id = Thread.currentThread().getId();
+    for (int i = 0; i < WARMUP; i++) {
+      call.run();
+    } // for
+    long before = threads.getThreadAllocatedBytes(id);
+    for (int i = 0; i < ITERATIONS; i++) {
+      call.run();
+    } // for
+    long allocated = threads.getThreadAllocatedBytes(id) - before;
+    return Math.max(0, allocated - SLACK) / (double) ITERATIONS;
+  } // bytesPerCall(Runnable)
+
+  /**
+   * Check that a call stays within its budget.
+   */
+  static void assertBudget(String name, long budget, Runnable call) {
+    double bytes = bytesPerCall(call);
+    assertTrue(bytes <= budget,
+        name + " allocates " + bytes + " bytes per call; its budget is " + budget);
+  } // assertBudget(String, long, Runnable)
+
+  /**
+   * Load the small board.
+   */
+  static AACMappings mappings(Path dir) throws IOException {
+    Path file = dir.resolve("board.txt");
+    Files.writeString(file, CONFIG);
+    return new AACMappings(file.toString());
+  } // mappings(Path)
+
+  /**
+   * Make an associative array of a few strings.
+   */
+  static AssociativeArray<String, String> array() throws Exception {
+    AssociativeArray<String, String> array = new AssociativeArray<String, String>();
+    for (String key : new String[] {"a", "b", "c", "d", "e"}) {
+      array.set(key, key.toUpperCase());
+    } // for
+    return array;
+  } // array()
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Does selecting an item (and counting its use) allocate nothing?
+   */
+  @Test
+  public void testSelectItem(@TempDir Path dir) throws IOException {
+    AACMappings mappings = mappings(dir);
+    mappings.select("one");
+    assertBudget("select (item)", READ_BUDGET, () -> sink = mappings.select("b"));
+  } // testSelectItem(Path)
+
+  /**
+   * Does moving into a category and back allocate nothing?
+   */
+  @Test
+  public void testSelectCategory(@TempDir Path dir) throws IOException {
+    AACMappings mappings = mappings(dir);
+    assertBudget("select (category)", READ_BUDGET, () -> {
+      sink = mappings.select("two");
+      mappings.reset();
+    });
+  } // testSelectCategory(Path)
+
+  /**
+   * Does hasImage allocate nothing, found or not?
+   */
+  @Test
+  public void testHasImage(@TempDir Path dir) throws IOException {
+    AACMappings mappings = mappings(dir);
+    assertBudget("hasImage (home, hit)", READ_BUDGET, () -> sink = mappings.hasImage("one"));
+    mappings.select("two");
+    assertBudget("hasImage (hit)", READ_BUDGET, () -> sink = mappings.hasImage("e"));
+    assertBudget("hasImage (miss)", READ_BUDGET, () -> sink = mappings.hasImage("a"));
+  } // testHasImage(Path)
+
+  /**
+   * Does getting a key that is there allocate nothing?
+   */
+  @Test
+  public void testGet() throws Exception {
+    AssociativeArray<String, String> array = array();
+    assertBudget("AssociativeArray.get (hit)", READ_BUDGET, () -> {
+      try {
+        sink = array.get("d");
+      } catch (Exception e) {
+        throw new AssertionError(e);
+      } // try/catch
+    });
+  } // testGet()
+
+  /**
+   * Does looking for a key allocate nothing, even when it is missing?
+   */
+  @Test
+  public void testHasKey() throws Exception {
+    AssociativeArray<String, String> array = array();
+    assertBudget("AssociativeArray.hasKey (hit)", READ_BUDGET, () -> sink = array.hasKey("c"));
+    assertBudget("AssociativeArray.hasKey (miss)", READ_BUDGET, () -> sink = array.hasKey("z"));
+    assertBudget("AssociativeArray.hasKey (null)", READ_BUDGET, () -> sink = array.hasKey(null));
+  } // testHasKey()
+} // class TestAllocation
@@ -0,0 +1,210 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.grinnell.csc207.experiments.BoardLoadClient;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of BoardServer, over loopback.
+ *
+ * @author Princess Alexander
+ */
+public class TestBoardServer {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** A small board, with a real image (the tests run from the project). */
+  static final String CONFIG =
+      """
+      one fruit
+      >img/food/icons8-apple-96.png apple
+      >b banana
+      >c "cherry"
+      two clothes
+      >d dress
+      """;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The server under test. */
+  BoardServer server;
+
+  /** A client. */
+  HttpClient client = HttpClient.newHttpClient();
+
+  // +-------+-------------------------------------------------------
+  // | Setup |
+  // +-------+
+
+  /**
+   * Start a server on a free port.
+   */
+  @BeforeEach
+  void start(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("board.txt");
+    Files.writeString(file, CONFIG);
+    this.server = new BoardServer(new AACMappings(file.toString()),
+        new InetSocketAddress("127.0.0.1", 0));
+    this.server.start();
+  } // start(Path)
+
+  /**
+   * Stop the server.
+   */
+  @AfterEach
+  void stop() {
+    this.server.stop();
+  } // stop()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Make a request for a path.
+   */
+  HttpRequest.Builder request(String path) {
+    return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + this.server.getPort() + path));
+  } // request(String)
+
+  /**
+   * Send a request.
+   */
+  HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+    return this.client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  } // send(HttpRequest.Builder)
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Are the categories listed, and not sent again when unchanged?
+   */
+  @Test
+  public void testCategories() throws Exception {
+    HttpResponse<String> response = send(request("/categories"));
+    assertEquals(200, response.statusCode());
+    assertEquals("{\"categories\":[{\"image\":\"one\",\"name\":\"fruit\"},"
+        + "{\"image\":\"two\",\"name\":\"clothes\"}]}", response.body());
+    String etag = response.headers().firstValue("ETag").orElseThrow();
+    HttpResponse<String> again = send(request("/categories").header("If-None-Match", etag));
+    assertEquals(304, again.statusCode());
+    assertEquals("", again.body());
+  } // testCategories()
+
+  /**
+   * Are pages sliced, and their text quoted?
+   */
+  @Test
+  public void testPage() throws Exception {
+    HttpResponse<String> response = send(request("/page?category=one&offset=1&limit=5"));
+    assertEquals(200, response.statusCode());
+    assertEquals("{\"category\":\"one\",\"name\":\"fruit\",\"total\":3,\"offset\":1,\"items\":["
+        + "{\"image\":\"b\",\"text\":\"banana\"},{\"image\":\"c\",\"text\":\"\\\"cherry\\\"\"}]}",
+        response.body());
+    assertEquals(404, send(request("/page?category=three")).statusCode());
+    assertEquals(400, send(request("/page")).statusCode());
+    assertEquals(400, send(request("/page?category=one&offset=-1")).statusCode());
+  } // testPage()
+
+  /**
+   * Does selecting return the text, and only by POST?
+   */
+  @Test
+  public void testSelect() throws Exception {
+    HttpResponse<String> response =
+        send(request("/select?category=two&image=d").POST(HttpRequest.BodyPublishers.noBody()));
+    assertEquals(200, response.statusCode());
+    assertEquals("{\"text\":\"dress\"}", response.body());
+    assertEquals(404, send(request("/select?category=two&image=b")
+        .POST(HttpRequest.BodyPublishers.noBody())).statusCode());
+    assertEquals(405, send(request("/select?category=two&image=d")).statusCode());
+  } // testSelect()
+
+  /**
+   * Does adding an item change the page and its ETag?
+   */
+  @Test
+  public void testAddItem() throws Exception {
+    String etag = send(request("/page?category=two")).headers().firstValue("ETag").orElseThrow();
+    HttpResponse<String> added = send(request("/items?category=two&image=img/e.png")
+        .POST(HttpRequest.BodyPublishers.ofString("ear\nrings\t")));
+    assertEquals(200, added.statusCode());
+    HttpResponse<String> page = send(request("/page?category=two").header("If-None-Match", etag));
+    assertEquals(200, page.statusCode());
+    assertTrue(page.body().contains("{\"image\":\"img/e.png\",\"text\":\"ear rings\"}"),
+        page.body());
+    assertNotEquals(etag, page.headers().firstValue("ETag").orElseThrow());
+  } // testAddItem()
+
+  /**
+   * Are images that are not image files, or that would not fit in the
+   * mappings file, refused?
+   */
+  @Test
+  public void testAddBadItem() throws Exception {
+    for (String image : new String[] {"../secret.png", "e%20f.png", "e%0Af.png", "AACMappings.txt",
+        ".git/config", "src/BoardServer.java", "/etc/passwd"}) {
+      assertEquals(400, send(request("/items?category=two&image=" + image)
+          .POST(HttpRequest.BodyPublishers.ofString("x"))).statusCode(), image);
+      assertEquals(404, send(request("/images/" + image.replace("%20", "_"))).statusCode(),
+          image);
+    } // for
+  } // testAddBadItem()
+
+  /**
+   * Are images on the board served and cached, and nothing else?
+   */
+  @Test
+  public void testImages() throws Exception {
+    HttpResponse<String> response = send(request("/images/img/food/icons8-apple-96.png"));
+    assertEquals(200, response.statusCode());
+    assertEquals("image/png", response.headers().firstValue("Content-Type").orElseThrow());
+    String etag = response.headers().firstValue("ETag").orElseThrow();
+    assertEquals(304, send(request("/images/img/food/icons8-apple-96.png")
+        .header("If-None-Match", etag)).statusCode());
+    // On disk, but not on the board.
+    assertEquals(404, send(request("/images/img/food/icons8-cookies-96.png")).statusCode());
+    // On the board, but not on disk.
+    assertEquals(404, send(request("/images/b")).statusCode());
+    assertTrue(BoardServer.isImage(Files.readAllBytes(Path.of("img/food/icons8-apple-96.png"))));
+    assertFalse(BoardServer.isImage(Files.readAllBytes(Path.of("AACMappings.txt"))));
+  } // testImages()
+
+  /**
+   * Does the load client run without failures on the standard board
+   * (whose images are all there)?
+   */
+  @Test
+  public void testLoadClient() throws IOException {
+    BoardServer standard = new BoardServer(new AACMappings("AACMappings.txt"),
+        new InetSocketAddress("127.0.0.1", 0));
+    standard.start();
+    try {
+      BoardLoadClient load = new BoardLoadClient(
+          URI.create("http://127.0.0.1:" + standard.getPort() + "/"), 2);
+      long requests = load.run(20, 0.5, 207);
+      assertTrue(requests > 0, "made requests");
+      assertEquals(0, load.failures(), "failures");
+    } finally {
+      standard.stop();
+    } // try/finally
+  } // testLoadClient()
+} // class TestBoardServer
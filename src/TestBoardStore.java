@@ -0,0 +1,134 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of BoardStore.
+ *
+ * @author Princess Alexander
+ */
+public class TestBoardStore {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The shared board. */
+  static final String BASE =
+      """
+      one fruit
+      >a apple
+      >b banana
+      >c cherry
+      two clothes
+      >d dress
+      >e extra ear rings
+      """;
+
+  /** Plenty of memory. */
+  static final long PLENTY = 1L << 30;
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Make a store over the shared board.
+   */
+  static BoardStore store(Path dir, long maxBytes) throws IOException {
+    Path base = dir.resolve("base.txt");
+    Files.writeString(base, BASE);
+    return new BoardStore(base.toString(), dir.resolve("tenants"), maxBytes);
+  } // store(Path, long)
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Do boards start as the base, and do users' changes stay their own?
+   */
+  @Test
+  public void testOverlays(@TempDir Path dir) throws IOException {
+    BoardStore store = store(dir, PLENTY);
+    assertArrayEquals(new String[] {"one", "two"}, store.getCategoryImageLocs("ann"));
+    assertEquals("banana", store.getText("ann", "one", "b"));
+
+    store.addItem("ann", "one", "b", "blueberry");
+    store.addItem("ann", "one", "f", "fig");
+    store.addCategory("ann", "three", "drinks");
+    store.addItem("ann", "three", "w", "water");
+    assertEquals("blueberry", store.getText("ann", "one", "b"));
+    assertArrayEquals(new String[] {"a", "b", "c", "f"}, store.getImageLocs("ann", "one"));
+    assertArrayEquals(new String[] {"one", "two", "three"}, store.getCategoryImageLocs("ann"));
+    assertEquals("drinks", store.getCategoryName("ann", "three"));
+
+    assertEquals("banana", store.getText("bob", "one", "b"));
+    assertArrayEquals(new String[] {"a", "b", "c"}, store.getImageLocs("bob", "one"));
+    assertArrayEquals(new String[] {"one", "two"}, store.getCategoryImageLocs("bob"));
+    assertThrows(NoSuchElementException.class, () -> store.getText("bob", "one", "f"));
+    assertThrows(NoSuchElementException.class, () -> store.addItem("bob", "three", "w", "x"));
+  } // testOverlays(Path)
+
+  /**
+   * Does memory grow with the changes, not with the users?
+   */
+  @Test
+  public void testCopyOnWrite(@TempDir Path dir) throws IOException {
+    BoardStore store = store(dir, PLENTY);
+    for (int i = 0; i < 1000; i++) {
+      store.getText("user" + i, "one", "a");
+    } // for
+    assertEquals(1000 * BoardStore.TENANT_BYTES, store.getResidentBytes(), "no changes");
+    store.addItem("user0", "two", "d", "gown");
+    long oneCategory = store.getResidentBytes() - 1000 * BoardStore.TENANT_BYTES;
+    assertTrue(oneCategory < BoardStore.CATEGORY_BYTES + 4 * BoardStore.ITEM_BYTES,
+        "only the changed category is copied: " + oneCategory);
+  } // testCopyOnWrite(Path)
+
+  /**
+   * Are the least recently used users dropped to disk under the limit,
+   * and are their changes back when they return?
+   */
+  @Test
+  public void testEviction(@TempDir Path dir) throws IOException {
+    BoardStore store = store(dir, 20 * BoardStore.TENANT_BYTES);
+    for (int i = 0; i < 100; i++) {
+      store.addItem("user" + i, "one", "a", "apple " + i);
+      assertTrue(store.getResidentBytes() <= 20 * BoardStore.TENANT_BYTES
+          + BoardStore.CATEGORY_BYTES + 4 * BoardStore.ITEM_BYTES, "within the limit");
+    } // for
+    assertTrue(store.getEvictions() > 0, "evicted");
+    assertTrue(store.getResidentTenants() < 100, "not everyone is in memory");
+    for (int i = 0; i < 100; i++) {
+      assertEquals("apple " + i, store.getText("user" + i, "one", "a"), "user" + i);
+      assertEquals("banana", store.getText("user" + i, "one", "b"));
+    } // for
+    assertTrue(store.getReloads() > 0, "reloaded");
+  } // testEviction(Path)
+
+  /**
+   * Do changes survive a restart, and does a whole board write out?
+   */
+  @Test
+  public void testFlush(@TempDir Path dir) throws IOException {
+    BoardStore store = store(dir, PLENTY);
+    store.addItem("a/b", "two", "g", "gloves");
+    store.flush();
+    BoardStore again = store(dir, PLENTY);
+    assertEquals("gloves", again.getText("a/b", "two", "g"));
+
+    String board = dir.resolve("board.txt").toString();
+    again.writeToFile("a/b", board);
+    AACMappings mappings = new AACMappings(board);
+    assertEquals("gloves", mappings.getText("two", "g"));
+    assertEquals("apple", mappings.getText("one", "a"));
+  } // testFlush(Path)
+} // class TestBoardStore
@@ -0,0 +1,65 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.grinnell.csc207.util.ByteRingBuffer;
+import java.io.ByteArrayOutputStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of ByteRingBuffer.
+ *
+ * @author Princess Alexander
+ */
+public class TestByteRingBuffer {
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Everything written comes out in order, even when the writer has to
+   * wrap around and wait for the reader many times.
+   */
+  @Test
+  void testRoundTrip() throws Exception {
+    ByteRingBuffer ring = new ByteRingBuffer(7);
+    byte[] data = new byte[10000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    } // for
+    Thread writer = new Thread(() -> {
+      try {
+        for (int i = 0; i < data.length; i += 13) {
+          ring.write(data, i, Math.min(13, data.length - i));
+        } // for
+      } catch (InterruptedException e) {
+        return;
+      } // try/catch
+      ring.close();
+    });
+    writer.start();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] chunk = new byte[5];
+    int count;
+    while ((count = ring.read(chunk, 0, chunk.length)) >= 0) {
+      out.write(chunk, 0, count);
+    } // while
+    writer.join();
+    assertArrayEquals(data, out.toByteArray(), "same bytes");
+  } // testRoundTrip()
+
+  /**
+   * Closing lets the reader drain what is left, then reports the end,
+   * and refuses further writes.
+   */
+  @Test
+  void testClose() throws Exception {
+    ByteRingBuffer ring = new ByteRingBuffer(4);
+    ring.write(new byte[] {1, 2, 3}, 0, 3);
+    ring.close();
+    byte[] chunk = new byte[4];
+    assertEquals(3, ring.read(chunk, 0, 4), "what was left");
+    assertEquals(-1, ring.read(chunk, 0, 4), "then the end");
+    assertThrows(IllegalStateException.class, () -> ring.write(chunk, 0, 1));
+  } // testClose()
+} // class TestByteRingBuffer
@@ -0,0 +1,76 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.grinnell.csc207.experiments.ComplexityFit;
+import edu.grinnell.csc207.experiments.ComplexityFit.Growth;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of ComplexityFit.
+ *
+ * @author Princess Alexander
+ */
+public class TestComplexityFit {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The sizes AAExperiments measures. */
+  static final double[] SIZES = {16, 64, 256, 1024, 4096, 16384};
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Make times that grow in a given way, with up to 10% noise.
+   */
+  static double[] times(Growth growth, double a, double b, long seed) {
+    Random random = new Random(seed);
+    double[] times = new double[SIZES.length];
+    for (int i = 0; i < SIZES.length; i++) {
+      double exact = a + b * growth.term(SIZES[i]);
+      times[i] = exact * (0.95 + 0.1 * random.nextDouble());
+    } // for
+    return times;
+  } // times(Growth, double, double, long)
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Does each kind of growth fit itself, despite noise?
+   */
+  @Test
+  public void testGrowths() {
+    for (long seed = 0; seed < 20; seed++) {
+      assertEquals(Growth.CONSTANT,
+          new ComplexityFit(SIZES, times(Growth.CONSTANT, 40, 0, seed)).growth(), "constant");
+      assertEquals(Growth.LOGARITHMIC,
+          new ComplexityFit(SIZES, times(Growth.LOGARITHMIC, 10, 8, seed)).growth(), "log n");
+      assertEquals(Growth.LINEAR,
+          new ComplexityFit(SIZES, times(Growth.LINEAR, 20, 0.5, seed)).growth(), "linear");
+    } // for
+  } // testGrowths()
+
+  /**
+   * Is a small linear term (a fast scan) still found?
+   */
+  @Test
+  public void testSmallLinear() {
+    ComplexityFit fit = new ComplexityFit(SIZES, times(Growth.LINEAR, 30, 0.01, 207));
+    assertEquals(Growth.LINEAR, fit.growth(), "linear");
+    assertEquals(0.01, fit.slope(Growth.LINEAR), 0.002, "slope");
+  } // testSmallLinear()
+
+  /**
+   * Is growth that is small next to the time ignored?
+   */
+  @Test
+  public void testNegligibleGrowth() {
+    // 40 ns plus 0.1 ns per doubling is 41.2 ns at the largest size.
+    ComplexityFit fit = new ComplexityFit(SIZES, times(Growth.LOGARITHMIC, 40, 0.1, 207));
+    assertEquals(Growth.CONSTANT, fit.growth(), "too small to count");
+  } // testNegligibleGrowth()
+} // class TestComplexityFit
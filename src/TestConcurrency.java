@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.grinnell.csc207.experiments.Linearizability;
+import edu.grinnell.csc207.experiments.Linearizability.Operation;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of the linearizability checker and of the structures that are
+ * meant to be safe to use from several threads.
+ *
+ * @author Princess Alexander
+ */
+public class TestConcurrency {
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Make an operation on key 0.
+   */
+  static Operation op(int thread, int kind, int value, long called, long returned) {
+    return new Operation(thread, kind, 0, value, called, returned);
+  } // op(int, int, int, long, long)
+
+  /**
+   * Run a target from several threads and check that nothing failed.
+   */
+  static void assertLinearizable(ConcurrencyStress.Target target) throws Exception {
+    ConcurrencyStress.Outcome outcome = ConcurrencyStress.run(target, 4, 5000, 207);
+    assertNull(outcome.error, "no exceptions");
+    assertNull(outcome.violation, "linearizable");
+    assertTrue(outcome.ops == 20000, "every operation ran");
+  } // assertLinearizable(Target)
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Are overlapping operations allowed to take effect in either order?
+   */
+  @Test
+  public void testOverlapping() {
+    // The get overlaps both puts, so it may see either value.
+    List<Operation> history = List.of(
+        op(0, Linearizability.PUT, 1, 0, 10),
+        op(1, Linearizability.PUT, 2, 5, 15),
+        op(2, Linearizability.GET, 1, 12, 20),
+        op(2, Linearizability.HAS, 1, 21, 22));
+    assertNull(Linearizability.check(history, (k) -> Linearizability.ABSENT), "put 2 then 1");
+  } // testOverlapping()
+
+  /**
+   * Is a value seen after it was overwritten caught?
+   */
+  @Test
+  public void testStaleRead() {
+    List<Operation> history = List.of(
+        op(0, Linearizability.PUT, 1, 0, 10),
+        op(0, Linearizability.PUT, 2, 11, 20),
+        op(1, Linearizability.GET, 1, 21, 30));
+    assertNotNull(Linearizability.check(history, (k) -> Linearizability.ABSENT), "stale");
+    List<Operation> removed = List.of(
+        op(0, Linearizability.REMOVE, 0, 0, 10),
+        op(1, Linearizability.HAS, 1, 11, 20));
+    assertNotNull(Linearizability.check(removed, (k) -> 5), "found after removal");
+  } // testStaleRead()
+
+  /**
+   * Is a synchronized AssociativeArray linearizable?
+   */
+  @Test
+  public void testSynchronizedArray() throws Exception {
+    assertLinearizable(ConcurrencyStress.synchronizedArray());
+  } // testSynchronizedArray()
+
+  /**
+   * Is AACMappings linearizable?
+   */
+  @Test
+  public void testMappings(@TempDir Path dir) throws Exception {
+    assertLinearizable(ConcurrencyStress.mappings(dir));
+    try (Stream<Path> files = Files.list(dir)) {
+      assertTrue(files.findAny().isEmpty(), "mappings file removed");
+    } // try
+  } // testMappings(Path)
+
+  /**
+   * Is AACMappings linearizable when one thread navigates with reset
+   * and select while others add and select items?
+   */
+  @Test
+  public void testNavigation(@TempDir Path dir) throws Exception {
+    assertLinearizable(ConcurrencyStress.mappings(dir, true));
+  } // testNavigation(Path)
+} // class TestConcurrency
@@ -0,0 +1,122 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.grinnell.csc207.util.FuzzyIndex;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of FuzzyIndex.
+ *
+ * @author Princess Alexander
+ */
+public class TestFuzzyIndex {
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Make a random text of two or three lower-case words.
+   */
+  static String randomText(Random random) {
+    StringBuilder sb = new StringBuilder();
+    int words = 2 + random.nextInt(2);
+    for (int w = 0; w < words; w++) {
+      if (w > 0) {
+        sb.append(' ');
+      } // if
+      int length = 3 + random.nextInt(5);
+      for (int i = 0; i < length; i++) {
+        sb.append((char) ('a' + random.nextInt(26)));
+      } // for
+    } // for
+    return sb.toString();
+  } // randomText(Random)
+
+  /**
+   * Find the fewest edits that turn a query into some substring of a
+   * text, the slow way.
+   */
+  static int distance(String query, String text) {
+    int[] row = new int[query.length() + 1];
+    for (int i = 0; i <= query.length(); i++) {
+      row[i] = i;
+    } // for
+    int best = row[query.length()];
+    for (int j = 0; j < text.length(); j++) {
+      int[] next = new int[query.length() + 1];
+      for (int i = 1; i <= query.length(); i++) {
+        int cost = row[i - 1] + ((query.charAt(i - 1) == text.charAt(j)) ? 0 : 1);
+        next[i] = Math.min(cost, Math.min(row[i] + 1, next[i - 1] + 1));
+      } // for
+      best = Math.min(best, next[query.length()]);
+      row = next;
+    } // for
+    return best;
+  } // distance(String, String)
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Searching finds exactly the texts within the distance, for short
+   * and long queries and small and large distances.
+   */
+  @Test
+  void testSameAsScanning() {
+    Random random = new Random(207);
+    FuzzyIndex<Integer> index = new FuzzyIndex<Integer>();
+    List<String> texts = new ArrayList<String>();
+    for (int i = 0; i < 2000; i++) {
+      String text = FuzzyIndex.normalize(randomText(random));
+      texts.add(text);
+      index.add(text, i);
+    } // for
+    for (int trial = 0; trial < 200; trial++) {
+      String text = texts.get(random.nextInt(texts.size()));
+      int start = random.nextInt(text.length() - 2);
+      String query = text.substring(start, Math.min(text.length(),
+          start + 3 + random.nextInt(10)));
+      int k = random.nextInt(4);
+      List<Integer> expected = new ArrayList<Integer>();
+      for (int i = 0; i < texts.size(); i++) {
+        if (distance(query, texts.get(i)) <= k) {
+          expected.add(i);
+        } // if
+      } // for
+      List<Integer> found = new ArrayList<Integer>(index.search(query, k, texts.size()));
+      found.sort(null);
+      assertEquals(expected, found, "\"" + query + "\" within " + k);
+    } // for
+  } // testSameAsScanning()
+
+  /**
+   * Short queries, whose trigrams a match need not share, are still
+   * compared with only a small part of a large index.
+   */
+  @Test
+  void testShortQueriesCheckFew() {
+    Random random = new Random(207);
+    FuzzyIndex<Integer> index = new FuzzyIndex<Integer>();
+    int size = 100_000;
+    for (int i = 0; i < size; i++) {
+      index.add(randomText(random), i);
+    } // for
+    index.add("flip flops", -1);
+    index.add("t shirt", -2);
+    index.add("baseball cap", -3);
+    index.add("cat", -4);
+
+    assertEquals(-1, index.search("flipflop", 2, 1).get(0), "flipflop");
+    assertTrue(index.lastChecked() < size / 20, "flipflop checked " + index.lastChecked());
+    assertEquals(-2, index.search("tshirt", 2, 1).get(0), "tshirt");
+    assertTrue(index.lastChecked() < size / 10, "tshirt checked " + index.lastChecked());
+    assertEquals(-3, index.search("ballcap", 2, 1).get(0), "ballcap");
+    assertTrue(index.lastChecked() < size / 10, "ballcap checked " + index.lastChecked());
+    assertTrue(index.search("cut", 1, size).contains(-4), "cut");
+    assertTrue(index.lastChecked() < size / 2, "cut checked " + index.lastChecked());
+  } // testShortQueriesCheckFew()
+} // class TestFuzzyIndex
@@ -0,0 +1,90 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of ImageAtlas.
+ *
+ * @author Princess Alexander
+ */
+public class TestImageAtlas {
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Do packed images read back byte for byte, skipping missing ones?
+   */
+  @Test
+  void testRoundTrip(@TempDir Path dir) throws IOException {
+    Path apple = dir.resolve("apple.png");
+    Path pear = dir.resolve("pear.png");
+    Files.copy(Path.of("img/food/icons8-apple-96.png"), apple);
+    Files.write(pear, new byte[] {1, 2, 3});
+    Path file = ImageAtlas.atlasFor(apple.toString());
+    assertEquals(dir + ImageAtlas.SUFFIX, file.toString());
+
+    assertEquals(2, ImageAtlas.write(file, List.of(apple.toString(), pear.toString(),
+        dir.resolve("missing.png").toString())));
+    ImageAtlas atlas = new ImageAtlas(file);
+    assertEquals(2, atlas.size());
+    assertArrayEquals(Files.readAllBytes(apple), atlas.getBytes(apple.toString()));
+    assertArrayEquals(new byte[] {1, 2, 3}, atlas.getBytes(pear.toString()));
+    assertEquals(96, atlas.getIcon(apple.toString()).getIconWidth());
+    assertFalse(atlas.hasImage(dir.resolve("missing.png").toString()));
+    assertNull(atlas.getBytes("banana.png"));
+  } // testRoundTrip(Path)
+
+  /**
+   * Are images that changed after packing left out?
+   */
+  @Test
+  void testStale(@TempDir Path dir) throws IOException {
+    Path apple = dir.resolve("apple.png");
+    Path pear = dir.resolve("pear.png");
+    Path plum = dir.resolve("plum.png");
+    Files.write(apple, new byte[] {1});
+    Files.write(pear, new byte[] {2});
+    Files.write(plum, new byte[] {3});
+    Path file = ImageAtlas.atlasFor(apple.toString());
+    ImageAtlas.write(file, List.of(apple.toString(), pear.toString(), plum.toString()));
+
+    // Same size, newer time; new size, same time; gone.
+    Files.setLastModifiedTime(apple,
+        FileTime.fromMillis(Files.getLastModifiedTime(apple).toMillis() + 2000));
+    FileTime time = Files.getLastModifiedTime(pear);
+    Files.write(pear, new byte[] {2, 2});
+    Files.setLastModifiedTime(pear, time);
+    Files.delete(plum);
+
+    ImageAtlas atlas = new ImageAtlas(file);
+    assertEquals(0, atlas.size());
+    assertFalse(atlas.hasImage(apple.toString()));
+    assertNull(atlas.getBytes(pear.toString()));
+  } // testStale(Path)
+
+  /**
+   * Are files that are not atlases refused?
+   */
+  @Test
+  void testNotAtlas(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("food.atlas");
+    Files.write(file, new byte[] {0x41, 0x41, 0x43, 0x41, 0, 0, 0, 1, 0, 0, 0, 0});
+    assertThrows(IOException.class, () -> new ImageAtlas(file), "old version");
+    Files.writeString(file, "not an atlas");
+    assertThrows(IOException.class, () -> new ImageAtlas(file));
+    Files.write(file, new byte[] {0x41, 0x41, 0x43, 0x41, 0, 0, 0, 2, 0, 0, 0, 1});
+    assertThrows(IOException.class, () -> new ImageAtlas(file), "cut short");
+  } // testNotAtlas(Path)
+} // class TestImageAtlas
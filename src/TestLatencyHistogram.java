@@ -0,0 +1,72 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.grinnell.csc207.util.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of LatencyHistogram.
+ *
+ * @author Princess Alexander
+ */
+public class TestLatencyHistogram {
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * An empty histogram reports zeros.
+   */
+  @Test
+  void testEmpty() {
+    LatencyHistogram histogram = new LatencyHistogram("empty");
+    assertEquals(0, histogram.count(), "no values");
+    assertEquals(0, histogram.percentile(50), "no median");
+    assertEquals(0, histogram.max(), "no max");
+  } // testEmpty()
+
+  /**
+   * Small values are recorded exactly.
+   */
+  @Test
+  void testSmallValues() {
+    LatencyHistogram histogram = new LatencyHistogram("small");
+    for (int i = 1; i <= 10; i++) {
+      histogram.record(i);
+    } // for
+    assertEquals(10, histogram.count(), "ten values");
+    assertEquals(5, histogram.percentile(50), "median");
+    assertEquals(10, histogram.percentile(100), "100th percentile");
+    assertEquals(10, histogram.max(), "max");
+  } // testSmallValues()
+
+  /**
+   * Large values are recorded within the histogram's precision.
+   */
+  @Test
+  void testLargeValues() {
+    LatencyHistogram histogram = new LatencyHistogram("large");
+    for (long i = 1; i <= 1000; i++) {
+      histogram.record(i * 1_000_000L);
+    } // for
+    long p50 = histogram.percentile(50);
+    long p99 = histogram.percentile(99);
+    assertTrue(Math.abs(p50 - 500_000_000L) <= 500_000_000L / 16, "median near 500 ms: " + p50);
+    assertTrue(Math.abs(p99 - 990_000_000L) <= 990_000_000L / 16, "p99 near 990 ms: " + p99);
+    assertEquals(1_000_000_000L, histogram.max(), "exact max");
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE, histogram.percentile(100), "largest long");
+  } // testLargeValues()
+
+  /**
+   * Reset forgets everything.
+   */
+  @Test
+  void testReset() {
+    LatencyHistogram histogram = new LatencyHistogram("reset");
+    histogram.record(42);
+    histogram.reset();
+    assertEquals(0, histogram.count(), "no values after reset");
+    assertEquals(0, histogram.max(), "no max after reset");
+  } // testReset()
+} // class TestLatencyHistogram
@@ -0,0 +1,99 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.grinnell.csc207.util.NgramPredictor;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of NgramPredictor.
+ *
+ * @author Princess Alexander
+ */
+public class TestNgramPredictor {
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * A predictor that has seen nothing predicts nothing.
+   */
+  @Test
+  void testEmpty() {
+    NgramPredictor predictor = new NgramPredictor(10);
+    assertEquals(0, predictor.predict(new int[3]), "no predictions");
+  } // testEmpty()
+
+  /**
+   * What usually follows the last symbol comes first.
+   */
+  @Test
+  void testBigram() {
+    NgramPredictor predictor = new NgramPredictor(100);
+    // "I want pizza", "I want water", "I want pizza", "you want water"
+    int[][] sentences = {{1, 2, 3}, {1, 2, 4}, {1, 2, 3}, {5, 2, 4}};
+    for (int[] sentence : sentences) {
+      for (int word : sentence) {
+        predictor.observe(word);
+      } // for
+      predictor.endSequence();
+    } // for
+    int[] out = new int[2];
+    predictor.observe(1);
+    assertEquals(2, predictor.predict(out), "two predictions");
+    assertEquals(2, out[0], "want follows I");
+    predictor.observe(2);
+    predictor.predict(out);
+    assertEquals(3, out[0], "I want pizza (trigram)");
+    assertEquals(4, out[1], "then water");
+
+    predictor.endSequence();
+    predictor.observe(5);
+    predictor.observe(2);
+    predictor.predict(out);
+    assertEquals(4, out[0], "you want water (trigram beats bigram)");
+  } // testBigram()
+
+  /**
+   * Memory stays bounded and recent patterns are still predicted after
+   * the table has been pruned many times.
+   */
+  @Test
+  void testBounded() {
+    NgramPredictor predictor = new NgramPredictor(50);
+    for (int i = 0; i < 100000; i++) {
+      predictor.observe(i % 1000);
+    } // for
+    assertTrue(predictor.contexts() <= 50, "bounded");
+    for (int i = 0; i < 20; i++) {
+      predictor.observe(7);
+      predictor.observe(8);
+    } // for
+    int[] out = new int[1];
+    predictor.observe(7);
+    predictor.predict(out);
+    assertEquals(8, out[0], "recent pattern");
+  } // testBounded()
+
+  /**
+   * Predictions with a full model take well under a millisecond.
+   */
+  @Test
+  void testFast() {
+    NgramPredictor predictor = new NgramPredictor(1 << 16);
+    Random random = new Random(207);
+    for (int i = 0; i < 500000; i++) {
+      predictor.observe(random.nextInt(2000));
+    } // for
+    int[] out = new int[8];
+    for (int i = 0; i < 100000; i++) {
+      predictor.predict(out);
+    } // for
+    long start = System.nanoTime();
+    for (int i = 0; i < 1000; i++) {
+      predictor.predict(out);
+    } // for
+    long each = (System.nanoTime() - start) / 1000;
+    assertTrue(each < 1_000_000, "prediction took " + each + " ns");
+  } // testFast()
+} // class TestNgramPredictor
@@ -0,0 +1,55 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of PhraseStrip.
+ *
+ * @author Princess Alexander
+ */
+public class TestPhraseStrip {
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Are texts joined in order, skipping empty ones?
+   */
+  @Test
+  void testAdd() {
+    PhraseStrip phrase = new PhraseStrip();
+    assertTrue(phrase.isEmpty());
+    assertEquals("", phrase.getText());
+    phrase.add("I want");
+    phrase.add("");
+    phrase.add(null);
+    phrase.add("pizza");
+    assertFalse(phrase.isEmpty());
+    assertEquals(List.of("I want", "pizza"), phrase.getWords());
+    assertEquals("I want pizza", phrase.getText());
+  } // testAdd()
+
+  /**
+   * Do removeLast and clear take texts back off, and leave an empty
+   * strip alone?
+   */
+  @Test
+  void testRemove() {
+    PhraseStrip phrase = new PhraseStrip();
+    phrase.removeLast();
+    phrase.add("I want");
+    phrase.add("pizza");
+    phrase.removeLast();
+    assertEquals("I want", phrase.getText());
+    phrase.getWords().clear();
+    assertEquals(List.of("I want"), phrase.getWords(), "a copy");
+    phrase.add("water");
+    phrase.clear();
+    assertTrue(phrase.isEmpty());
+    phrase.removeLast();
+    assertTrue(phrase.isEmpty());
+  } // testRemove()
+} // class TestPhraseStrip
@@ -0,0 +1,105 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of SelectionPredictor's history file.
+ *
+ * @author Princess Alexander
+ */
+public class TestSelectionPredictor {
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Are selections written to the history and learned from on the next
+   * start?
+   */
+  @Test
+  void testHistory(@TempDir Path dir) throws IOException {
+    String file = dir.resolve("history.txt").toString();
+    SelectionPredictor first = new SelectionPredictor();
+    first.useHistory(file);
+    for (int i = 0; i < 3; i++) {
+      first.observe("food", "pizza");
+      first.observe("drinks", "water");
+      first.endSentence();
+    } // for
+    first.flush();
+    assertEquals(9, Files.readAllLines(Path.of(file)).size());
+
+    SelectionPredictor second = new SelectionPredictor();
+    second.useHistory(file);
+    second.observe("food", "pizza");
+    assertArrayEquals(new String[] {"drinks", "water"}, second.predict(1).get(0));
+  } // testHistory(Path)
+
+  /**
+   * Does the history stay bounded, both while running and when it is
+   * read back?
+   */
+  @Test
+  void testHistoryBounded(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("history.txt");
+    List<String> old = new ArrayList<String>();
+    for (int i = 0; i < 1000; i++) {
+      old.add(i + " food pizza");
+    } // for
+    Files.write(file, old);
+
+    SelectionPredictor predictor = new SelectionPredictor(10);
+    predictor.useHistory(file.toString());
+    assertEquals(old.subList(990, 1000), Files.readAllLines(file), "cut back on start");
+    for (int i = 0; i < 100; i++) {
+      predictor.observe("drinks", "water");
+      predictor.flush();
+      assertTrue(Files.readAllLines(file).size() < 20, "cut back while running");
+    } // for
+    assertEquals("drinks water", Files.readAllLines(file).get(0).split(" ", 2)[1]);
+  } // testHistoryBounded(Path)
+
+  /**
+   * Are damaged lines skipped, so the rest of the history is still
+   * learned from and new selections are still logged?
+   */
+  @Test
+  void testDamagedHistory(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("history.txt");
+    Files.write(file, List.of("1 food pizza", "2 drinks water", "", "x food pizza",
+        "3 food pizza", "4 drinks water", "5 food pi"));
+    SelectionPredictor predictor = new SelectionPredictor();
+    predictor.useHistory(file.toString());
+    predictor.observe("food", "pizza");
+    assertArrayEquals(new String[] {"drinks", "water"}, predictor.predict(1).get(0));
+    predictor.flush();
+    assertEquals(8, Files.readAllLines(file).size(), "still logging");
+  } // testDamagedHistory(Path)
+
+  /**
+   * Does closing write the selections still waiting, and stop logging?
+   */
+  @Test
+  void testClose(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("history.txt");
+    SelectionPredictor predictor = new SelectionPredictor();
+    predictor.useHistory(file.toString());
+    for (int i = 0; i < 100; i++) {
+      predictor.observe("food", "pizza");
+    } // for
+    predictor.close();
+    assertEquals(100, Files.readAllLines(file).size(), "written on close");
+    predictor.observe("drinks", "water");
+    predictor.flush();
+    predictor.close();
+    assertEquals(100, Files.readAllLines(file).size(), "not logged after close");
+  } // testClose(Path)
+} // class TestSelectionPredictor
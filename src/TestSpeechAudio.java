@@ -0,0 +1,70 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import javax.sound.sampled.AudioFormat;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of SpeechAudio's editing, which needs no sound device.
+ *
+ * @author Princess Alexander
+ */
+public class TestSpeechAudio {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** Mono 16-bit little-endian PCM, 1000 frames a second. */
+  static final AudioFormat MONO = new AudioFormat(1000, 16, 1, true, false);
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Make mono audio from samples.
+   */
+  static SpeechAudio audio(AudioFormat format, int... samples) {
+    byte[] pcm = new byte[samples.length * 2];
+    for (int i = 0; i < samples.length; i++) {
+      pcm[2 * i] = (byte) samples[i];
+      pcm[2 * i + 1] = (byte) (samples[i] >> 8);
+    } // for
+    return new SpeechAudio(format, pcm);
+  } // audio(AudioFormat, int...)
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Are quiet frames at either end dropped, and those in the middle
+   * kept?
+   */
+  @Test
+  void testTrimSilence() {
+    SpeechAudio trimmed = audio(MONO, 0, 5, -5, 1000, 3, -2000, 0, 10).trimSilence(100);
+    assertArrayEquals(audio(MONO, 1000, 3, -2000).getPcm(), trimmed.getPcm());
+    assertEquals(0, audio(MONO, 0, 50, -50).trimSilence(100).getPcm().length, "all quiet");
+    assertArrayEquals(audio(MONO, 500).getPcm(), audio(MONO, 500).trimSilence(100).getPcm());
+  } // testTrimSilence()
+
+  /**
+   * Are pieces trimmed and joined with pauses, and pieces that cannot be
+   * joined refused?
+   */
+  @Test
+  void testConcat() {
+    SpeechAudio joined = SpeechAudio.concat(List.of(audio(MONO, 0, 1000, 0),
+        audio(MONO, 2000, 0, 0), audio(MONO, 0, 0, -3000)), 2);
+    assertArrayEquals(audio(MONO, 1000, 0, 0, 2000, 0, 0, -3000).getPcm(), joined.getPcm());
+    assertEquals(MONO, joined.getFormat());
+    assertNull(SpeechAudio.concat(List.of(), 2), "nothing to join");
+    assertNull(SpeechAudio.concat(List.of(audio(MONO, 1000),
+        audio(new AudioFormat(2000, 16, 1, true, false), 1000)), 2), "different formats");
+    assertNull(SpeechAudio.concat(List.of(new SpeechAudio(
+        new AudioFormat(1000, 8, 1, true, false), new byte[] {1, 2})), 2), "not 16-bit");
+  } // testConcat()
+} // class TestSpeechAudio
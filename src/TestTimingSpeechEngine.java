@@ -0,0 +1,74 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of TimingSpeechEngine, and of choosing it as the silent engine.
+ *
+ * @author Princess Alexander
+ */
+public class TestTimingSpeechEngine {
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Does the engine count what it says, and start each utterance?
+   */
+  @Test
+  void testCounts() throws SpeechException {
+    TimingSpeechEngine engine = new TimingSpeechEngine();
+    assertEquals(0, engine.getUtterances());
+    assertNull(engine.getLastText());
+    AtomicInteger starts = new AtomicInteger();
+    engine.speak("I want", starts::incrementAndGet);
+    engine.speak("pizza", null);
+    assertEquals(1, starts.get());
+    assertEquals(2, engine.getUtterances());
+    assertEquals(11, engine.getCharacters());
+    assertEquals("pizza", engine.getLastText());
+    engine.close();
+  } // testCounts()
+
+  /**
+   * Does the engine take its time per character, and give up if
+   * interrupted?
+   */
+  @Test
+  void testTiming() throws SpeechException {
+    TimingSpeechEngine engine = new TimingSpeechEngine(2_000_000);
+    long start = System.nanoTime();
+    engine.speak("0123456789", null);
+    assertTrue(System.nanoTime() - start >= 20_000_000, "10 characters at 2 ms");
+    Thread.currentThread().interrupt();
+    try {
+      assertThrows(SpeechException.class, () -> engine.speak("pizza", null));
+      assertTrue(Thread.currentThread().isInterrupted(), "still interrupted");
+    } finally {
+      Thread.interrupted();
+    } // try/finally
+  } // testTiming()
+
+  /**
+   * Does -Daac.speech=none choose the silent engine?
+   */
+  @Test
+  void testChooseSilent() {
+    String old = System.getProperty("aac.speech");
+    System.setProperty("aac.speech", "none");
+    try {
+      assertInstanceOf(TimingSpeechEngine.class, AAC.startSpeech());
+    } finally {
+      if (old == null) {
+        System.clearProperty("aac.speech");
+      } else {
+        System.setProperty("aac.speech", old);
+      } // if/else
+    } // try/finally
+  } // testChooseSilent()
+} // class TestTimingSpeechEngine
@@ -0,0 +1,107 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import javax.sound.sampled.AudioFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of UtteranceCache, with a renderer that needs no voice.
+ *
+ * @author Princess Alexander
+ */
+public class TestUtteranceCache {
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Renders each text as one 16-bit sample per character, and counts
+   * what it renders.
+   */
+  static class FakeRenderer extends AudioRenderer {
+    /** How many texts have been rendered. */
+    int renders;
+
+    @Override
+    public String getVoiceName() {
+      return "fake";
+    } // getVoiceName()
+
+    @Override
+    public float getRate() {
+      return 150;
+    } // getRate()
+
+    @Override
+    public synchronized SpeechAudio render(String text) {
+      this.renders++;
+      return audio(text);
+    } // render(String)
+
+    @Override
+    public void close() {
+    } // close()
+  } // class FakeRenderer
+
+  /**
+   * The audio a FakeRenderer makes for a text.
+   */
+  static SpeechAudio audio(String text) {
+    byte[] pcm = new byte[2 * text.length()];
+    for (int i = 0; i < text.length(); i++) {
+      pcm[2 * i] = (byte) text.charAt(i);
+    } // for
+    return new SpeechAudio(new AudioFormat(8000, 16, 1, true, false), pcm);
+  } // audio(String)
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Do keys depend on the text, voice and rate, and only on them?
+   */
+  @Test
+  void testKey() {
+    String key = UtteranceCache.key("pizza", "kevin16", 150);
+    assertEquals(key, UtteranceCache.key("pizza", "kevin16", 150));
+    assertTrue(key.matches("[0-9a-f]{32}"), key);
+    assertNotEquals(key, UtteranceCache.key("pizza!", "kevin16", 150));
+    assertNotEquals(key, UtteranceCache.key("pizza", "kevin", 150));
+    assertNotEquals(key, UtteranceCache.key("pizza", "kevin16", 160));
+  } // testKey()
+
+  /**
+   * Does a miss render in the background, once, and is the audio then
+   * found in memory and, after a restart, on disk?
+   */
+  @Test
+  void testRoundTrip(@TempDir Path dir) throws Exception {
+    FakeRenderer renderer = new FakeRenderer();
+    UtteranceCache cache = new UtteranceCache(dir.toFile(), renderer);
+    assertNull(cache.get("I want pizza"), "a miss does not wait");
+    cache.get("I want pizza");
+    cache.close();
+    assertEquals(1, renderer.renders);
+    File file = cache.fileFor("I want pizza");
+    assertEquals(UtteranceCache.key("I want pizza", "fake", 150) + ".wav", file.getName());
+    assertTrue(file.isFile());
+    assertArrayEquals(audio("I want pizza").getPcm(), cache.get("I want pizza").getPcm());
+
+    FakeRenderer again = new FakeRenderer();
+    UtteranceCache restarted = new UtteranceCache(dir.toFile(), again);
+    SpeechAudio fromDisk = restarted.get("I want pizza");
+    assertNotNull(fromDisk, "on disk");
+    assertArrayEquals(audio("I want pizza").getPcm(), fromDisk.getPcm());
+    assertArrayEquals(audio("water").getPcm(), restarted.load("water").getPcm());
+    assertEquals(1, again.renders, "only the new text is rendered");
+    restarted.close();
+  } // testRoundTrip(Path)
+} // class TestUtteranceCache
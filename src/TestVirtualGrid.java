@@ -0,0 +1,36 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of VirtualGrid.
+ *
+ * @author Princess Alexander
+ */
+public class TestVirtualGrid {
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Are points mapped to the cell under them, and the space outside the
+   * cells to none?
+   */
+  @Test
+  void testCellAt() {
+    VirtualGrid grid = new VirtualGrid(3, 100, (loc) -> null);
+    grid.setItems(new String[] {"a", "b", "c", "d", "e"});
+    // 500 pixels across 3 columns leaves cells of 166 and 2 pixels over.
+    grid.setSize(500, 200);
+    assertEquals(0, grid.cellAt(0, 0));
+    assertEquals(1, grid.cellAt(166, 99));
+    assertEquals(2, grid.cellAt(497, 0));
+    assertEquals(3, grid.cellAt(0, 100));
+    assertEquals(4, grid.cellAt(200, 150));
+    assertEquals(-1, grid.cellAt(498, 0), "right of the last column");
+    assertEquals(-1, grid.cellAt(499, 150), "right of the last column");
+    assertEquals(-1, grid.cellAt(400, 150), "past the last item");
+    assertEquals(-1, grid.cellAt(500, 0), "outside the grid");
+    assertEquals(-1, grid.cellAt(-1, 0), "outside the grid");
+  } // testCellAt()
+} // class TestVirtualGrid
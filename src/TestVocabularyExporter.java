@@ -0,0 +1,95 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of VocabularyExporter's file names and manifest (rendering
+ * needs a FreeTTS voice, so it is not tested here).
+ *
+ * @author Princess Alexander
+ */
+public class TestVocabularyExporter {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * A board whose items would share files: the same file name in two
+   * directories, and two categories with the same slug.
+   */
+  static final String CONFIG =
+      """
+      one Food!
+      >img/a/x.png apple
+      >img/b/x.png banana
+      two food
+      >img/c/x.png cherry
+      >d tab\there
+      """;
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Load the board.
+   */
+  static AACMappings mappings(Path dir) throws IOException {
+    Path file = dir.resolve("board.txt");
+    Files.writeString(file, CONFIG);
+    return new AACMappings(file.toString());
+  } // mappings(Path)
+
+  // +-------+-------------------------------------------------------
+  // | Tests |
+  // +-------+
+
+  /**
+   * Does every item get a file of its own, keeping the plain name for
+   * the first?
+   */
+  @Test
+  void testUniquePaths(@TempDir Path dir) throws IOException {
+    List<String[]> rows = VocabularyExporter.plan(mappings(dir), "kevin16", 0, false);
+    assertEquals(4, rows.size());
+    Set<String> paths = new HashSet<String>();
+    for (String[] row : rows) {
+      paths.add(row[3]);
+    } // for
+    assertEquals(4, paths.size(), "unique files: " + paths);
+    assertEquals("food/x.wav", rows.get(0)[3]);
+    assertEquals("food/d.wav", rows.get(3)[3]);
+    List<String[]> again = VocabularyExporter.plan(mappings(dir), "kevin16", 0, false);
+    for (int i = 0; i < rows.size(); i++) {
+      assertEquals(rows.get(i)[3], again.get(i)[3], "the same from run to run");
+    } // for
+  } // testUniquePaths(Path)
+
+  /**
+   * Does each item stay on one line of the manifest, and read back?
+   */
+  @Test
+  void testManifest(@TempDir Path dir) throws IOException {
+    List<String[]> rows = VocabularyExporter.plan(mappings(dir), "kevin16", 0, false);
+    assertEquals("tab\there", rows.get(3)[2]);
+    File manifest = dir.resolve(VocabularyExporter.MANIFEST).toFile();
+    VocabularyExporter.writeManifest(manifest, rows);
+    List<String> lines = Files.readAllLines(manifest.toPath());
+    assertEquals(rows.size() + 1, lines.size());
+    assertEquals("food\td\ttab\\there\tfood/d.wav\t" + rows.get(3)[4], lines.get(4));
+    Map<String, String> keys = VocabularyExporter.readManifest(manifest);
+    for (String[] row : rows) {
+      assertEquals(row[4], keys.get(row[3]), row[3]);
+    } // for
+    assertEquals("a\\\\b\\nc\\rd", VocabularyExporter.escape("a\\b\nc\rd"));
+  } // testManifest(Path)
+} // class TestVocabularyExporter
@@ -0,0 +1,102 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A stand-in engine that makes no sound. It counts what it is asked to
+ * say and can optionally take a fixed time per character, so the rest
+ * of the selection path can be timed (or tested) without a synthesizer
+ * or audio hardware.
+ *
+ * @author Princess Alexander
+ */
+public class TimingSpeechEngine implements SpeechEngine {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** How long to pretend each character takes to say, in nanoseconds. */
+  private final long nanosPerChar;
+
+  /** The number of utterances spoken. */
+  private final AtomicLong utterances = new AtomicLong();
+
+  /** The number of characters spoken. */
+  private final AtomicLong characters = new AtomicLong();
+
+  /** The most recent text spoken. */
+  private volatile String lastText;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Creates an engine that returns immediately.
+   */
+  public TimingSpeechEngine() {
+    this(0);
+  } // TimingSpeechEngine()
+
+  /**
+   * Creates an engine that takes the given time per character.
+   *
+   * @param nanosPerChar how long to pretend each character takes
+   */
+  public TimingSpeechEngine(long nanosPerChar) {
+    this.nanosPerChar = nanosPerChar;
+  } // TimingSpeechEngine(long)
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  @Override
+  public void speak(String text, Runnable onStart) throws SpeechException {
+    if (onStart != null) {
+      onStart.run();
+    } // if
+    this.utterances.incrementAndGet();
+    this.characters.addAndGet(text.length());
+    this.lastText = text;
+    long delay = this.nanosPerChar * text.length();
+    if (delay > 0) {
+      try {
+        Thread.sleep(delay / 1_000_000, (int) (delay % 1_000_000));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SpeechException("Interrupted while speaking \"" + text + "\"", e);
+      } // try/catch
+    } // if
+  } // speak
+
+  @Override
+  public void close() {
+  } // close
+
+  /**
+   * Returns the number of utterances spoken.
+   *
+   * @return the number of utterances
+   */
+  public long getUtterances() {
+    return this.utterances.get();
+  } // getUtterances
+
+  /**
+   * Returns the number of characters spoken.
+   *
+   * @return the number of characters
+   */
+  public long getCharacters() {
+    return this.characters.get();
+  } // getCharacters
+
+  /**
+   * Returns the most recent text spoken.
+   *
+   * @return the text, or null if nothing has been spoken
+   */
+  public String getLastText() {
+    return this.lastText;
+  } // getLastText
+} // class TimingSpeechEngine
@@ -0,0 +1,248 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cache of pre-synthesized speech. The vocabulary of a board rarely
+ * changes, so rather than synthesizing "pizza" on every tap, each text
+ * is rendered to PCM once (in the background) and kept both in memory
+ * and as a WAV file on disk, where it survives restarts. Entries are
+ * keyed by the text, the voice and the speaking rate, so changing the
+ * voice or rate never plays stale audio.
+ *
+ * A miss never blocks: get returns null and queues the text to be
+ * rendered, and the caller falls back to live synthesis.
+ *
+ * @author Princess Alexander
+ */
+public class UtteranceCache {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** Where the WAV files are kept. */
+  private final File dir;
+
+  /**
+   * Renders the audio, on the worker thread or, from load, on the
+   * caller's; AudioRenderer.render is synchronized, so they take turns.
+   */
+  private final AudioRenderer renderer;
+
+  /** The audio we have in memory, by text. */
+  private final Map<String, SpeechAudio> audio = new ConcurrentHashMap<String, SpeechAudio>();
+
+  /** The texts already queued for rendering. */
+  private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+  /** Renders in the background, one text at a time. */
+  private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "utterance-cache");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Creates a cache that keeps its files in the given directory.
+   *
+   * @param dir where to keep the WAV files (created if needed)
+   * @param renderer what renders text to audio
+   */
+  public UtteranceCache(File dir, AudioRenderer renderer) {
+    this.dir = dir;
+    this.renderer = renderer;
+    this.dir.mkdirs();
+  } // UtteranceCache(File, AudioRenderer)
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Returns the audio for a text if it is cached in memory or on disk.
+   * Otherwise, queues the text to be rendered and returns null.
+   *
+   * @param text the text to speak
+   * @return the audio, or null if it is not available yet
+   */
+  public SpeechAudio get(String text) {
+    SpeechAudio result = this.audio.get(text);
+    if (result != null) {
+      return result;
+    } // if
+    File file = fileFor(text);
+    if (file.isFile()) {
+      try {
+        result = SpeechAudio.readWav(file);
+        this.audio.put(text, result);
+        return result;
+      } catch (IOException e) {
+        System.err.println("Error: unreadable cached audio " + file + " - " + e.getMessage());
+      } // try/catch
+    } // if
+    prefetch(text);
+    return null;
+  } // get
+
+  /**
+   * Queues texts to be rendered in the background, unless they are
+   * already cached or queued.
+   *
+   * @param texts the texts to render
+   */
+  public void prefetch(String... texts) {
+    for (String text : texts) {
+      if (text == null || text.isEmpty() || this.audio.containsKey(text) || !this.pending.add(text)) {
+        continue;
+      } // if
+      this.worker.submit(() -> {
+        try {
+          load(text);
+        } catch (Exception e) {
+          System.err.println("Error: could not render \"" + text + "\" - " + e.getMessage());
+        } finally {
+          this.pending.remove(text);
+        } // try/catch/finally
+      });
+    } // for
+  } // prefetch
+
+  /**
+   * Returns the audio for a text, rendering (and saving) it now if it
+   * is not already cached.
+   *
+   * @param text the text to speak
+   * @return the audio
+   * @throws IOException if the audio cannot be saved
+   */
+  public SpeechAudio load(String text) throws IOException {
+    SpeechAudio result = this.audio.get(text);
+    if (result != null) {
+      return result;
+    } // if
+    File file = fileFor(text);
+    if (file.isFile()) {
+      result = SpeechAudio.readWav(file);
+    } else {
+      result = this.renderer.render(text);
+      File temp = new File(this.dir, file.getName() + ".tmp");
+      result.writeWav(temp);
+      if (!temp.renameTo(file)) {
+        temp.delete();
+      } // if
+    } // if/else
+    this.audio.put(text, result);
+    return result;
+  } // load
+
+  /**
+   * Waits for everything queued so far to be rendered and stops the
+   * background worker.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void close() throws InterruptedException {
+    this.worker.shutdown();
+    this.worker.awaitTermination(1, TimeUnit.HOURS);
+  } // close
+
+  /**
+   * Returns the file that holds (or would hold) the audio for a text.
+   *
+   * @param text the text to speak
+   * @return the WAV file for the text, voice and rate
+   */
+  public File fileFor(String text) {
+    return new File(this.dir, key(text, this.renderer.getVoiceName(), this.renderer.getRate()) + ".wav");
+  } // fileFor
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Computes the cache key for a text spoken by a voice at a rate.
+   *
+   * @param text the text
+   * @param voiceName the name of the voice
+   * @param rate the speaking rate
+   * @return a hex digest that identifies the combination
+   */
+  public static String key(String text, String voiceName, float rate) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest((voiceName + "|" + rate + "|" + text).getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 16; i++) {
+        sb.append(String.format("%02x", hash[i]));
+      } // for
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    } // try/catch
+  } // key
+
+  /**
+   * Returns every text in a mappings file (in the format described in
+   * AACMappings), in order.
+   *
+   * @param filename the mappings file
+   * @return the texts
+   * @throws IOException if the file cannot be read
+   */
+  public static String[] readTexts(String filename) throws IOException {
+    List<String> texts = new ArrayList<String>();
+    try (Scanner scanner = new Scanner(new File(filename))) {
+      while (scanner.hasNextLine()) {
+        String line = scanner.nextLine().trim();
+        if (line.startsWith(">")) {
+          String[] parts = line.split(" ", 2);
+          if (parts.length == 2) {
+            texts.add(parts[1]);
+          } // if
+        } // if
+      } // while
+    } // try
+    return texts.toArray(new String[0]);
+  } // readTexts
+
+  /**
+   * Renders every item text of a mappings file into the cache, so the
+   * first tap on each item already plays from the cache.
+   *
+   * @param args the mappings file (default AACMappings.txt) and the
+   *             cache directory (default audio-cache)
+   * @throws Exception if the mappings cannot be read or the audio
+   *                   cannot be saved
+   */
+  public static void main(String[] args) throws Exception {
+    String filename = (args.length > 0) ? args[0] : "AACMappings.txt";
+    String dirname = (args.length > 1) ? args[1] : "audio-cache";
+    AudioRenderer renderer = new AudioRenderer(AudioRenderer.DEFAULT_VOICE, 0);
+    UtteranceCache cache = new UtteranceCache(new File(dirname), renderer);
+    String[] texts = readTexts(filename);
+    long start = System.nanoTime();
+    for (String text : texts) {
+      cache.load(text);
+    } // for
+    System.out.printf("Cached %d texts in %d ms%n", texts.length, (System.nanoTime() - start) / 1_000_000);
+    renderer.close();
+  } // main(String[])
+} // class UtteranceCache
@@ -0,0 +1,273 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.swing.ImageIcon;
+import javax.swing.JComponent;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+
+/**
+ * A scrollable grid of image cells that only does work for the cells
+ * that are visible. There is no component per cell: cells are painted
+ * directly, clicks are mapped back to a cell by position, and icons are
+ * loaded on demand and kept in a small cache sized to the viewport.
+ * This keeps memory and layout time proportional to what is on screen
+ * rather than to the number of items in the category.
+ *
+ * Clicking a cell fires an ActionEvent whose action command is the
+ * image location of that cell, just like the buttons in the paged grid.
+ *
+ * @author Princess Alexander
+ */
+public class VirtualGrid extends JComponent implements Scrollable {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The version of the serialized form. */
+  private static final long serialVersionUID = 1L;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The image locations to display, in order. */
+  private String[] items = new String[0];
+
+  /** The number of cells across. */
+  private final int columns;
+
+  /** The height of each row, in pixels. */
+  private final int rowHeight;
+
+  /** How to turn an image location into an icon. */
+  private final Function<String, ImageIcon> iconSource;
+
+  /** The icons of recently visible cells, least recently used first. */
+  private final LinkedHashMap<String, ImageIcon> icons;
+
+  /** The most icons we keep around; grows with the viewport. */
+  private int cacheLimit;
+
+  /** Who to tell when a cell is clicked. */
+  private final List<ActionListener> listeners = new ArrayList<ActionListener>();
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Creates an empty grid.
+   *
+   * @param columns the number of cells across
+   * @param rowHeight the height of each row in pixels
+   * @param iconSource loads the icon for an image location
+   */
+  public VirtualGrid(int columns, int rowHeight, Function<String, ImageIcon> iconSource) {
+    if (columns < 1 || rowHeight < 1) {
+      throw new IllegalArgumentException("Grid must have at least one column and a positive row height.");
+    } // if
+    this.columns = columns;
+    this.rowHeight = rowHeight;
+    this.iconSource = iconSource;
+    this.cacheLimit = columns;
+    this.icons = new LinkedHashMap<String, ImageIcon>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, ImageIcon> eldest) {
+        return size() > cacheLimit;
+      } // removeEldestEntry
+    };
+    addMouseListener(new MouseAdapter() {
+      @Override
+      public void mouseClicked(MouseEvent e) {
+        int index = cellAt(e.getX(), e.getY());
+        if (index >= 0) {
+          fireAction(items[index]);
+        } // if
+      } // mouseClicked
+    });
+  } // VirtualGrid(int, int, Function)
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Replaces the items shown in the grid and scrolls back to the top.
+   * Setting the same array again leaves the grid (and its scroll
+   * position) alone.
+   *
+   * @param items the image locations to display
+   */
+  public void setItems(String[] items) {
+    if (items != null && items == this.items) {
+      return;
+    } // if
+    this.items = (items == null) ? new String[0] : items;
+    this.icons.clear();
+    revalidate();
+    scrollRectToVisible(new Rectangle(0, 0, 1, 1));
+    repaint();
+  } // setItems
+
+  /**
+   * Adds a listener to be told when a cell is clicked.
+   *
+   * @param listener the listener
+   */
+  public void addActionListener(ActionListener listener) {
+    this.listeners.add(listener);
+  } // addActionListener
+
+  /**
+   * Determines which cell contains the given point.
+   *
+   * @param x the x coordinate within the grid
+   * @param y the y coordinate within the grid
+   * @return the index of the item at that point, or -1 if there is none
+   */
+  public int cellAt(int x, int y) {
+    if (x < 0 || y < 0 || x >= getWidth()) {
+      return -1;
+    } // if
+    // The cells may not fill the width; the slack at the right is no cell.
+    int column = x / cellWidth();
+    if (column >= this.columns) {
+      return -1;
+    } // if
+    int index = (y / this.rowHeight) * this.columns + column;
+    return (index < this.items.length) ? index : -1;
+  } // cellAt
+
+  /**
+   * Returns the number of icons currently held by the grid.
+   *
+   * @return the number of cached icons
+   */
+  public int cachedIcons() {
+    return this.icons.size();
+  } // cachedIcons
+
+  // +-------------------+-------------------------------------------
+  // | Component Methods |
+  // +-------------------+
+
+  @Override
+  public Dimension getPreferredSize() {
+    int rows = (this.items.length + this.columns - 1) / this.columns;
+    return new Dimension(this.columns * this.rowHeight, rows * this.rowHeight);
+  } // getPreferredSize
+
+  @Override
+  protected void paintComponent(Graphics g) {
+    Rectangle clip = g.getClipBounds();
+    if (clip == null) {
+      clip = new Rectangle(0, 0, getWidth(), getHeight());
+    } // if
+    g.setColor(getBackground() == null ? Color.WHITE : getBackground());
+    g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+    int width = cellWidth();
+    int firstRow = clip.y / this.rowHeight;
+    int lastRow = (clip.y + clip.height - 1) / this.rowHeight;
+    int visible = (lastRow - firstRow + 1) * this.columns;
+    // Keep enough icons for the viewport plus a row either side.
+    this.cacheLimit = Math.max(this.cacheLimit, visible + 2 * this.columns);
+
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int col = 0; col < this.columns; col++) {
+        int index = row * this.columns + col;
+        if (index >= this.items.length) {
+          return;
+        } // if
+        int x = col * width;
+        int y = row * this.rowHeight;
+        g.setColor(Color.LIGHT_GRAY);
+        g.drawRect(x, y, width - 1, this.rowHeight - 1);
+        ImageIcon icon = iconFor(this.items[index]);
+        if (icon != null) {
+          icon.paintIcon(this, g, x + (width - icon.getIconWidth()) / 2,
+              y + (this.rowHeight - icon.getIconHeight()) / 2);
+        } // if
+      } // for
+    } // for
+  } // paintComponent
+
+  // +--------------------+------------------------------------------
+  // | Scrollable Methods |
+  // +--------------------+
+
+  @Override
+  public Dimension getPreferredScrollableViewportSize() {
+    return new Dimension(this.columns * this.rowHeight, 3 * this.rowHeight);
+  } // getPreferredScrollableViewportSize
+
+  @Override
+  public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+    return (orientation == SwingConstants.VERTICAL) ? this.rowHeight / 4 : 1;
+  } // getScrollableUnitIncrement
+
+  @Override
+  public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+    if (orientation != SwingConstants.VERTICAL) {
+      return visibleRect.width;
+    } // if
+    // Scroll by whole rows so that a "page" lines up with the cells.
+    return Math.max(this.rowHeight, (visibleRect.height / this.rowHeight) * this.rowHeight);
+  } // getScrollableBlockIncrement
+
+  @Override
+  public boolean getScrollableTracksViewportWidth() {
+    return true;
+  } // getScrollableTracksViewportWidth
+
+  @Override
+  public boolean getScrollableTracksViewportHeight() {
+    return false;
+  } // getScrollableTracksViewportHeight
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Returns the width of a single cell.
+   */
+  private int cellWidth() {
+    return Math.max(1, getWidth() / this.columns);
+  } // cellWidth
+
+  /**
+   * Returns the (possibly cached) icon for an image location.
+   */
+  private ImageIcon iconFor(String imageLoc) {
+    ImageIcon icon = this.icons.get(imageLoc);
+    if (icon == null) {
+      icon = this.iconSource.apply(imageLoc);
+      this.icons.put(imageLoc, icon);
+    } // if
+    return icon;
+  } // iconFor
+
+  /**
+   * Tells each listener that a cell was clicked.
+   */
+  private void fireAction(String imageLoc) {
+    ActionEvent event = new ActionEvent(this, ActionEvent.ACTION_PERFORMED, imageLoc);
+    for (ActionListener listener : this.listeners) {
+      listener.actionPerformed(event);
+    } // for
+  } // fireAction
+} // class VirtualGrid
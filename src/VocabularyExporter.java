@@ -0,0 +1,334 @@
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+/**
+ * Renders every item in a set of AACMappings to audio files, so that
+ * devices can ship with the whole vocabulary pre-rendered. Each text is
+ * synthesized on a pool of threads, each with its own voice (FreeTTS
+ * voices cannot be shared), and written to
+ * outDir/category/image-name.wav (with a short hash added if two items
+ * would share a file). A tab-separated manifest.tsv records the
+ * category, image, text, file and a key for the text, voice and rate,
+ * with tabs and newlines in them escaped; on the next run, items whose
+ * key and file are unchanged are skipped.
+ *
+ * Usage: java VocabularyExporter [mappings] [outDir] [threads] [--ulaw]
+ *
+ * With --ulaw, files are written as 8-bit mu-law WAV (half the size of
+ * the 16-bit PCM the voice produces).
+ *
+ * @author Princess Alexander
+ */
+public class VocabularyExporter {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /** The name of the manifest in the output directory. */
+  public static final String MANIFEST = "manifest.tsv";
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** Where the files go. */
+  private final File outDir;
+
+  /** Voices that are free to use. */
+  private final BlockingQueue<AudioRenderer> renderers;
+
+  /** The number of threads (and voices). */
+  private final int threads;
+
+  /** Whether to write mu-law rather than PCM files. */
+  private final boolean ulaw;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Creates an exporter with the given number of voices.
+   *
+   * @param outDir where to write the files
+   * @param threads how many texts to synthesize at once
+   * @param voiceName the FreeTTS voice to use
+   * @param ulaw true to write mu-law files, false for plain PCM
+   */
+  public VocabularyExporter(File outDir, int threads, String voiceName, boolean ulaw) {
+    this.outDir = outDir;
+    this.threads = Math.max(1, threads);
+    this.ulaw = ulaw;
+    this.renderers = new ArrayBlockingQueue<AudioRenderer>(this.threads);
+    for (int i = 0; i < this.threads; i++) {
+      this.renderers.add(new AudioRenderer(voiceName, 0));
+    } // for
+  } // VocabularyExporter(File, int, String, boolean)
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Exports every item in the mappings and rewrites the manifest.
+   *
+   * @param mappings the vocabulary to export
+   * @param out where to report progress and throughput
+   * @throws Exception if the manifest cannot be written or an item
+   *                   cannot be rendered
+   */
+  public void export(AACMappings mappings, PrintWriter out) throws Exception {
+    this.outDir.mkdirs();
+    File manifest = new File(this.outDir, MANIFEST);
+    Map<String, String> previous = readManifest(manifest);
+    AudioRenderer sample = this.renderers.peek();
+    String voice = sample.getVoiceName();
+    float rate = sample.getRate();
+
+    AtomicLong audioMillis = new AtomicLong();
+    AtomicLong bytes = new AtomicLong();
+    List<String[]> rows = plan(mappings, voice, rate, this.ulaw);
+    List<Future<?>> jobs = new ArrayList<Future<?>>();
+    int skipped = 0;
+    long start = System.nanoTime();
+    ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+    try {
+      for (String[] row : rows) {
+        String text = row[2];
+        String path = row[3];
+        String key = row[4];
+        File file = new File(this.outDir, path);
+        if (key.equals(previous.get(path)) && file.isFile()) {
+          skipped++;
+          continue;
+        } // if
+        jobs.add(pool.submit(() -> {
+          AudioRenderer renderer = this.renderers.take();
+          try {
+            SpeechAudio audio = renderer.render(text);
+            file.getParentFile().mkdirs();
+            write(audio, file);
+            audioMillis.addAndGet(audio.getMillis());
+            bytes.addAndGet(file.length());
+          } finally {
+            this.renderers.put(renderer);
+          } // try/finally
+          return null;
+        }));
+      } // for
+      for (Future<?> job : jobs) {
+        job.get();
+      } // for
+    } finally {
+      pool.shutdown();
+    } // try/finally
+
+    writeManifest(manifest, rows);
+
+    double seconds = (System.nanoTime() - start) / 1e9;
+    out.printf("Exported %d of %d items (%d unchanged) with %d threads in %.2f s%n",
+        jobs.size(), rows.size(), skipped, this.threads, seconds);
+    if (!jobs.isEmpty()) {
+      out.printf("Throughput: %.1f items/s, %.1f s of audio per s, %.1f KiB written%n",
+          jobs.size() / seconds, audioMillis.get() / 1000.0 / seconds, bytes.get() / 1024.0);
+    } // if
+  } // export
+
+  /**
+   * Releases the voices.
+   */
+  public void close() {
+    for (AudioRenderer renderer : this.renderers) {
+      renderer.close();
+    } // for
+  } // close
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Decides where each item in the mappings goes. An item is written to
+   * category/image-name.wav unless another item already has that file
+   * (the same file name in another directory, or categories whose names
+   * differ only in punctuation or case), in which case a short hash of
+   * its category and image is added to the name.
+   *
+   * @param mappings the vocabulary to export
+   * @param voice the name of the voice
+   * @param rate the speaking rate
+   * @param ulaw true if the files are mu-law
+   * @return the category, image, text, file and key of each item
+   */
+  static List<String[]> plan(AACMappings mappings, String voice, float rate, boolean ulaw) {
+    List<String[]> rows = new ArrayList<String[]>();
+    Set<String> paths = new HashSet<String>();
+    for (String categoryLoc : mappings.getCategoryImageLocs()) {
+      String category = mappings.getCategoryName(categoryLoc);
+      for (String imageLoc : mappings.getImageLocs(categoryLoc)) {
+        String text = mappings.getText(categoryLoc, imageLoc);
+        String base = slug(category) + "/" + slug(new File(imageLoc).getName().replaceFirst("\\.[^.]*$", ""));
+        String path = base + ".wav";
+        if (!paths.add(path)) {
+          path = base + String.format("-%08x.wav", (categoryLoc + "\n" + imageLoc).hashCode());
+          if (!paths.add(path)) {
+            throw new IllegalStateException("Two items would be written to " + path);
+          } // if
+        } // if
+        String key = UtteranceCache.key(text, voice, rate) + (ulaw ? "-ulaw" : "");
+        rows.add(new String[] {category, imageLoc, text, path, key});
+      } // for
+    } // for
+    return rows;
+  } // plan
+
+  /**
+   * Writes a manifest, escaping tabs, newlines and backslashes so that
+   * each item stays on one line of five fields.
+   *
+   * @param manifest the manifest file
+   * @param rows the category, image, text, file and key of each item
+   * @throws IOException if the manifest cannot be written
+   */
+  static void writeManifest(File manifest, List<String[]> rows) throws IOException {
+    try (PrintWriter writer = new PrintWriter(manifest, "UTF-8")) {
+      writer.println("category\timage\ttext\tfile\tkey");
+      for (String[] row : rows) {
+        StringBuilder line = new StringBuilder();
+        for (String field : row) {
+          if (line.length() > 0) {
+            line.append('\t');
+          } // if
+          line.append(escape(field));
+        } // for
+        writer.println(line);
+      } // for
+    } // try
+  } // writeManifest
+
+  /**
+   * Escapes a manifest field.
+   *
+   * @param field the field
+   * @return the field with backslash, tab, newline and carriage return
+   *         written as \\, \t, \n and \r
+   */
+  static String escape(String field) {
+    return field.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n")
+        .replace("\r", "\\r");
+  } // escape
+
+  /**
+   * Turns text into something safe to use as a file name.
+   *
+   * @param text the text
+   * @return lower-case letters, digits and dashes only
+   */
+  static String slug(String text) {
+    String slug = text.toLowerCase().replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+    return slug.isEmpty() ? "unnamed" : slug;
+  } // slug
+
+  /**
+   * Reads the file-to-key pairs from an earlier manifest.
+   *
+   * @param manifest the manifest file
+   * @return a map from file to key (empty if there is no manifest)
+   * @throws IOException if the manifest cannot be read
+   */
+  static Map<String, String> readManifest(File manifest) throws IOException {
+    Map<String, String> keys = new HashMap<String, String>();
+    if (!manifest.isFile()) {
+      return keys;
+    } // if
+    try (Scanner scanner = new Scanner(manifest, "UTF-8")) {
+      while (scanner.hasNextLine()) {
+        String[] fields = scanner.nextLine().split("\t");
+        if (fields.length == 5) {
+          keys.put(fields[3], fields[4]);
+        } // if
+      } // while
+    } // try
+    return keys;
+  } // readManifest
+
+  /**
+   * Writes audio to a WAV file, converting it to mu-law if asked.
+   */
+  private void write(SpeechAudio audio, File file) throws IOException {
+    if (!this.ulaw) {
+      audio.writeWav(file);
+      return;
+    } // if
+    AudioFormat pcm = audio.getFormat();
+    AudioFormat target = new AudioFormat(AudioFormat.Encoding.ULAW, pcm.getSampleRate(), 8,
+        pcm.getChannels(), pcm.getChannels(), pcm.getSampleRate(), false);
+    long frames = audio.getPcm().length / pcm.getFrameSize();
+    try (AudioInputStream in = new AudioInputStream(
+            new ByteArrayInputStream(audio.getPcm()), pcm, frames);
+        AudioInputStream converted = AudioSystem.getAudioInputStream(target, in)) {
+      AudioSystem.write(converted, AudioFileFormat.Type.WAVE, file);
+    } // try
+  } // write
+
+  // +------+--------------------------------------------------------
+  // | Main |
+  // +------+
+
+  /**
+   * Exports a mappings file.
+   *
+   * @param args
+   *   The mappings file (default AACMappings.txt), the output directory
+   *   (default audio-export), the number of threads (default: one per
+   *   processor) and optionally --ulaw.
+   *
+   * @throws Exception
+   *   If the mappings cannot be read or the audio cannot be written.
+   */
+  public static void main(String[] args) throws Exception {
+    List<String> params = new ArrayList<String>();
+    boolean ulaw = false;
+    for (String arg : args) {
+      if (arg.equals("--ulaw")) {
+        ulaw = true;
+      } else {
+        params.add(arg);
+      } // if/else
+    } // for
+    String filename = (params.size() > 0) ? params.get(0) : "AACMappings.txt";
+    String outDir = (params.size() > 1) ? params.get(1) : "audio-export";
+    int threads = (params.size() > 2) ? Integer.parseInt(params.get(2))
+        : Runtime.getRuntime().availableProcessors();
+
+    PrintWriter pen = new PrintWriter(System.out, true);
+    VocabularyExporter exporter =
+        new VocabularyExporter(new File(outDir), threads, AudioRenderer.DEFAULT_VOICE, ulaw);
+    try {
+      exporter.export(new AACMappings(filename), pen);
+    } finally {
+      exporter.close();
+    } // try/finally
+  } // main(String[])
+} // class VocabularyExporter
@@ -0,0 +1,97 @@
+import java.util.Objects;
+
+/**
+ * One item of the vocabulary, together with the category it is in: the
+ * location of the category's image, the location of the item's image
+ * and the item's text. Items are immutable; changing an item's text
+ * means replacing its VocabularyItem.
+ *
+ * @author Princess Alexander
+ */
+public final class VocabularyItem {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** The location of the image of the item's category. */
+  private final String categoryLoc;
+
+  /** The location of the item's image. */
+  private final String imageLoc;
+
+  /** The text the item speaks. */
+  private final String text;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Creates an item.
+   *
+   * @param categoryLoc the location of the category's image
+   * @param imageLoc the location of the item's image
+   * @param text the text the item speaks
+   */
+  public VocabularyItem(String categoryLoc, String imageLoc, String text) {
+    this.categoryLoc = categoryLoc;
+    this.imageLoc = imageLoc;
+    this.text = text;
+  } // VocabularyItem(String, String, String)
+
+  // +------------------+--------------------------------------------
+  // | Standard Methods |
+  // +------------------+
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof VocabularyItem)) {
+      return false;
+    } // if
+    VocabularyItem item = (VocabularyItem) other;
+    return this.categoryLoc.equals(item.categoryLoc) && this.imageLoc.equals(item.imageLoc)
+        && this.text.equals(item.text);
+  } // equals
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.categoryLoc, this.imageLoc, this.text);
+  } // hashCode
+
+  @Override
+  public String toString() {
+    return this.categoryLoc + " >" + this.imageLoc + " " + this.text;
+  } // toString
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Returns the location of the image of the item's category.
+   *
+   * @return the category image
+   */
+  public String getCategoryLoc() {
+    return this.categoryLoc;
+  } // getCategoryLoc
+
+  /**
+   * Returns the location of the item's image.
+   *
+   * @return the item image
+   */
+  public String getImageLoc() {
+    return this.imageLoc;
+  } // getImageLoc
+
+  /**
+   * Returns the text the item speaks.
+   *
+   * @return the text
+   */
+  public String getText() {
+    return this.text;
+  } // getText
+} // class VocabularyItem
@@ -0,0 +1,67 @@
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * "Speaks" by writing each utterance to its own WAV file instead of to
+ * the speakers. Useful for checking what the board says on a machine
+ * with no audio hardware, and for timing synthesis on its own.
+ *
+ * Files are named by a running count and the text (e.g.,
+ * 0003-french-fries.wav).
+ *
+ * @author Princess Alexander
+ */
+public class WavFileSpeechEngine implements SpeechEngine {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /** Where the files go. */
+  private final File dir;
+
+  /** Renders the audio. */
+  private final AudioRenderer renderer;
+
+  /** The number of utterances written so far. */
+  private int count;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Creates an engine that writes into the given directory.
+   *
+   * @param dir where to write the files (created if needed)
+   * @param renderer what renders text to audio
+   */
+  public WavFileSpeechEngine(File dir, AudioRenderer renderer) {
+    this.dir = dir;
+    this.renderer = renderer;
+    this.dir.mkdirs();
+  } // WavFileSpeechEngine(File, AudioRenderer)
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  @Override
+  public synchronized void speak(String text, Runnable onStart) throws SpeechException {
+    if (onStart != null) {
+      onStart.run();
+    } // if
+    String slug = text.toLowerCase().replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+    File file = new File(this.dir, String.format("%04d-%s.wav", this.count++, slug));
+    try {
+      this.renderer.render(text).writeWav(file);
+    } catch (IOException e) {
+      throw new SpeechException("Could not write " + file + ": " + e.getMessage(), e);
+    } // try/catch
+  } // speak
+
+  @Override
+  public void close() {
+    this.renderer.close();
+  } // close
+} // class WavFileSpeechEngine
@@ -1,16 +1,84 @@
 package edu.grinnell.csc207.experiments;
 
+import edu.grinnell.csc207.experiments.ComplexityFit.Growth;
 import edu.grinnell.csc207.util.AssociativeArray;
+import java.io.FileWriter;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
 
 /**
  * Experiments with Associative Arrays.
  *
+ * By default, measures how the time per operation of each map backend
+ * (see MapBackend) grows with the number of keys, for several mixes of
+ * operations, and fits the times against 1, log n and n (see
+ * ComplexityFit). The measurements are written as CSV and the fits as
+ * a plain-text report. A fit that grows faster than expected for its
+ * backend (e.g., a linear search creeping into a hashed map) is
+ * reported as a regression, and the program exits with status 1, so it
+ * can be run as a check.
+ *
+ * Usage: java edu.grinnell.csc207.experiments.AAExperiments
+ *   [--csv FILE] [--report FILE] [--sizes 16,64,...] [--mixes read,miss,...]
+ *   [--expect BACKEND=GROWTH]... [--quick] [--demo]
+ *
+ * GROWTH is 1, "log n" or n. --demo runs the original experiments,
+ * which log a few calls on a small array.
+ *
  * @author Samuel A. Rebelsky
  * @author Princess Alexander
  */
 public class AAExperiments {
 
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The sizes measured by default (four times apart, so n and log n
+   * are easy to tell apart).
+   */
+  static final int[] SIZES = {16, 64, 256, 1024, 4096, 16384};
+
+  /**
+   * The number of operations in each mix's cycle.
+   */
+  static final int OPS = 1024;
+
+  /**
+   * The mixes of operations: the percentage of gets that hit, hasKeys
+   * that miss, sets that overwrite, and removes (each followed by
+   * putting the key back, so the size stays fixed).
+   */
+  static final Map<String, int[]> MIXES = new LinkedHashMap<String, int[]>();
+
+  static {
+    MIXES.put("read", new int[] {100, 0, 0, 0});
+    MIXES.put("miss", new int[] {0, 100, 0, 0});
+    MIXES.put("write", new int[] {0, 0, 100, 0});
+    MIXES.put("churn", new int[] {0, 0, 50, 50});
+    MIXES.put("mixed", new int[] {60, 20, 15, 5});
+  } // static
+
+  /**
+   * The fastest growth each backend is allowed by default.
+   */
+  static final Map<String, Growth> EXPECTED = new LinkedHashMap<String, Growth>();
+
+  static {
+    // AssociativeArray searches an array.
+    EXPECTED.put("AssociativeArray", Growth.LINEAR);
+    EXPECTED.put("HashMap", Growth.CONSTANT);
+    EXPECTED.put("LinkedHashMap", Growth.CONSTANT);
+  } // static
+
   // +---------+-----------------------------------------------------
   // | Globals |
   // +---------+
@@ -78,23 +146,93 @@ public class AAExperiments {
     } // try/catch
   } // hasKey(PrintWriter, AssociativeArray<String, String>, STring)
 
-  // +------+--------------------------------------------------------
-  // | Main |
-  // +------+
+  // +-------------+-------------------------------------------------
+  // | Experiments |
+  // +-------------+
 
   /**
-   * Run our expereiments.
+   * Make the cycle of operations for a mix: an operation code (the
+   * index into the mix) and a key for each.
    *
-   * @param args
-   *   Command-line parameters. (Ignored.)
+   * @param mix
+   *   The percentages of each operation.
+   * @param present
+   *   The keys in the map.
+   * @param absent
+   *   Keys that are not.
+   * @param random
+   *   Where to get random numbers.
+   * @param codes
+   *   Where to put the operation codes.
    *
-   * @throws Exception
-   *   When something goes wrong. Usually an I/O issue or an unexpected
-   *   Associative Array hiccup.
+   * @return the keys.
    */
-  public static void main(String[] args) throws Exception {
-    PrintWriter pen = new PrintWriter(System.out, true);
+  static Object[] operations(int[] mix, Object[] present, Object[] absent, Random random,
+      int[] codes) {
+    Object[] keys = new Object[OPS];
+    for (int i = 0; i < OPS; i++) {
+      int pick = random.nextInt(100);
+      int code = 0;
+      while (pick >= mix[code]) {
+        pick -= mix[code];
+        code++;
+      } // while
+      codes[i] = code;
+      Object[] from = (code == 1) ? absent : present;
+      keys[i] = from[random.nextInt(from.length)];
+    } // for
+    return keys;
+  } // operations(int[], Object[], Object[], Random, int[])
+
+  /**
+   * Measure a mix of operations on a backend holding some keys.
+   *
+   * @param harness
+   *   The harness.
+   * @param map
+   *   The backend.
+   * @param codes
+   *   The operation codes.
+   * @param keys
+   *   The key of each operation.
+   *
+   * @return the result.
+   */
+  static Harness.Result measure(Harness harness, MapBackend<Object> map, int[] codes,
+      Object[] keys) {
+    return harness.run((n) -> {
+      long total = 0;
+      for (int i = 0; i < n; i++) {
+        int j = i & (OPS - 1);
+        switch (codes[j]) {
+          case 0:
+            Integer value = map.get(keys[j]);
+            total += (value == null) ? 0 : value;
+            break;
+          case 1:
+            total += map.hasKey(keys[j]) ? 1 : 0;
+            break;
+          case 2:
+            map.set(keys[j], i);
+            break;
+          default:
+            map.remove(keys[j]);
+            map.set(keys[j], i);
+            break;
+        } // switch
+      } // for
+      return total;
+    });
+  } // measure(Harness, MapBackend, int[], Object[])
 
+  /**
+   * Run the demo: log a few calls on a small array.
+   *
+   * @param pen
+   *   Where to log the calls.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  static void demo(PrintWriter pen) {
     AssociativeArray strings2strings = new AssociativeArray<String, String>();
 
     // The empty array should not have any key. We'll try one.
@@ -113,8 +251,138 @@ public class AAExperiments {
     set(pen, strings2strings, null, "nothing");
     hasKey(pen, strings2strings, null);
     get(pen, strings2strings, null);
+  } // demo(PrintWriter)
+
+  // +------+--------------------------------------------------------
+  // | Main |
+  // +------+
+
+  /**
+   * Run our expereiments.
+   *
+   * @param args
+   *   The options described above.
+   *
+   * @throws Exception
+   *   When something goes wrong. Usually an I/O issue or an unexpected
+   *   Associative Array hiccup.
+   */
+  public static void main(String[] args) throws Exception {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    String csvFile = null;
+    String reportFile = null;
+    int[] sizes = SIZES;
+    List<String> mixes = new ArrayList<String>(MIXES.keySet());
+    Map<String, Growth> expected = new LinkedHashMap<String, Growth>(EXPECTED);
+    Harness harness = new Harness(3, 5, 50);
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--demo")) {
+        demo(pen);
+        pen.close();
+        return;
+      } else if (args[i].equals("--csv")) {
+        csvFile = args[++i];
+      } else if (args[i].equals("--report")) {
+        reportFile = args[++i];
+      } else if (args[i].equals("--sizes")) {
+        sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+      } else if (args[i].equals("--mixes")) {
+        mixes = Arrays.asList(args[++i].split(","));
+      } else if (args[i].equals("--expect")) {
+        String[] parts = args[++i].split("=", 2);
+        expected.put(parts[0], Growth.of(parts[1]));
+      } else if (args[i].equals("--quick")) {
+        harness = new Harness(1, 3, 10);
+      } else {
+        throw new IllegalArgumentException("Unknown option: " + args[i]);
+      } // if/else
+    } // for
 
-    // And we're done.
+    PrintWriter csv = (csvFile == null) ? pen : new PrintWriter(new FileWriter(csvFile));
+    csv.println("backend,mix,size," + Harness.CSV_HEADER);
+    // The times of each backend and mix, by size.
+    Map<String, double[]> times = new LinkedHashMap<String, double[]>();
+    int count = sizes.length;
+    Random random = new Random(207);
+    for (int s = 0; s < sizes.length; s++) {
+      Object[] present = MapBenchmark.makeKeys("String", 0, sizes[s]);
+      Object[] absent = MapBenchmark.makeKeys("String", sizes[s], OPS);
+      for (Supplier<MapBackend<Object>> backend : MapBenchmark.BACKENDS) {
+        MapBackend<Object> map = backend.get();
+        for (Object key : present) {
+          map.set(key, 1);
+        } // for
+        for (String mix : mixes) {
+          int[] codes = new int[OPS];
+          Object[] keys = operations(MIXES.get(mix), present, absent, random, codes);
+          Harness.Result result = measure(harness, map, codes, keys);
+          csv.println(map.name() + "," + mix + "," + sizes[s] + "," + result.toCsv());
+          csv.flush();
+          times.computeIfAbsent(map.name() + "," + mix, (k) -> new double[count])[s] =
+              result.nsPerOp;
+        } // for
+      } // for
+    } // for
+    if (csv != pen) {
+      csv.close();
+    } // if
+
+    PrintWriter report = (reportFile == null) ? pen : new PrintWriter(new FileWriter(reportFile));
+    int regressions = report(report, sizes, times, expected);
+    report.flush();
+    if (report != pen) {
+      report.close();
+    } // if
     pen.close();
+    if (regressions > 0) {
+      System.exit(1);
+    } // if
   } // main(String[])
+
+  /**
+   * Fit the times of each backend and mix and write the report.
+   *
+   * @param pen
+   *   Where to write the report.
+   * @param sizes
+   *   The sizes measured.
+   * @param times
+   *   The times of each backend and mix ("backend,mix"), by size.
+   * @param expected
+   *   The fastest growth allowed for each backend.
+   *
+   * @return the number of regressions.
+   */
+  static int report(PrintWriter pen, int[] sizes, Map<String, double[]> times,
+      Map<String, Growth> expected) {
+    double[] n = Arrays.stream(sizes).asDoubleStream().toArray();
+    List<String> regressions = new ArrayList<String>();
+    pen.println();
+    pen.printf("Time per operation against n (%s)%n%n", Arrays.toString(sizes));
+    pen.printf(Locale.ROOT, "%-18s %-6s %-46s %-9s %s%n", "backend", "mix", "best fit (ns)",
+        "allowed", "");
+    for (Map.Entry<String, double[]> entry : times.entrySet()) {
+      String[] names = entry.getKey().split(",");
+      ComplexityFit fit = new ComplexityFit(n, entry.getValue());
+      Growth allowed = expected.get(names[0]);
+      String verdict = "";
+      if (allowed != null && fit.growth().compareTo(allowed) > 0) {
+        verdict = "REGRESSION";
+        regressions.add(String.format("%s %s grows like %s (allowed %s): %s", names[0],
+            names[1], fit.growth(), allowed, fit));
+      } // if
+      pen.printf(Locale.ROOT, "%-18s %-6s %-46s %-9s %s%n", names[0], names[1], fit,
+          (allowed == null) ? "?" : allowed, verdict);
+    } // for
+    pen.println();
+    if (regressions.isEmpty()) {
+      pen.println("No regressions.");
+    } else {
+      pen.println(regressions.size() + " regression(s):");
+      for (String regression : regressions) {
+        pen.println("  " + regression);
+      } // for
+    } // if/else
+    return regressions.size();
+  } // report(PrintWriter, int[], Map, Map)
 } // class AAExperiments
@@ -0,0 +1,419 @@
+package edu.grinnell.csc207.experiments;
+
+import edu.grinnell.csc207.util.LatencyHistogram;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Puts load on a BoardServer by playing many tablets at once. Each
+ * session repeatedly fetches the categories, opens a random category,
+ * fetches the first few images on its page and selects an item, as a
+ * user tapping through the board would. Sessions remember the ETags of
+ * what they have fetched and send them back, so, as with real tablets,
+ * most board and image requests come back 304 Not Modified.
+ *
+ * Sessions run asynchronously on a shared HttpClient, so thousands of
+ * them need only a few threads. Each session keeps its own connection
+ * open between requests.
+ *
+ * Usage: java edu.grinnell.csc207.experiments.BoardLoadClient
+ *   [--url http://127.0.0.1:8207] [--sessions N] [--seconds N]
+ *   [--images N] [--seed N]
+ *
+ * Prints the requests per second, the responses by status and the
+ * latency of each endpoint, and exits with status 1 if any request
+ * failed.
+ *
+ * @author Princess Alexander
+ */
+public class BoardLoadClient {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The items asked for in each page.
+   */
+  static final int PAGE = 24;
+
+  /**
+   * Finds the images in a board or page.
+   */
+  static final Pattern IMAGE = Pattern.compile("\"image\":\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The server's address.
+   */
+  private final URI base;
+
+  /**
+   * The client all the sessions share.
+   */
+  private final HttpClient client;
+
+  /**
+   * The images each session fetches per page.
+   */
+  private final int imagesPerPage;
+
+  /**
+   * The latency of each endpoint.
+   */
+  private final Map<String, LatencyHistogram> latencies =
+      new LinkedHashMap<String, LatencyHistogram>();
+
+  /**
+   * The responses with each status.
+   */
+  private final Map<Integer, LongAdder> statuses = new HashMap<Integer, LongAdder>();
+
+  /**
+   * The requests that failed (an error status or no response).
+   */
+  private final LongAdder failures = new LongAdder();
+
+  /**
+   * The first failure, for the report.
+   */
+  private volatile String firstFailure;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a client for a server.
+   *
+   * @param base
+   *   The server's address (e.g., http://127.0.0.1:8207/).
+   * @param imagesPerPage
+   *   The images each session fetches per page.
+   */
+  public BoardLoadClient(URI base, int imagesPerPage) {
+    this.base = base;
+    this.imagesPerPage = imagesPerPage;
+    this.client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    for (String endpoint : new String[] {"categories", "page", "images", "select"}) {
+      this.latencies.put(endpoint, new LatencyHistogram(endpoint));
+    } // for
+    for (int status : new int[] {200, 304}) {
+      this.statuses.put(status, new LongAdder());
+    } // for
+  } // BoardLoadClient(URI, int)
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Run sessions until a deadline.
+   *
+   * @param sessions
+   *   The number of sessions.
+   * @param seconds
+   *   How long to run.
+   * @param seed
+   *   The seed for the sessions' choices.
+   *
+   * @return the number of requests made.
+   */
+  public long run(int sessions, double seconds, long seed) {
+    long deadline = System.nanoTime() + (long) (seconds * 1e9);
+    List<CompletableFuture<Void>> running = new ArrayList<CompletableFuture<Void>>();
+    for (int i = 0; i < sessions; i++) {
+      running.add(new Session(new Random(seed + i), deadline).loop());
+    } // for
+    CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[0])).join();
+    long requests = 0;
+    for (LatencyHistogram histogram : this.latencies.values()) {
+      requests += histogram.count();
+    } // for
+    return requests;
+  } // run(int, double, long)
+
+  /**
+   * Report what happened.
+   *
+   * @param pen
+   *   Where to write the report.
+   * @param requests
+   *   The number of requests made.
+   * @param seconds
+   *   How long the run took.
+   */
+  public void report(PrintWriter pen, long requests, double seconds) {
+    pen.printf("%d requests in %.1f s: %.0f requests/s%n", requests, seconds, requests / seconds);
+    pen.printf("200: %d, 304: %d, failed: %d%n", this.statuses.get(200).sum(),
+        this.statuses.get(304).sum(), this.failures.sum());
+    if (this.firstFailure != null) {
+      pen.println("first failure: " + this.firstFailure);
+    } // if
+    for (LatencyHistogram histogram : this.latencies.values()) {
+      pen.println(histogram);
+    } // for
+  } // report(PrintWriter, long, double)
+
+  /**
+   * Count the requests that failed.
+   *
+   * @return the number of failures.
+   */
+  public long failures() {
+    return this.failures.sum();
+  } // failures()
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Find the images in a board or page.
+   *
+   * @param json
+   *   The board or page.
+   *
+   * @return the images, in order.
+   */
+  static List<String> images(String json) {
+    List<String> images = new ArrayList<String>();
+    Matcher matcher = IMAGE.matcher(json);
+    while (matcher.find()) {
+      images.add(unquote(matcher.group(1)));
+    } // while
+    return images;
+  } // images(String)
+
+  /**
+   * Undo the escapes in the body of a JSON string.
+   */
+  static String unquote(String str) {
+    StringBuilder sb = new StringBuilder(str.length());
+    for (int i = 0; i < str.length(); i++) {
+      char ch = str.charAt(i);
+      if (ch != '\\') {
+        sb.append(ch);
+      } else if (str.charAt(++i) == 'u') {
+        sb.append((char) Integer.parseInt(str.substring(i + 1, i + 5), 16));
+        i += 4;
+      } else {
+        char escaped = str.charAt(i);
+        sb.append((escaped == 'n') ? '\n' : (escaped == 't') ? '\t' : escaped);
+      } // if/else
+    } // for
+    return sb.toString();
+  } // unquote(String)
+
+  /**
+   * Encode a query parameter.
+   */
+  static String encode(String str) {
+    return URLEncoder.encode(str, StandardCharsets.UTF_8).replace("+", "%20");
+  } // encode(String)
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * One simulated tablet.
+   */
+  class Session {
+    /**
+     * Makes the session's choices.
+     */
+    final Random random;
+
+    /**
+     * When to stop, from System.nanoTime().
+     */
+    final long deadline;
+
+    /**
+     * The ETag and body of everything fetched so far, by path.
+     */
+    final Map<String, String[]> cache = new HashMap<String, String[]>();
+
+    /**
+     * Create a session.
+     */
+    Session(Random random, long deadline) {
+      this.random = random;
+      this.deadline = deadline;
+    } // Session(Random, long)
+
+    /**
+     * Tap through the board until the deadline.
+     */
+    CompletableFuture<Void> loop() {
+      if (System.nanoTime() >= this.deadline) {
+        return CompletableFuture.completedFuture(null);
+      } // if
+      return get("categories", "/categories").thenCompose((board) -> {
+        List<String> categories = images(board);
+        if (categories.isEmpty()) {
+          return CompletableFuture.completedFuture(null);
+        } // if
+        String category = categories.get(this.random.nextInt(categories.size()));
+        return get("page", "/page?category=" + encode(category) + "&limit=" + PAGE)
+            .thenCompose((page) -> {
+              List<String> items = images(page);
+              CompletableFuture<String> images = CompletableFuture.completedFuture("");
+              for (int i = 0; i < items.size() && i < BoardLoadClient.this.imagesPerPage; i++) {
+                String path = "/images/" + encode(items.get(i)).replace("%2F", "/");
+                images = images.thenCompose((ignored) -> get("images", path));
+              } // for
+              if (items.isEmpty()) {
+                return images;
+              } // if
+              String item = items.get(this.random.nextInt(items.size()));
+              return images.thenCompose((ignored) -> post("select", "/select?category="
+                  + encode(category) + "&image=" + encode(item)));
+            });
+      }).thenCompose((ignored) -> loop());
+    } // loop()
+
+    /**
+     * Fetch a path, sending the ETag of what was fetched before.
+     *
+     * @return the body (the one fetched before, if it has not changed),
+     *   or "" if the request failed.
+     */
+    CompletableFuture<String> get(String endpoint, String path) {
+      HttpRequest.Builder request = HttpRequest.newBuilder(BoardLoadClient.this.base.resolve(path))
+          .timeout(Duration.ofSeconds(30));
+      String[] cached = this.cache.get(path);
+      if (cached != null) {
+        request.header("If-None-Match", cached[0]);
+      } // if
+      return send(endpoint, request.GET().build()).thenApply((response) -> {
+        if (response == null) {
+          return "";
+        } // if
+        if (response.statusCode() == 304) {
+          return cached[1];
+        } // if
+        String body = new String(response.body(), StandardCharsets.UTF_8);
+        response.headers().firstValue("ETag")
+            .ifPresent((etag) -> this.cache.put(path, new String[] {etag, body}));
+        return body;
+      });
+    } // get(String, String)
+
+    /**
+     * Post to a path.
+     *
+     * @return the body, or "" if the request failed.
+     */
+    CompletableFuture<String> post(String endpoint, String path) {
+      HttpRequest request = HttpRequest.newBuilder(BoardLoadClient.this.base.resolve(path))
+          .timeout(Duration.ofSeconds(30))
+          .POST(HttpRequest.BodyPublishers.noBody())
+          .build();
+      return send(endpoint, request).thenApply((response) ->
+          (response == null) ? "" : new String(response.body(), StandardCharsets.UTF_8));
+    } // post(String, String)
+
+    /**
+     * Send a request, timing it and counting its status.
+     *
+     * @return the response, or null if the request failed.
+     */
+    CompletableFuture<HttpResponse<byte[]>> send(String endpoint, HttpRequest request) {
+      long start = System.nanoTime();
+      return BoardLoadClient.this.client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+          .handle((response, error) -> {
+            BoardLoadClient.this.latencies.get(endpoint).recordSince(start);
+            int status = (response == null) ? 0 : response.statusCode();
+            LongAdder count = BoardLoadClient.this.statuses.get(status);
+            if (count == null) {
+              fail(request + ": " + ((error != null) ? error : "status " + status));
+              return null;
+            } // if
+            count.increment();
+            return response;
+          });
+    } // send(String, HttpRequest)
+  } // class Session
+
+  /**
+   * Record a failed request.
+   */
+  void fail(String description) {
+    this.failures.increment();
+    if (this.firstFailure == null) {
+      this.firstFailure = description;
+    } // if
+  } // fail(String)
+
+  // +------+--------------------------------------------------------
+  // | Main |
+  // +------+
+
+  /**
+   * Put load on a server and report the results.
+   *
+   * @param args
+   *   The options described above.
+   */
+  public static void main(String[] args) {
+    String url = "http://127.0.0.1:8207/";
+    int sessions = 1000;
+    double seconds = 10;
+    int imagesPerPage = 4;
+    long seed = 207;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--url":
+          url = args[++i];
+          break;
+        case "--sessions":
+          sessions = Integer.parseInt(args[++i]);
+          break;
+        case "--seconds":
+          seconds = Double.parseDouble(args[++i]);
+          break;
+        case "--images":
+          imagesPerPage = Integer.parseInt(args[++i]);
+          break;
+        case "--seed":
+          seed = Long.parseLong(args[++i]);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      } // switch
+    } // for
+
+    BoardLoadClient client = new BoardLoadClient(URI.create(url), imagesPerPage);
+    long start = System.nanoTime();
+    long requests = client.run(sessions, seconds, seed);
+    PrintWriter pen = new PrintWriter(System.out, true);
+    client.report(pen, requests, (System.nanoTime() - start) / 1e9);
+    if (client.failures() > 0) {
+      System.exit(1);
+    } // if
+  } // main(String[])
+} // class BoardLoadClient
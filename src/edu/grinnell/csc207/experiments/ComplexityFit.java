@@ -0,0 +1,291 @@
+package edu.grinnell.csc207.experiments;
+
+import java.util.Locale;
+
+/**
+ * Fits measured times against the size of the input to find how they
+ * grow: not at all (1), like log n, or like n. Each model is fit to
+ * time = a + b * g(n) by least squares, and the model with the lowest
+ * Bayesian information criterion wins, so a model with a growth term
+ * must explain enough more of the variation to make up for its extra
+ * parameter.
+ *
+ * Noise alone can make a growth term fit a little better than a
+ * constant, so a growth term only counts if it adds at least MIN_GROWTH
+ * (as a fraction of the mean time) across the sizes measured.
+ *
+ * @author Princess Alexander
+ */
+public class ComplexityFit {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The least growth across the sizes, as a fraction of the mean time,
+   * for a growth term to count.
+   */
+  public static final double MIN_GROWTH = 0.25;
+
+  /**
+   * The ways time can grow with n, from slowest to fastest.
+   */
+  public enum Growth {
+    /** Constant time. */
+    CONSTANT("1"),
+    /** Logarithmic time. */
+    LOGARITHMIC("log n"),
+    /** Linear time. */
+    LINEAR("n");
+
+    /**
+     * The name used in reports.
+     */
+    private final String label;
+
+    /**
+     * Create a growth.
+     */
+    Growth(String label) {
+      this.label = label;
+    } // Growth(String)
+
+    /**
+     * Find the growth term for a size.
+     *
+     * @param n
+     *   The size.
+     *
+     * @return g(n).
+     */
+    public double term(double n) {
+      switch (this) {
+        case LOGARITHMIC:
+          return Math.log(n) / Math.log(2);
+        case LINEAR:
+          return n;
+        default:
+          return 0;
+      } // switch
+    } // term(double)
+
+    /**
+     * Find the growth with a name.
+     *
+     * @param label
+     *   "1", "log n" or "n".
+     *
+     * @return the growth.
+     *
+     * @throws IllegalArgumentException
+     *   If there is no such growth.
+     */
+    public static Growth of(String label) {
+      for (Growth growth : values()) {
+        if (growth.label.equals(label)) {
+          return growth;
+        } // if
+      } // for
+      throw new IllegalArgumentException("Unknown growth: " + label);
+    } // of(String)
+
+    /**
+     * Get the name used in reports.
+     *
+     * @return "1", "log n" or "n".
+     */
+    public String toString() {
+      return this.label;
+    } // toString()
+  } // enum Growth
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The intercept of each model, by growth.
+   */
+  private final double[] intercepts = new double[Growth.values().length];
+
+  /**
+   * The slope of each model, by growth.
+   */
+  private final double[] slopes = new double[Growth.values().length];
+
+  /**
+   * The fraction of the variation each model explains, by growth.
+   */
+  private final double[] rSquared = new double[Growth.values().length];
+
+  /**
+   * The information criterion of each model, by growth (lower is
+   * better; infinite if its growth term does not count).
+   */
+  private final double[] bic = new double[Growth.values().length];
+
+  /**
+   * The best model.
+   */
+  private final Growth best;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Fit times against sizes.
+   *
+   * @param sizes
+   *   The sizes (at least two different ones).
+   * @param times
+   *   The time at each size.
+   *
+   * @throws IllegalArgumentException
+   *   If the arrays differ in length or there are fewer than two sizes.
+   */
+  public ComplexityFit(double[] sizes, double[] times) {
+    if (sizes.length != times.length || sizes.length < 2) {
+      throw new IllegalArgumentException("Need a time for each of at least two sizes");
+    } // if
+    int m = sizes.length;
+    double mean = 0;
+    for (double time : times) {
+      mean += time;
+    } // for
+    mean /= m;
+    double total = 0;
+    for (double time : times) {
+      total += (time - mean) * (time - mean);
+    } // for
+    double smallest = Double.MAX_VALUE;
+    double largest = 0;
+    for (double size : sizes) {
+      smallest = Math.min(smallest, size);
+      largest = Math.max(largest, size);
+    } // for
+
+    Growth chosen = Growth.CONSTANT;
+    for (Growth growth : Growth.values()) {
+      int g = growth.ordinal();
+      double a = mean;
+      double b = 0;
+      if (growth != Growth.CONSTANT) {
+        double xMean = 0;
+        for (double size : sizes) {
+          xMean += growth.term(size);
+        } // for
+        xMean /= m;
+        double sxy = 0;
+        double sxx = 0;
+        for (int i = 0; i < m; i++) {
+          double dx = growth.term(sizes[i]) - xMean;
+          sxy += dx * (times[i] - mean);
+          sxx += dx * dx;
+        } // for
+        // Times do not shrink as n grows; a negative slope is noise.
+        b = (sxx == 0) ? 0 : Math.max(0, sxy / sxx);
+        a = mean - b * xMean;
+      } // if
+      double residual = 0;
+      for (int i = 0; i < m; i++) {
+        double error = times[i] - (a + b * growth.term(sizes[i]));
+        residual += error * error;
+      } // for
+      this.intercepts[g] = a;
+      this.slopes[g] = b;
+      this.rSquared[g] = (total == 0) ? 1 : 1 - residual / total;
+      int parameters = (growth == Growth.CONSTANT) ? 1 : 2;
+      double rise = b * (growth.term(largest) - growth.term(smallest));
+      boolean counts = growth == Growth.CONSTANT || (mean > 0 && rise >= MIN_GROWTH * mean);
+      // A tiny floor keeps a perfect fit from giving log(0).
+      this.bic[g] = counts
+          ? m * Math.log(residual / m + 1e-12 * mean * mean + 1e-300) + parameters * Math.log(m)
+          : Double.POSITIVE_INFINITY;
+      if (this.bic[g] < this.bic[chosen.ordinal()]) {
+        chosen = growth;
+      } // if
+    } // for
+    this.best = chosen;
+  } // ComplexityFit(double[], double[])
+
+  // +------------------+--------------------------------------------
+  // | Standard Methods |
+  // +------------------+
+
+  /**
+   * Summarize the fit.
+   *
+   * @return a string of the form "O(n): 12.0 + 0.5 * n (R^2 = 0.999)".
+   */
+  public String toString() {
+    return String.format(Locale.ROOT, "O(%s): %s (R^2 = %.3f)", this.best,
+        formula(this.best), rSquared(this.best));
+  } // toString()
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Get the growth that fits best.
+   *
+   * @return the growth.
+   */
+  public Growth growth() {
+    return this.best;
+  } // growth()
+
+  /**
+   * Get the intercept of a model.
+   *
+   * @param growth
+   *   The model.
+   *
+   * @return a in time = a + b * g(n).
+   */
+  public double intercept(Growth growth) {
+    return this.intercepts[growth.ordinal()];
+  } // intercept(Growth)
+
+  /**
+   * Get the slope of a model.
+   *
+   * @param growth
+   *   The model.
+   *
+   * @return b in time = a + b * g(n).
+   */
+  public double slope(Growth growth) {
+    return this.slopes[growth.ordinal()];
+  } // slope(Growth)
+
+  /**
+   * Get the fraction of the variation in the times a model explains.
+   *
+   * @param growth
+   *   The model.
+   *
+   * @return R^2 (1 for a perfect fit).
+   */
+  public double rSquared(Growth growth) {
+    return this.rSquared[growth.ordinal()];
+  } // rSquared(Growth)
+
+  /**
+   * Describe a model as a formula.
+   *
+   * @param growth
+   *   The model.
+   *
+   * @return a string of the form "12.0 + 0.5 * n".
+   */
+  public String formula(Growth growth) {
+    if (growth == Growth.CONSTANT) {
+      return String.format(Locale.ROOT, "%.3g", intercept(growth));
+    } // if
+    return String.format(Locale.ROOT, "%.3g + %.3g * %s", intercept(growth), slope(growth),
+        growth);
+  } // formula(Growth)
+} // class ComplexityFit
@@ -0,0 +1,279 @@
+package edu.grinnell.csc207.experiments;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.function.IntToLongFunction;
+
+/**
+ * A small microbenchmark harness, in the spirit of JMH, for code that
+ * can be run in a loop. Each benchmark is calibrated so that one
+ * iteration takes a fixed amount of time, run for some warm-up
+ * iterations (so the JIT has compiled it), and then timed over several
+ * measured iterations. Allocation is measured with the per-thread
+ * allocation counter and garbage collection with the collector beans,
+ * so each result reports time, allocation and GC per operation.
+ *
+ * A benchmark is an IntToLongFunction that performs the given number
+ * of operations and returns some value computed from them; the values
+ * are consumed so that the JIT cannot remove the work.
+ *
+ * @author Princess Alexander
+ */
+public class Harness {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The header for the CSV columns of a result.
+   */
+  public static final String CSV_HEADER =
+      "ns_per_op,ns_stddev,bytes_per_op,gc_count,gc_ms,ops";
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of warm-up iterations.
+   */
+  private final int warmups;
+
+  /**
+   * The number of measured iterations.
+   */
+  private final int iterations;
+
+  /**
+   * How long each iteration should take, in nanoseconds.
+   */
+  private final long iterationNanos;
+
+  /**
+   * Where consumed values go.
+   */
+  private static volatile long sink;
+
+  /**
+   * The allocation counter, if the JVM has one.
+   */
+  private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a harness.
+   *
+   * @param warmups
+   *   The number of warm-up iterations.
+   * @param iterations
+   *   The number of measured iterations.
+   * @param iterationMillis
+   *   How long each iteration should take, in milliseconds.
+   */
+  public Harness(int warmups, int iterations, long iterationMillis) {
+    this.warmups = warmups;
+    this.iterations = Math.max(1, iterations);
+    this.iterationNanos = iterationMillis * 1_000_000;
+  } // Harness(int, int, long)
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Run a benchmark.
+   *
+   * @param body
+   *   Performs the given number of operations.
+   *
+   * @return the result.
+   */
+  public Result run(IntToLongFunction body) {
+    int ops = calibrate(body);
+    for (int i = 0; i < this.warmups; i++) {
+      sink += body.applyAsLong(ops);
+    } // for
+
+    double[] times = new double[this.iterations];
+    long gcCount = gcCount();
+    long gcMillis = gcMillis();
+    long allocated = allocated();
+    for (int i = 0; i < this.iterations; i++) {
+      long start = System.nanoTime();
+      sink += body.applyAsLong(ops);
+      times[i] = (double) (System.nanoTime() - start) / ops;
+    } // for
+    allocated = allocated() - allocated;
+    gcCount = gcCount() - gcCount;
+    gcMillis = gcMillis() - gcMillis;
+
+    double mean = 0;
+    for (double time : times) {
+      mean += time;
+    } // for
+    mean /= times.length;
+    double variance = 0;
+    for (double time : times) {
+      variance += (time - mean) * (time - mean);
+    } // for
+    double stddev = Math.sqrt(variance / times.length);
+    long total = (long) ops * this.iterations;
+    double bytes = (allocated < 0) ? Double.NaN : (double) allocated / total;
+    return new Result(mean, stddev, bytes, gcCount, gcMillis, total);
+  } // run(IntToLongFunction)
+
+  /**
+   * Find how many bytes the current thread has allocated so far.
+   *
+   * @return the number of bytes, or -1 if the JVM cannot tell.
+   */
+  public static long allocated() {
+    return (THREADS == null) ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+  } // allocated()
+
+  /**
+   * Consume a value, so that the work that produced it is not removed.
+   *
+   * @param value
+   *   The value.
+   */
+  public static void consume(long value) {
+    sink += value;
+  } // consume(long)
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Find how many operations make up an iteration, by doubling until
+   * one call takes long enough.
+   */
+  private int calibrate(IntToLongFunction body) {
+    int ops = 1;
+    while (true) {
+      long start = System.nanoTime();
+      sink += body.applyAsLong(ops);
+      long elapsed = System.nanoTime() - start;
+      if (elapsed >= this.iterationNanos / 2 || ops >= (1 << 29)) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+            (long) ops * this.iterationNanos / Math.max(1, elapsed)));
+      } // if
+      ops *= 2;
+    } // while
+  } // calibrate(IntToLongFunction)
+
+  /**
+   * Get the allocation counter, if there is one.
+   */
+  private static com.sun.management.ThreadMXBean threads() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+      if (threads.isThreadAllocatedMemorySupported()) {
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+      } // if
+    } // if
+    return null;
+  } // threads()
+
+  /**
+   * Count the garbage collections so far.
+   */
+  private static long gcCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(0, gc.getCollectionCount());
+    } // for
+    return count;
+  } // gcCount()
+
+  /**
+   * Total the time spent in garbage collection so far.
+   */
+  private static long gcMillis() {
+    long millis = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      millis += Math.max(0, gc.getCollectionTime());
+    } // for
+    return millis;
+  } // gcMillis()
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * The measurements of one benchmark.
+   */
+  public static class Result {
+    /**
+     * The mean time per operation, in nanoseconds.
+     */
+    public final double nsPerOp;
+
+    /**
+     * The standard deviation of the time per operation across
+     * iterations.
+     */
+    public final double nsStdDev;
+
+    /**
+     * The bytes allocated per operation (NaN if unknown).
+     */
+    public final double bytesPerOp;
+
+    /**
+     * The number of garbage collections while measuring.
+     */
+    public final long gcCount;
+
+    /**
+     * The time spent in garbage collection while measuring.
+     */
+    public final long gcMillis;
+
+    /**
+     * The number of operations measured.
+     */
+    public final long ops;
+
+    /**
+     * Create a result.
+     */
+    Result(double nsPerOp, double nsStdDev, double bytesPerOp, long gcCount, long gcMillis,
+        long ops) {
+      this.nsPerOp = nsPerOp;
+      this.nsStdDev = nsStdDev;
+      this.bytesPerOp = bytesPerOp;
+      this.gcCount = gcCount;
+      this.gcMillis = gcMillis;
+      this.ops = ops;
+    } // Result(double, double, double, long, long, long)
+
+    /**
+     * Format the result as CSV columns (see CSV_HEADER).
+     *
+     * @return the columns.
+     */
+    public String toCsv() {
+      return String.format(Locale.ROOT, "%.3f,%.3f,%.2f,%d,%d,%d",
+          this.nsPerOp, this.nsStdDev, this.bytesPerOp, this.gcCount, this.gcMillis, this.ops);
+    } // toCsv()
+
+    /**
+     * Summarize the result.
+     *
+     * @return a string of the form "X ns/op (+- Y), Z B/op".
+     */
+    public String toString() {
+      return String.format(Locale.ROOT, "%.1f ns/op (+- %.1f), %.1f B/op",
+          this.nsPerOp, this.nsStdDev, this.bytesPerOp);
+    } // toString()
+  } // class Result
+} // class Harness
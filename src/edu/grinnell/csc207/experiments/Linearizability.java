@@ -0,0 +1,337 @@
+package edu.grinnell.csc207.experiments;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.LongToIntFunction;
+
+/**
+ * Checks that a history of concurrent operations on a map is
+ * linearizable: that every operation can be given a single moment,
+ * between when it was called and when it returned, at which it took
+ * effect, so that the results are the same as if the operations had
+ * run one at a time in that order.
+ *
+ * Operations on different keys never affect each other, so each key's
+ * operations are checked separately (as a single register), which
+ * keeps the search small. Each key's history is checked with the
+ * Wing-Gong algorithm, as improved by Lowe: operations are tried in
+ * order of their calls, backtracking when an operation returns before
+ * it could have taken effect, and remembering which (operations done,
+ * value) states have already been tried.
+ *
+ * Values are non-negative ints; ABSENT stands for a missing key.
+ *
+ * @author Princess Alexander
+ */
+public class Linearizability {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The value of a missing key.
+   */
+  public static final int ABSENT = -1;
+
+  /**
+   * Set a key to the value of the operation.
+   */
+  public static final int PUT = 0;
+
+  /**
+   * Get the value of a key; the value of the operation is the result
+   * (or ABSENT).
+   */
+  public static final int GET = 1;
+
+  /**
+   * Remove a key.
+   */
+  public static final int REMOVE = 2;
+
+  /**
+   * Check for a key; the value of the operation is 1 if it was found
+   * and 0 if not.
+   */
+  public static final int HAS = 3;
+
+  /**
+   * The names of the kinds of operations.
+   */
+  static final String[] KINDS = {"put", "get", "remove", "has"};
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Check a history.
+   *
+   * @param history
+   *   The operations, in any order.
+   * @param initial
+   *   The value of each key before the first operation (or ABSENT).
+   *
+   * @return null if the history is linearizable, or a description of
+   *   the operations on the first key that is not.
+   */
+  public static String check(List<Operation> history, LongToIntFunction initial) {
+    Map<Long, List<Operation>> byKey = new HashMap<Long, List<Operation>>();
+    for (Operation op : history) {
+      byKey.computeIfAbsent(op.key, (k) -> new ArrayList<Operation>()).add(op);
+    } // for
+    for (Map.Entry<Long, List<Operation>> entry : byKey.entrySet()) {
+      List<Operation> ops = entry.getValue();
+      if (!checkKey(ops, initial.applyAsInt(entry.getKey()))) {
+        ops.sort((a, b) -> Long.compare(a.called, b.called));
+        StringBuilder sb = new StringBuilder("Not linearizable: key " + entry.getKey());
+        for (int i = 0; i < ops.size() && i < 20; i++) {
+          sb.append("\n  ").append(ops.get(i));
+        } // for
+        if (ops.size() > 20) {
+          sb.append("\n  ... (").append(ops.size() - 20).append(" more)");
+        } // if
+        return sb.toString();
+      } // if
+    } // for
+    return null;
+  } // check(List, LongToIntFunction)
+
+  /**
+   * Apply an operation to a value.
+   *
+   * @param value
+   *   The value before.
+   * @param op
+   *   The operation.
+   *
+   * @return the value after, or null if the operation could not have
+   *   given its result.
+   */
+  static Integer step(int value, Operation op) {
+    switch (op.kind) {
+      case PUT:
+        return op.value;
+      case GET:
+        return (op.value == value) ? value : null;
+      case REMOVE:
+        return ABSENT;
+      default:
+        return ((op.value == 1) == (value != ABSENT)) ? value : null;
+    } // switch
+  } // step(int, Operation)
+
+  /**
+   * Check the history of one key.
+   */
+  private static boolean checkKey(List<Operation> ops, int initial) {
+    int n = ops.size();
+    // Entries 2i and 2i+1 are the call and return of operation i; the
+    // list starts and ends with the sentinel 2n.
+    long[] times = new long[2 * n];
+    Integer[] order = new Integer[2 * n];
+    for (int i = 0; i < n; i++) {
+      times[2 * i] = ops.get(i).called;
+      times[2 * i + 1] = ops.get(i).returned;
+      order[2 * i] = 2 * i;
+      order[2 * i + 1] = 2 * i + 1;
+    } // for
+    // At equal times, calls go first, so the operations overlap.
+    Arrays.sort(order, (a, b) -> (times[a] != times[b]) ? Long.compare(times[a], times[b])
+        : Integer.compare(a & 1, b & 1));
+    int head = 2 * n;
+    int[] next = new int[2 * n + 1];
+    int[] prev = new int[2 * n + 1];
+    int last = head;
+    for (int e : order) {
+      next[last] = e;
+      prev[e] = last;
+      last = e;
+    } // for
+    next[last] = head;
+    prev[head] = last;
+
+    BitSet done = new BitSet(n);
+    int value = initial;
+    Set<State> seen = new HashSet<State>();
+    Deque<int[]> stack = new ArrayDeque<int[]>();
+    int entry = next[head];
+    while (next[head] != head) {
+      if ((entry & 1) == 0) {
+        int op = entry / 2;
+        Integer after = step(value, ops.get(op));
+        // Skip operations that cannot take effect now, and states that
+        // have already been tried.
+        boolean skip = true;
+        if (after != null) {
+          BitSet doneAfter = (BitSet) done.clone();
+          doneAfter.set(op);
+          skip = !seen.add(new State(doneAfter, after));
+        } // if
+        if (!skip) {
+          // Take effect now: remove the call and return from the list.
+          stack.push(new int[] {entry, value});
+          value = after;
+          done.set(op);
+          unlink(entry, next, prev);
+          unlink(entry + 1, next, prev);
+          entry = next[head];
+        } else {
+          entry = next[entry];
+        } // if/else
+      } else {
+        // An operation returned without taking effect; undo the last
+        // choice and try the next call instead.
+        if (stack.isEmpty()) {
+          return false;
+        } // if
+        int[] top = stack.pop();
+        entry = top[0];
+        value = top[1];
+        done.clear(entry / 2);
+        relink(entry + 1, next, prev);
+        relink(entry, next, prev);
+        entry = next[entry];
+      } // if/else
+    } // while
+    return true;
+  } // checkKey(List, int)
+
+  /**
+   * Remove an entry from the list (it keeps its own links).
+   */
+  private static void unlink(int e, int[] next, int[] prev) {
+    next[prev[e]] = next[e];
+    prev[next[e]] = prev[e];
+  } // unlink(int, int[], int[])
+
+  /**
+   * Put back the last entry removed.
+   */
+  private static void relink(int e, int[] next, int[] prev) {
+    next[prev[e]] = e;
+    prev[next[e]] = e;
+  } // relink(int, int[], int[])
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * One operation in a history.
+   */
+  public static class Operation {
+    /**
+     * The thread that ran it.
+     */
+    public final int thread;
+
+    /**
+     * PUT, GET, REMOVE or HAS.
+     */
+    public final int kind;
+
+    /**
+     * The key.
+     */
+    public final long key;
+
+    /**
+     * The value put, the value got, or (for HAS) 1 or 0.
+     */
+    public final int value;
+
+    /**
+     * When it was called, from System.nanoTime().
+     */
+    public final long called;
+
+    /**
+     * When it returned, from System.nanoTime().
+     */
+    public final long returned;
+
+    /**
+     * Create an operation.
+     *
+     * @param thread
+     *   The thread that ran it.
+     * @param kind
+     *   PUT, GET, REMOVE or HAS.
+     * @param key
+     *   The key.
+     * @param value
+     *   The value put, the value got, or (for HAS) 1 or 0.
+     * @param called
+     *   When it was called.
+     * @param returned
+     *   When it returned.
+     */
+    public Operation(int thread, int kind, long key, int value, long called, long returned) {
+      this.thread = thread;
+      this.kind = kind;
+      this.key = key;
+      this.value = value;
+      this.called = called;
+      this.returned = returned;
+    } // Operation(int, int, long, int, long, long)
+
+    /**
+     * Describe the operation.
+     *
+     * @return a string of the form "[called, returned] thread 2: get(5) = 7".
+     */
+    public String toString() {
+      String result = (this.kind == GET) ? " = " + this.value
+          : (this.kind == HAS) ? " = " + (this.value == 1) : "";
+      String argument = (this.kind == PUT) ? ", " + this.value : "";
+      return "[" + this.called + ", " + this.returned + "] thread " + this.thread + ": "
+          + KINDS[this.kind] + "(" + this.key + argument + ")" + result;
+    } // toString()
+  } // class Operation
+
+  /**
+   * A point in the search: which operations have taken effect, and the
+   * value they left.
+   */
+  private static class State {
+    /**
+     * The operations that have taken effect.
+     */
+    final BitSet done;
+
+    /**
+     * The value.
+     */
+    final int value;
+
+    /**
+     * Create a state.
+     */
+    State(BitSet done, int value) {
+      this.done = done;
+      this.value = value;
+    } // State(BitSet, int)
+
+    @Override
+    public boolean equals(Object other) {
+      return (other instanceof State) && ((State) other).value == this.value
+          && ((State) other).done.equals(this.done);
+    } // equals(Object)
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.done, this.value);
+    } // hashCode()
+  } // class State
+} // class Linearizability
@@ -0,0 +1,250 @@
+package edu.grinnell.csc207.experiments;
+
+import edu.grinnell.csc207.util.AssociativeArray;
+import edu.grinnell.csc207.util.KeyNotFoundException;
+import edu.grinnell.csc207.util.NullKeyException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The map operations MapBenchmark measures, so that AssociativeArray
+ * and the JDK maps (and any new backend) can be measured by the same
+ * code. To compare a new backend, implement this interface and add it
+ * to MapBenchmark.BACKENDS.
+ *
+ * @param <K> the key type
+ *
+ * @author Princess Alexander
+ */
+public interface MapBackend<K> {
+  /**
+   * Set the value of a key.
+   *
+   * @param key
+   *   The key.
+   * @param value
+   *   The value.
+   */
+  void set(K key, Integer value);
+
+  /**
+   * Get the value of a key.
+   *
+   * @param key
+   *   The key.
+   *
+   * @return the value, or null if the key is not there.
+   */
+  Integer get(K key);
+
+  /**
+   * Determine if a key is there.
+   *
+   * @param key
+   *   The key.
+   *
+   * @return true if it is, false otherwise.
+   */
+  boolean hasKey(K key);
+
+  /**
+   * Remove a key, if it is there.
+   *
+   * @param key
+   *   The key.
+   */
+  void remove(K key);
+
+  /**
+   * Make a copy.
+   *
+   * @return the copy.
+   */
+  MapBackend<K> copy();
+
+  /**
+   * List the keys.
+   *
+   * @return the keys.
+   */
+  Object[] keys();
+
+  /**
+   * Get the name of the backend (for reports).
+   *
+   * @return the name.
+   */
+  String name();
+
+  // +-----------+---------------------------------------------------
+  // | Factories |
+  // +-----------+
+
+  /**
+   * Create an empty AssociativeArray backend.
+   *
+   * @param <K> the key type
+   *
+   * @return the backend.
+   */
+  static <K> MapBackend<K> associativeArray() {
+    return new OfAssociativeArray<K>(new AssociativeArray<K, Integer>());
+  } // associativeArray()
+
+  /**
+   * Create an empty HashMap backend.
+   *
+   * @param <K> the key type
+   *
+   * @return the backend.
+   */
+  static <K> MapBackend<K> hashMap() {
+    return new OfMap<K>("HashMap", HashMap::new, new HashMap<K, Integer>());
+  } // hashMap()
+
+  /**
+   * Create an empty LinkedHashMap backend.
+   *
+   * @param <K> the key type
+   *
+   * @return the backend.
+   */
+  static <K> MapBackend<K> linkedHashMap() {
+    return new OfMap<K>("LinkedHashMap", LinkedHashMap::new, new LinkedHashMap<K, Integer>());
+  } // linkedHashMap()
+
+  // +-----------------+---------------------------------------------
+  // | Implementations |
+  // +-----------------+
+
+  /**
+   * A backend that uses an AssociativeArray.
+   *
+   * @param <K> the key type
+   */
+  final class OfAssociativeArray<K> implements MapBackend<K> {
+    /**
+     * The array.
+     */
+    private final AssociativeArray<K, Integer> array;
+
+    /**
+     * Wrap an array.
+     */
+    OfAssociativeArray(AssociativeArray<K, Integer> array) {
+      this.array = array;
+    } // OfAssociativeArray(AssociativeArray)
+
+    @Override
+    public void set(K key, Integer value) {
+      try {
+        this.array.set(key, value);
+      } catch (NullKeyException e) {
+        throw new IllegalArgumentException(e);
+      } // try/catch
+    } // set(K, Integer)
+
+    @Override
+    public Integer get(K key) {
+      try {
+        return this.array.get(key);
+      } catch (KeyNotFoundException e) {
+        return null;
+      } // try/catch
+    } // get(K)
+
+    @Override
+    public boolean hasKey(K key) {
+      return this.array.hasKey(key);
+    } // hasKey(K)
+
+    @Override
+    public void remove(K key) {
+      this.array.remove(key);
+    } // remove(K)
+
+    @Override
+    public MapBackend<K> copy() {
+      return new OfAssociativeArray<K>(this.array.clone());
+    } // copy()
+
+    @Override
+    public Object[] keys() {
+      return this.array.keys();
+    } // keys()
+
+    @Override
+    public String name() {
+      return "AssociativeArray";
+    } // name()
+  } // class OfAssociativeArray
+
+  /**
+   * A backend that uses a JDK map.
+   *
+   * @param <K> the key type
+   */
+  final class OfMap<K> implements MapBackend<K> {
+    /**
+     * The name of the map class.
+     */
+    private final String name;
+
+    /**
+     * Makes copies of the map.
+     */
+    private final Function<Map<K, Integer>, Map<K, Integer>> copier;
+
+    /**
+     * The map.
+     */
+    private final Map<K, Integer> map;
+
+    /**
+     * Wrap a map.
+     */
+    OfMap(String name, Function<Map<K, Integer>, Map<K, Integer>> copier,
+        Map<K, Integer> map) {
+      this.name = name;
+      this.copier = copier;
+      this.map = map;
+    } // OfMap(String, Function, Map)
+
+    @Override
+    public void set(K key, Integer value) {
+      this.map.put(key, value);
+    } // set(K, Integer)
+
+    @Override
+    public Integer get(K key) {
+      return this.map.get(key);
+    } // get(K)
+
+    @Override
+    public boolean hasKey(K key) {
+      return this.map.containsKey(key);
+    } // hasKey(K)
+
+    @Override
+    public void remove(K key) {
+      this.map.remove(key);
+    } // remove(K)
+
+    @Override
+    public MapBackend<K> copy() {
+      return new OfMap<K>(this.name, this.copier, this.copier.apply(this.map));
+    } // copy()
+
+    @Override
+    public Object[] keys() {
+      return this.map.keySet().toArray();
+    } // keys()
+
+    @Override
+    public String name() {
+      return this.name;
+    } // name()
+  } // class OfMap
+} // interface MapBackend
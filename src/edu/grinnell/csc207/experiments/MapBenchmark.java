@@ -0,0 +1,260 @@
+package edu.grinnell.csc207.experiments;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntToLongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Measures AssociativeArray against HashMap and LinkedHashMap (see
+ * MapBackend) for set, get, hasKey, remove, clone and keys, over a
+ * range of sizes, hit ratios and key types, and writes the results as
+ * CSV so that runs (and new backends) can be compared by script.
+ *
+ * Each row of the CSV is one benchmark: the operation, backend, key
+ * type, size and hit ratio, followed by the columns of
+ * Harness.CSV_HEADER. Lookups are measured at hit ratios of 1, 0.5 and
+ * 0 (i.e., every key present, half, and none). "set" overwrites
+ * existing keys and "remove" removes a key and puts it back, so the
+ * size stays fixed while measuring.
+ *
+ * AssociativeArray operations are linear in the size, so building a
+ * large one takes quadratic time. Sizes above --max-linear (32768 by
+ * default) are skipped for it and reported with a note instead of
+ * numbers.
+ *
+ * Usage: java edu.grinnell.csc207.experiments.MapBenchmark
+ *   [--csv FILE] [--sizes 8,64,...] [--max-linear N] [--quick]
+ *
+ * @author Princess Alexander
+ */
+public class MapBenchmark {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The sizes measured by default (8 to about a million).
+   */
+  static final int[] SIZES = {8, 64, 512, 4096, 32768, 262144, 1048576};
+
+  /**
+   * The hit ratios measured for lookups.
+   */
+  static final double[] HIT_RATIOS = {1.0, 0.5, 0.0};
+
+  /**
+   * The number of distinct lookup keys each benchmark cycles through.
+   */
+  static final int LOOKUPS = 1024;
+
+  /**
+   * The backends to compare.
+   */
+  static final List<Supplier<MapBackend<Object>>> BACKENDS = List.of(
+      MapBackend::associativeArray, MapBackend::hashMap, MapBackend::linkedHashMap);
+
+  /**
+   * The key types: how to make the key for a number.
+   */
+  static final String[] KEY_TYPES = {"String", "Integer"};
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Make the keys 0 to n-1 of a type. Integer keys are made once, so
+   * boxing is not measured.
+   *
+   * @param type
+   *   "String" or "Integer".
+   * @param from
+   *   The first number.
+   * @param n
+   *   How many keys.
+   *
+   * @return the keys.
+   */
+  static Object[] makeKeys(String type, int from, int n) {
+    Object[] keys = new Object[n];
+    for (int i = 0; i < n; i++) {
+      keys[i] = type.equals("String") ? ("key" + (from + i)) : (Object) Integer.valueOf(from + i);
+    } // for
+    return keys;
+  } // makeKeys(String, int, int)
+
+  /**
+   * Pick lookup keys with a given fraction present in the map, in a
+   * fixed random order.
+   *
+   * @param present
+   *   Keys that are in the map.
+   * @param absent
+   *   Keys that are not.
+   * @param hitRatio
+   *   The fraction of lookups that should hit.
+   * @param random
+   *   Where to get random numbers.
+   *
+   * @return the lookup keys.
+   */
+  static Object[] lookups(Object[] present, Object[] absent, double hitRatio, Random random) {
+    Object[] keys = new Object[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      boolean hit = i < Math.round(hitRatio * LOOKUPS);
+      Object[] from = hit ? present : absent;
+      keys[i] = from[random.nextInt(from.length)];
+    } // for
+    // Shuffle, so hits and misses are interleaved.
+    for (int i = LOOKUPS - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      Object temp = keys[i];
+      keys[i] = keys[j];
+      keys[j] = temp;
+    } // for
+    return keys;
+  } // lookups(Object[], Object[], double, Random)
+
+  /**
+   * Measure one benchmark and write its row.
+   *
+   * @param csv
+   *   Where to write the row.
+   * @param harness
+   *   The harness.
+   * @param label
+   *   The first columns of the row.
+   * @param body
+   *   The benchmark.
+   */
+  static void measure(PrintWriter csv, Harness harness, String label, IntToLongFunction body) {
+    String row;
+    try {
+      row = label + "," + harness.run(body).toCsv() + ",";
+    } catch (RuntimeException e) {
+      // e.g., AssociativeArray.keys() only works for String keys
+      row = label + ",,,,,,," + e.getClass().getSimpleName();
+    } // try/catch
+    csv.println(row);
+    csv.flush();
+    System.err.println(row);
+  } // measure(PrintWriter, Harness, String, IntToLongFunction)
+
+  // +------+--------------------------------------------------------
+  // | Main |
+  // +------+
+
+  /**
+   * Run the benchmarks.
+   *
+   * @param args
+   *   The options described above.
+   *
+   * @throws IOException
+   *   If the CSV file cannot be written.
+   */
+  public static void main(String[] args) throws IOException {
+    String csvFile = null;
+    int[] sizes = SIZES;
+    int maxLinear = 32768;
+    Harness harness = new Harness(5, 10, 100);
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--csv")) {
+        csvFile = args[++i];
+      } else if (args[i].equals("--sizes")) {
+        sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+      } else if (args[i].equals("--max-linear")) {
+        maxLinear = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--quick")) {
+        harness = new Harness(2, 3, 20);
+      } else {
+        throw new IllegalArgumentException("Unknown option: " + args[i]);
+      } // if/else
+    } // for
+
+    PrintWriter csv = (csvFile == null) ? new PrintWriter(System.out, true)
+        : new PrintWriter(new FileWriter(csvFile));
+    csv.println("benchmark,backend,key_type,size,hit_ratio," + Harness.CSV_HEADER + ",note");
+    Random random = new Random(207);
+    for (String type : KEY_TYPES) {
+      for (int size : sizes) {
+        Object[] present = makeKeys(type, 0, size);
+        Object[] absent = makeKeys(type, size, Math.max(size, LOOKUPS));
+        for (Supplier<MapBackend<Object>> backend : BACKENDS) {
+          MapBackend<Object> map = backend.get();
+          String prefix = "," + map.name() + "," + type + "," + size + ",";
+          if (map.name().equals("AssociativeArray") && size > maxLinear) {
+            csv.println("all" + prefix + ",,,,,,,skipped: above --max-linear");
+            continue;
+          } // if
+          for (Object key : present) {
+            map.set(key, 1);
+          } // for
+          run(csv, harness, prefix, map, present, absent, random);
+        } // for
+      } // for
+    } // for
+    csv.close();
+  } // main(String[])
+
+  /**
+   * Run every benchmark on a map that holds the present keys.
+   */
+  static void run(PrintWriter csv, Harness harness, String prefix, MapBackend<Object> map,
+      Object[] present, Object[] absent, Random random) {
+    for (double ratio : HIT_RATIOS) {
+      Object[] keys = lookups(present, absent, ratio, random);
+      measure(csv, harness, "get" + prefix + ratio, (n) -> {
+        long found = 0;
+        for (int i = 0; i < n; i++) {
+          Integer value = map.get(keys[i & (LOOKUPS - 1)]);
+          found += (value == null) ? 0 : value;
+        } // for
+        return found;
+      });
+      measure(csv, harness, "hasKey" + prefix + ratio, (n) -> {
+        long found = 0;
+        for (int i = 0; i < n; i++) {
+          found += map.hasKey(keys[i & (LOOKUPS - 1)]) ? 1 : 0;
+        } // for
+        return found;
+      });
+    } // for
+
+    Object[] hits = lookups(present, absent, 1.0, random);
+    measure(csv, harness, "set" + prefix + "1.0", (n) -> {
+      for (int i = 0; i < n; i++) {
+        map.set(hits[i & (LOOKUPS - 1)], i);
+      } // for
+      return n;
+    });
+    measure(csv, harness, "remove" + prefix + "1.0", (n) -> {
+      for (int i = 0; i < n; i++) {
+        Object key = hits[i & (LOOKUPS - 1)];
+        map.remove(key);
+        map.set(key, i);
+      } // for
+      return n;
+    });
+    measure(csv, harness, "clone" + prefix, (n) -> {
+      long total = 0;
+      for (int i = 0; i < n; i++) {
+        total += map.copy().hasKey(hits[0]) ? 1 : 0;
+      } // for
+      return total;
+    });
+    measure(csv, harness, "keys" + prefix, (n) -> {
+      long total = 0;
+      for (int i = 0; i < n; i++) {
+        total += map.keys().length;
+      } // for
+      return total;
+    });
+  } // run(PrintWriter, Harness, String, MapBackend, Object[], Object[], Random)
+} // class MapBenchmark
@@ -0,0 +1,225 @@
+package edu.grinnell.csc207.experiments;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * Writes made-up mapping files (in the format read by AACMappings) of
+ * any size, for testing and benchmarking at scale. The same options
+ * and seed always give the same file, so results can be compared
+ * between runs and machines.
+ *
+ * Every image location is distinct and padded to about the requested
+ * length (e.g., img/c0003/i0000042-kamorizu.png), and every text is
+ * made of pronounceable made-up words of about the requested length.
+ *
+ * Usage: java edu.grinnell.csc207.experiments.VocabularyGenerator
+ *   [--categories N] [--items N] [--path N] [--text N] [--seed N]
+ *   [--out FILE]
+ *
+ * @author Princess Alexander
+ */
+public class VocabularyGenerator {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The syllables words are made from.
+   */
+  static final String[] SYLLABLES = {
+    "ba", "be", "bo", "ca", "da", "di", "fa", "fe", "go", "ha", "ki", "la",
+    "li", "ma", "me", "mo", "na", "ni", "pa", "po", "ra", "ri", "sa", "so",
+    "ta", "ti", "to", "va", "wa", "ya", "zo", "zu",
+  };
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The number of categories.
+   */
+  private final int categories;
+
+  /**
+   * The number of items in each category.
+   */
+  private final int itemsPerCategory;
+
+  /**
+   * The length to pad image locations to.
+   */
+  private final int pathLength;
+
+  /**
+   * The length of each text, roughly.
+   */
+  private final int textLength;
+
+  /**
+   * The seed for the made-up words.
+   */
+  private final long seed;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a generator.
+   *
+   * @param categories
+   *   The number of categories.
+   * @param itemsPerCategory
+   *   The number of items in each category.
+   * @param pathLength
+   *   The length of each image location, at least.
+   * @param textLength
+   *   The length of each text, roughly.
+   * @param seed
+   *   The seed for the made-up words.
+   */
+  public VocabularyGenerator(int categories, int itemsPerCategory, int pathLength,
+      int textLength, long seed) {
+    this.categories = categories;
+    this.itemsPerCategory = itemsPerCategory;
+    this.pathLength = pathLength;
+    this.textLength = Math.max(1, textLength);
+    this.seed = seed;
+  } // VocabularyGenerator(int, int, int, int, long)
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Write the mapping file.
+   *
+   * @param out
+   *   Where to write it.
+   */
+  public void write(Writer out) {
+    PrintWriter pen = new PrintWriter(out);
+    Random random = new Random(this.seed);
+    for (int c = 0; c < this.categories; c++) {
+      String dir = String.format("img/c%04d/", c);
+      pen.println(path(dir + "category-", random) + " " + text(random));
+      for (int i = 0; i < this.itemsPerCategory; i++) {
+        pen.println(">" + path(String.format("%si%07d-", dir, i), random) + " " + text(random));
+      } // for
+    } // for
+    pen.flush();
+  } // write(Writer)
+
+  /**
+   * Write the mapping file.
+   *
+   * @param filename
+   *   The file to write.
+   *
+   * @throws IOException
+   *   If the file cannot be written.
+   */
+  public void write(String filename) throws IOException {
+    try (Writer out = new BufferedWriter(new FileWriter(filename))) {
+      write(out);
+    } // try
+  } // write(String)
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Make a made-up word of two or three syllables.
+   */
+  private static String word(Random random) {
+    StringBuilder sb = new StringBuilder();
+    int syllables = 2 + random.nextInt(2);
+    for (int i = 0; i < syllables; i++) {
+      sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+    } // for
+    return sb.toString();
+  } // word(Random)
+
+  /**
+   * Make an image location that starts with a prefix, padded with
+   * made-up words to the path length.
+   */
+  private String path(String prefix, Random random) {
+    StringBuilder sb = new StringBuilder(prefix);
+    do {
+      sb.append(word(random));
+    } while (sb.length() + 4 < this.pathLength);
+    return sb.append(".png").toString();
+  } // path(String, Random)
+
+  /**
+   * Make a text of made-up words, about the text length.
+   */
+  private String text(Random random) {
+    StringBuilder sb = new StringBuilder(word(random));
+    while (sb.length() < this.textLength) {
+      sb.append(' ').append(word(random));
+    } // while
+    return sb.toString();
+  } // text(Random)
+
+  // +------+--------------------------------------------------------
+  // | Main |
+  // +------+
+
+  /**
+   * Write a mapping file.
+   *
+   * @param args
+   *   The options described above.
+   *
+   * @throws IOException
+   *   If the file cannot be written.
+   */
+  public static void main(String[] args) throws IOException {
+    int categories = 10;
+    int items = 100;
+    int path = 32;
+    int text = 12;
+    long seed = 207;
+    String out = null;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--categories":
+          categories = Integer.parseInt(args[++i]);
+          break;
+        case "--items":
+          items = Integer.parseInt(args[++i]);
+          break;
+        case "--path":
+          path = Integer.parseInt(args[++i]);
+          break;
+        case "--text":
+          text = Integer.parseInt(args[++i]);
+          break;
+        case "--seed":
+          seed = Long.parseLong(args[++i]);
+          break;
+        case "--out":
+          out = args[++i];
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      } // switch
+    } // for
+    VocabularyGenerator generator = new VocabularyGenerator(categories, items, path, text, seed);
+    if (out == null) {
+      generator.write(new PrintWriter(System.out));
+    } else {
+      generator.write(out);
+    } // if/else
+  } // main(String[])
+} // class VocabularyGenerator
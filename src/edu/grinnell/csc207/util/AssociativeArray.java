@@ -63,6 +63,8 @@ public class AssociativeArray<K, V> {
    */
   public AssociativeArray<K, V> clone() {
     AssociativeArray<K, V> copy = new AssociativeArray<>();
+    // The copy needs as much room as we have, not the default capacity.
+    copy.pairs = java.util.Arrays.copyOf(copy.pairs, this.pairs.length);
     for (int i = 0; i < this.size; i++) {
       copy.pairs[i] = this.pairs[i].clone();
     } //for
@@ -159,6 +161,9 @@ public class AssociativeArray<K, V> {
    */
   public V get(K key) throws KeyNotFoundException {
     int index = find(key);
+    if (index < 0) {
+      throw new KeyNotFoundException("Key not found: " + key);
+    } //if
     return this.pairs[index].val;
   } // get(K)
 
@@ -172,12 +177,7 @@ public class AssociativeArray<K, V> {
    * @return true if the key appears and false otherwise.
    */
   public boolean hasKey(K key) {
-    try {
-      find(key);
-      return true;
-    } catch (KeyNotFoundException e) {
-      return false;
-    } //catch
+    return find(key) >= 0;
   } // hasKey(K)
 
   /**
@@ -189,17 +189,17 @@ public class AssociativeArray<K, V> {
    *   The key to remove.
    */
   public void remove(K key) {
-    try {
-      int index = find(key);
-      // Shift all elements after the removed one to the left
-      for (int i = index; i < this.size - 1; i++) {
-        this.pairs[i] = this.pairs[i + 1];
-      } //for
-      this.pairs[this.size - 1] = null; // Clear the last spot
-      this.size--;
-    } catch (KeyNotFoundException e) {
+    int index = find(key);
+    if (index < 0) {
       // If the key is not found, do nothing
-    } //catch
+      return;
+    } //if
+    // Shift all elements after the removed one to the left
+    for (int i = index; i < this.size - 1; i++) {
+      this.pairs[i] = this.pairs[i + 1];
+    } //for
+    this.pairs[this.size - 1] = null; // Clear the last spot
+    this.size--;
   } // remove(K)
 
   /**
@@ -223,27 +223,26 @@ public class AssociativeArray<K, V> {
 
   /**
    * Find the index of the first entry in `pairs` that contains key.
-   * If no such entry is found, throws an exception.
+   * Misses are common (e.g., hasKey), so they return -1 rather than
+   * building an exception.
    *
    * @param key
    *   The key of the entry.
    *
    * @return
-   *   The index of the key, if found.
-   *
-   * @throws KeyNotFoundException
-   *   If the key does not appear in the associative array.
+   *   The index of the key, or -1 if the key is null or does not
+   *   appear in the associative array.
    */
-  int find(K key) throws KeyNotFoundException {
+  int find(K key) {
     if (key == null) {
-      throw new KeyNotFoundException("Key cannot be null.");
+      return -1;
     } //if
     for (int i = 0; i < this.size; i++) {
       if (this.pairs[i].key.equals(key)) {
         return i;
       } //if
     } //for
-    throw new KeyNotFoundException("Key not found: " + key);
+    return -1;
   } // find(K)
 
 } // class AssociativeArray
@@ -0,0 +1,145 @@
+package edu.grinnell.csc207.util;
+
+/**
+ * A fixed-size, blocking ring buffer of bytes that hands data from one
+ * producer thread to one consumer thread (e.g., from a synthesizer to
+ * an audio line). Writers wait while the buffer is full and readers
+ * wait while it is empty, so a fast producer cannot run arbitrarily far
+ * ahead of the consumer.
+ *
+ * @author Princess Alexander
+ */
+public class ByteRingBuffer {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The storage.
+   */
+  private final byte[] buffer;
+
+  /**
+   * Where the next byte will be read from.
+   */
+  private int head;
+
+  /**
+   * How many bytes are waiting to be read.
+   */
+  private int size;
+
+  /**
+   * Whether the writer has finished.
+   */
+  private boolean closed;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new, empty buffer.
+   *
+   * @param capacity
+   *   The most bytes the buffer can hold.
+   */
+  public ByteRingBuffer(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive.");
+    } // if
+    this.buffer = new byte[capacity];
+  } // ByteRingBuffer(int)
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Write bytes, waiting for room as needed.
+   *
+   * @param data
+   *   The bytes to write.
+   * @param offset
+   *   Where the bytes start in data.
+   * @param length
+   *   How many bytes to write.
+   *
+   * @throws InterruptedException
+   *   If interrupted while waiting for room.
+   * @throws IllegalStateException
+   *   If the buffer has been closed (including while waiting for room,
+   *   which is how a reader that gives up stops its writer).
+   */
+  public synchronized void write(byte[] data, int offset, int length)
+      throws InterruptedException {
+    while (length > 0) {
+      if (this.closed) {
+        throw new IllegalStateException("Buffer is closed.");
+      } // if
+      if (this.size == this.buffer.length) {
+        wait();
+        continue;
+      } // if
+      int tail = (this.head + this.size) % this.buffer.length;
+      int chunk = Math.min(length, Math.min(this.buffer.length - this.size,
+          this.buffer.length - tail));
+      System.arraycopy(data, offset, this.buffer, tail, chunk);
+      this.size += chunk;
+      offset += chunk;
+      length -= chunk;
+      notifyAll();
+    } // while
+  } // write(byte[], int, int)
+
+  /**
+   * Read up to length bytes, waiting until at least one is available
+   * or the buffer is closed.
+   *
+   * @param data
+   *   Where to put the bytes.
+   * @param offset
+   *   Where to start in data.
+   * @param length
+   *   The most bytes to read.
+   *
+   * @return the number of bytes read, or -1 if the buffer is closed
+   *   and empty.
+   *
+   * @throws InterruptedException
+   *   If interrupted while waiting for data.
+   */
+  public synchronized int read(byte[] data, int offset, int length)
+      throws InterruptedException {
+    while (this.size == 0) {
+      if (this.closed) {
+        return -1;
+      } // if
+      wait();
+    } // while
+    int chunk = Math.min(length, Math.min(this.size, this.buffer.length - this.head));
+    System.arraycopy(this.buffer, this.head, data, offset, chunk);
+    this.head = (this.head + chunk) % this.buffer.length;
+    this.size -= chunk;
+    notifyAll();
+    return chunk;
+  } // read(byte[], int, int)
+
+  /**
+   * Mark the end of the data. Readers get what is left and then -1;
+   * writers, including any waiting for room, get an exception.
+   */
+  public synchronized void close() {
+    this.closed = true;
+    notifyAll();
+  } // close()
+
+  /**
+   * Determine how many bytes are waiting to be read.
+   *
+   * @return the number of bytes in the buffer.
+   */
+  public synchronized int size() {
+    return this.size;
+  } // size()
+} // class ByteRingBuffer
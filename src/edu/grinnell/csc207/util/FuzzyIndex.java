@@ -0,0 +1,495 @@
+package edu.grinnell.csc207.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Finds values whose text approximately contains a query: the query
+ * may be misspelled, run together or split differently (e.g.,
+ * "flipflop" finds "flip flops" and "ballcap" finds "baseball cap").
+ *
+ * Texts and queries are normalized to lower-case letters and digits
+ * only, so spaces and punctuation never count as differences. A text
+ * matches if some part of it is within a given edit distance
+ * (insertions, deletions and substitutions) of the query.
+ *
+ * To avoid comparing the query with every text, the index keeps a list
+ * of the texts that contain each one-, two- and three-character
+ * substring (gram). A search splits the query into k + 1 pieces; k
+ * edits can touch at most k of them, so a text within distance k of
+ * the query contains at least one piece exactly. Only the texts listed
+ * for some piece (for a longer piece, under its rarest trigram) are
+ * checked with the (bounded) edit-distance computation. Unlike
+ * counting shared trigrams, this still narrows short queries (e.g.,
+ * "cut" with k = 1 checks only texts with "c" or "ut", which "cat"
+ * has). Queries must be at least three characters long.
+ *
+ * Removing a value (or adding it again) leaves its old entry behind
+ * until the dead entries outnumber the live ones, when the index is
+ * rebuilt from the live ones.
+ *
+ * Not safe for use by several threads at once.
+ *
+ * @param <V> the value type
+ *
+ * @author Princess Alexander
+ */
+public class FuzzyIndex<V> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * How many removed entries to allow before rebuilding, at least.
+   */
+  static final int COMPACT_MIN = 64;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The normalized text of each entry, by id.
+   */
+  private final List<String> texts = new ArrayList<String>();
+
+  /**
+   * The value of each entry, by id (null once removed).
+   */
+  private final List<V> values = new ArrayList<V>();
+
+  /**
+   * The id of each value.
+   */
+  private final HashMap<V, Integer> ids = new HashMap<V, Integer>();
+
+  /**
+   * The ids of the entries that contain each gram (see gram).
+   */
+  private final HashMap<Long, Postings> postings = new HashMap<Long, Postings>();
+
+  /**
+   * Which entries are already candidates for the current search (reused).
+   */
+  private boolean[] seen = new boolean[16];
+
+  /**
+   * The entries marked in seen (reused).
+   */
+  private final Postings touched = new Postings();
+
+  /**
+   * How many entries the last search compared with the query.
+   */
+  private int checked;
+
+  /**
+   * How many entries have been removed since the index was last built.
+   */
+  private int dead;
+
+  // +------------------+--------------------------------------------
+  // | Standard Methods |
+  // +------------------+
+
+  /**
+   * Summarize the index.
+   *
+   * @return a string of the form "FuzzyIndex[size=N]".
+   */
+  public String toString() {
+    return "FuzzyIndex[size=" + size() + "]";
+  } // toString()
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Add a value, found by its text. Adding a value again replaces its
+   * text.
+   *
+   * @param text
+   *   The text.
+   * @param value
+   *   The value.
+   */
+  public void add(String text, V value) {
+    remove(value);
+    insert(normalize(text), value);
+  } // add(String, V)
+
+  /**
+   * Remove a value. Removing a value that is not there has no effect.
+   *
+   * @param value
+   *   The value.
+   *
+   * @return true if the value was there, false otherwise.
+   */
+  public boolean remove(V value) {
+    Integer id = this.ids.remove(value);
+    if (id == null) {
+      return false;
+    } // if
+    // The postings still list the id; searches skip removed entries
+    // until there are enough of them to rebuild.
+    this.values.set(id, null);
+    if (++this.dead > COMPACT_MIN && this.dead > this.ids.size()) {
+      compact();
+    } // if
+    return true;
+  } // remove(V)
+
+  /**
+   * Find the values whose text approximately contains a query.
+   *
+   * @param query
+   *   The query (at least three letters or digits).
+   * @param maxDistance
+   *   The most edits allowed.
+   * @param limit
+   *   The most values to return.
+   *
+   * @return the values, closest first (and, among equally close ones,
+   *   those whose text is closest in length to the query first).
+   */
+  public List<V> search(String query, int maxDistance, int limit) {
+    String q = normalize(query);
+    List<V> result = new ArrayList<V>();
+    if (q.length() < 3 || limit <= 0) {
+      return result;
+    } // if
+    if (this.seen.length < this.texts.size()) {
+      this.seen = new boolean[Math.max(this.texts.size(), this.seen.length * 2)];
+    } // if
+
+    // Collect the entries that contain some piece of the query, or every
+    // entry if there are more pieces than characters.
+    int pieces = maxDistance + 1;
+    boolean all = pieces > q.length();
+    this.touched.size = 0;
+    for (int p = 0; p < pieces && !all; p++) {
+      int start = p * q.length() / pieces;
+      int end = (p + 1) * q.length() / pieces;
+      Postings list = rarest(q, start, end);
+      for (int j = 0; list != null && j < list.size; j++) {
+        int id = list.ids[j];
+        if (!this.seen[id]) {
+          this.seen[id] = true;
+          this.touched.add(id);
+        } // if
+      } // for
+    } // for
+
+    // Check them.
+    int candidates = all ? this.texts.size() : this.touched.size;
+    this.checked = 0;
+    List<long[]> matches = new ArrayList<long[]>();
+    long[] peq = (q.length() <= 64) ? masks(q) : null;
+    for (int i = 0; i < candidates; i++) {
+      int id = all ? i : this.touched.ids[i];
+      this.seen[id] = false;
+      if (this.values.get(id) == null) {
+        continue;
+      } // if
+      this.checked++;
+      String text = this.texts.get(id);
+      int distance = (peq != null) ? distance(peq, q, text, maxDistance)
+          : distance(q, text, maxDistance);
+      if (distance <= maxDistance) {
+        matches.add(new long[] {distance, Math.abs(text.length() - q.length()), id});
+      } // if
+    } // for
+    matches.sort((a, b) -> (a[0] != b[0]) ? Long.compare(a[0], b[0])
+        : (a[1] != b[1]) ? Long.compare(a[1], b[1]) : Long.compare(a[2], b[2]));
+    for (int i = 0; i < matches.size() && i < limit; i++) {
+      result.add(this.values.get((int) matches.get(i)[2]));
+    } // for
+    return result;
+  } // search(String, int, int)
+
+  /**
+   * Determine how many entries the last search compared with its query
+   * (for tests and benchmarks of the filter).
+   *
+   * @return the number of entries checked.
+   */
+  public int lastChecked() {
+    return this.checked;
+  } // lastChecked()
+
+  /**
+   * Determine how many values are in the index.
+   *
+   * @return the number of values.
+   */
+  public int size() {
+    return this.ids.size();
+  } // size()
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Reduce text to its lower-case letters and digits.
+   *
+   * @param text
+   *   The text.
+   *
+   * @return the normalized text.
+   */
+  public static String normalize(String text) {
+    StringBuilder sb = new StringBuilder(text.length());
+    String lower = text.toLowerCase(Locale.ROOT);
+    for (int i = 0; i < lower.length(); i++) {
+      char ch = lower.charAt(i);
+      if (Character.isLetterOrDigit(ch)) {
+        sb.append(ch);
+      } // if
+    } // for
+    return sb.toString();
+  } // normalize(String)
+
+  /**
+   * Find the fewest edits that turn the query into some substring of a
+   * text. This takes time proportional to the product of their lengths,
+   * which is why it is only used on the texts that pass the piece
+   * filter.
+   *
+   * @param query
+   *   The query.
+   * @param text
+   *   The text.
+   * @param bound
+   *   The most edits of interest.
+   *
+   * @return the number of edits, or bound + 1 if that is more than bound.
+   */
+  static int distance(String query, String text, int bound) {
+    int m = query.length();
+    // row[i] is the cost of matching query[0..i) ending at the current
+    // position of the text; starting anywhere in the text is free.
+    int[] row = new int[m + 1];
+    int[] next = new int[m + 1];
+    for (int i = 0; i <= m; i++) {
+      row[i] = i;
+    } // for
+    int best = row[m];
+    for (int j = 0; j < text.length(); j++) {
+      char ch = text.charAt(j);
+      next[0] = 0;
+      for (int i = 1; i <= m; i++) {
+        int cost = row[i - 1] + ((query.charAt(i - 1) == ch) ? 0 : 1);
+        cost = Math.min(cost, Math.min(row[i] + 1, next[i - 1] + 1));
+        next[i] = cost;
+      } // for
+      best = Math.min(best, next[m]);
+      int[] temp = row;
+      row = next;
+      next = temp;
+    } // for
+    return Math.min(best, bound + 1);
+  } // distance(String, String, int)
+
+  /**
+   * Find the same distance as distance(String, String, int), for queries
+   * of at most 64 characters, with Myers' bit-parallel algorithm: one
+   * column of the edit-distance table is kept as bits of two longs, so
+   * each character of the text costs a few dozen word operations
+   * instead of one step per character of the query.
+   *
+   * @param peq
+   *   The masks for the query (see masks).
+   * @param query
+   *   The query.
+   * @param text
+   *   The text.
+   * @param bound
+   *   The most edits of interest.
+   *
+   * @return the number of edits, or bound + 1 if that is more than bound.
+   */
+  static int distance(long[] peq, String query, String text, int bound) {
+    int m = query.length();
+    long high = 1L << (m - 1);
+    long pv = -1L;
+    long mv = 0;
+    int score = m;
+    int best = m;
+    for (int j = 0; j < text.length() && best > 0; j++) {
+      char ch = text.charAt(j);
+      long eq = (ch < 128) ? peq[ch] : mask(query, ch);
+      long xv = eq | mv;
+      long xh = (((eq & pv) + pv) ^ pv) | eq;
+      long ph = mv | ~(xh | pv);
+      long mh = pv & xh;
+      if ((ph & high) != 0) {
+        score++;
+      } else if ((mh & high) != 0) {
+        score--;
+      } // if/else
+      // Starting anywhere in the text is free, so no carry into bit 0.
+      ph <<= 1;
+      mh <<= 1;
+      pv = mh | ~(xv | ph);
+      mv = ph & xv;
+      best = Math.min(best, score);
+    } // for
+    return Math.min(best, bound + 1);
+  } // distance(long[], String, String, int)
+
+  /**
+   * Build the bit masks of where each ASCII character appears in a query
+   * of at most 64 characters.
+   *
+   * @param query
+   *   The query.
+   *
+   * @return the masks, indexed by character.
+   */
+  static long[] masks(String query) {
+    long[] peq = new long[128];
+    for (int i = 0; i < query.length(); i++) {
+      char ch = query.charAt(i);
+      if (ch < 128) {
+        peq[ch] |= 1L << i;
+      } // if
+    } // for
+    return peq;
+  } // masks(String)
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Add an entry with normalized text for a value that is not there.
+   */
+  private void insert(String key, V value) {
+    int id = this.texts.size();
+    this.texts.add(key);
+    this.values.add(value);
+    this.ids.put(value, id);
+    for (int n = 1; n <= 3; n++) {
+      for (int i = 0; i + n <= key.length(); i++) {
+        Long gram = gram(key, i, n);
+        Postings list = this.postings.get(gram);
+        if (list == null) {
+          list = new Postings();
+          this.postings.put(gram, list);
+        } // if
+        // A text that repeats a gram is listed once.
+        if (list.size == 0 || list.ids[list.size - 1] != id) {
+          list.add(id);
+        } // if
+      } // for
+    } // for
+  } // insert(String, V)
+
+  /**
+   * Find the shortest list that holds every entry containing
+   * query[start..end): the list for the piece itself if it has at most
+   * three characters, otherwise the shortest list for one of its
+   * trigrams. Returns null if no entry contains the piece.
+   */
+  private Postings rarest(String query, int start, int end) {
+    if (end - start <= 3) {
+      return this.postings.get(gram(query, start, end - start));
+    } // if
+    Postings best = null;
+    for (int i = start; i + 3 <= end; i++) {
+      Postings list = this.postings.get(gram(query, i, 3));
+      if (list == null) {
+        return null;
+      } // if
+      if (best == null || list.size < best.size) {
+        best = list;
+      } // if
+    } // for
+    return best;
+  } // rarest(String, int, int)
+
+  /**
+   * Rebuild the index from its live entries, dropping the removed ones.
+   */
+  private void compact() {
+    List<String> liveTexts = new ArrayList<String>();
+    List<V> liveValues = new ArrayList<V>();
+    for (int id = 0; id < this.values.size(); id++) {
+      if (this.values.get(id) != null) {
+        liveTexts.add(this.texts.get(id));
+        liveValues.add(this.values.get(id));
+      } // if
+    } // for
+    this.texts.clear();
+    this.values.clear();
+    this.ids.clear();
+    this.postings.clear();
+    this.dead = 0;
+    for (int i = 0; i < liveTexts.size(); i++) {
+      insert(liveTexts.get(i), liveValues.get(i));
+    } // for
+    if (this.seen.length > 2 * this.texts.size() + 16) {
+      this.seen = new boolean[this.texts.size() + 16];
+    } // if
+  } // compact()
+
+  /**
+   * Build the bit mask of where a character appears in a query.
+   */
+  private static long mask(String query, char ch) {
+    long eq = 0;
+    for (int i = 0; i < query.length(); i++) {
+      if (query.charAt(i) == ch) {
+        eq |= 1L << i;
+      } // if
+    } // for
+    return eq;
+  } // mask(String, char)
+
+  /**
+   * Pack the n characters (at most three) at a position of a string into
+   * a long, led by n so that grams of different lengths differ.
+   */
+  private static Long gram(String s, int i, int n) {
+    long gram = n;
+    for (int j = i; j < i + n; j++) {
+      gram = (gram << 16) | s.charAt(j);
+    } // for
+    return gram;
+  } // gram(String, int, int)
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * A growable list of ids.
+   */
+  private static class Postings {
+    /**
+     * The ids.
+     */
+    int[] ids = new int[2];
+
+    /**
+     * How many ids are in use.
+     */
+    int size;
+
+    /**
+     * Add an id to the end of the list.
+     */
+    void add(int id) {
+      if (this.size == this.ids.length) {
+        this.ids = Arrays.copyOf(this.ids, this.size * 2);
+      } // if
+      this.ids[this.size++] = id;
+    } // add(int)
+  } // class Postings
+} // class FuzzyIndex
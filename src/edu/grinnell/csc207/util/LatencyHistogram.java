@@ -0,0 +1,226 @@
+package edu.grinnell.csc207.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size histogram of latencies (or any non-negative longs), in
+ * the style of an HDR histogram. Values are bucketed by their power of
+ * two and then split into a fixed number of linear sub-buckets, so the
+ * histogram covers every long with a bounded relative error (about 3%)
+ * in a small, preallocated array. Recording a value is a handful of
+ * arithmetic operations and an atomic increment, with no allocation,
+ * so it is cheap enough to leave on in the UI and safe to call from
+ * several threads at once.
+ *
+ * @author Princess Alexander
+ */
+public class LatencyHistogram {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of bits of precision kept for each value.
+   */
+  static final int SUB_BITS = 5;
+
+  /**
+   * The number of sub-buckets per power of two.
+   */
+  static final int SUB_COUNT = 1 << SUB_BITS;
+
+  /**
+   * The number of buckets needed to cover every non-negative long.
+   */
+  static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The name of the histogram (for reports).
+   */
+  private final String name;
+
+  /**
+   * The count of values in each bucket.
+   */
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  /**
+   * The total number of values recorded.
+   */
+  private final LongAdder total = new LongAdder();
+
+  /**
+   * The largest value recorded.
+   */
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new, empty histogram.
+   *
+   * @param name
+   *   The name of the histogram.
+   */
+  public LatencyHistogram(String name) {
+    this.name = name;
+  } // LatencyHistogram(String)
+
+  // +------------------+--------------------------------------------
+  // | Standard Methods |
+  // +------------------+
+
+  /**
+   * Summarize the histogram, treating values as nanoseconds.
+   *
+   * @return a string of the form "name: n=N p50=X ms p99=Y ms max=Z ms".
+   */
+  public String toString() {
+    return String.format("%s: n=%d p50=%.2f ms p99=%.2f ms max=%.2f ms",
+        this.name, count(), percentile(50) / 1e6, percentile(99) / 1e6,
+        max() / 1e6);
+  } // toString()
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Record a value. Negative values are recorded as 0.
+   *
+   * @param value
+   *   The value to record.
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    } // if
+    this.counts.incrementAndGet(bucket(value));
+    this.total.increment();
+    this.max.accumulate(value);
+  } // record(long)
+
+  /**
+   * Record the time elapsed since a given start.
+   *
+   * @param startNanos
+   *   The start time, from System.nanoTime().
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  } // recordSince(long)
+
+  /**
+   * Get the name of the histogram.
+   *
+   * @return the name.
+   */
+  public String name() {
+    return this.name;
+  } // name()
+
+  /**
+   * Determine how many values have been recorded.
+   *
+   * @return the number of values.
+   */
+  public long count() {
+    return this.total.sum();
+  } // count()
+
+  /**
+   * Get the largest value recorded.
+   *
+   * @return the largest value, or 0 if nothing has been recorded.
+   */
+  public long max() {
+    return this.max.get();
+  } // max()
+
+  /**
+   * Get the value at a given percentile. The result is the largest
+   * value that falls in the same bucket as the percentile, so it may
+   * overstate the true value by the bucket precision (but never by
+   * more than the recorded maximum).
+   *
+   * @param percent
+   *   The percentile, from 0 to 100.
+   *
+   * @return the value at that percentile, or 0 if nothing has been
+   *   recorded.
+   */
+  public long percentile(double percent) {
+    long n = count();
+    if (n == 0) {
+      return 0;
+    } // if
+    long target = Math.max(1, (long) Math.ceil(percent / 100.0 * n));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += this.counts.get(i);
+      if (seen >= target) {
+        return Math.min(highestInBucket(i), max());
+      } // if
+    } // for
+    return max();
+  } // percentile(double)
+
+  /**
+   * Forget every recorded value.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      this.counts.set(i, 0);
+    } // for
+    this.total.reset();
+    this.max.reset();
+  } // reset()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Find the bucket that holds a non-negative value.
+   *
+   * @param value
+   *   The value.
+   *
+   * @return the index of its bucket.
+   */
+  static int bucket(long value) {
+    if (value < SUB_COUNT) {
+      return (int) value;
+    } // if
+    int exp = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exp - SUB_BITS;
+    int sub = (int) (value >>> shift) - SUB_COUNT;
+    return SUB_COUNT + shift * SUB_COUNT + sub;
+  } // bucket(long)
+
+  /**
+   * Find the largest value that belongs in a bucket.
+   *
+   * @param index
+   *   The index of the bucket.
+   *
+   * @return the largest value in that bucket.
+   */
+  static long highestInBucket(int index) {
+    if (index < SUB_COUNT) {
+      return index;
+    } // if
+    int shift = (index - SUB_COUNT) / SUB_COUNT;
+    int sub = (index - SUB_COUNT) % SUB_COUNT;
+    long next = (long) (SUB_COUNT + sub + 1) << shift;
+    return (next <= 0) ? Long.MAX_VALUE : next - 1;
+  } // highestInBucket(int)
+} // class LatencyHistogram
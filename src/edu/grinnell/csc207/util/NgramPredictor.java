@@ -0,0 +1,367 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Arrays;
+
+/**
+ * Predicts the next symbol of a sequence from the one or two symbols
+ * before it, using counts of the bigrams and trigrams seen so far.
+ * Symbols are small non-negative ints (e.g., ids handed out by the
+ * caller).
+ *
+ * The model is held in flat primitive arrays: an open-addressing table
+ * from each context (nothing, one symbol, or two symbols, packed into a
+ * long) to a row of at most WIDTH successors and their counts. When a
+ * row is full, a new successor replaces the least-counted one and
+ * inherits its count (as in the "space-saving" algorithm), so frequent
+ * successors are kept. When the table is full, every count is halved
+ * and the contexts that drop to nothing are forgotten. Memory is
+ * therefore fixed when the predictor is created, and a prediction
+ * looks at no more than 3 * WIDTH entries, without allocating.
+ *
+ * @author Princess Alexander
+ */
+public class NgramPredictor {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The most successors kept for each context.
+   */
+  public static final int WIDTH = 16;
+
+  /**
+   * The largest symbol (symbols are packed 21 bits at a time).
+   */
+  public static final int MAX_SYMBOL = (1 << 21) - 1;
+
+  /**
+   * Marks an empty slot in the hash table.
+   */
+  static final long EMPTY = -1L;
+
+  /**
+   * How much more a trigram match counts than a bigram match, and a
+   * bigram match than a unigram one.
+   */
+  static final double BACKOFF = 4.0;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The most contexts we keep.
+   */
+  private final int maxContexts;
+
+  /**
+   * The hash table of context keys (EMPTY for unused slots).
+   */
+  private long[] keys;
+
+  /**
+   * The row of each context in the hash table.
+   */
+  private int[] rows;
+
+  /**
+   * The successors of each row, WIDTH per row (-1 for unused).
+   */
+  private final int[] successors;
+
+  /**
+   * The count of each successor.
+   */
+  private final int[] counts;
+
+  /**
+   * The total count of each row.
+   */
+  private final long[] totals;
+
+  /**
+   * The context key of each row.
+   */
+  private final long[] rowKeys;
+
+  /**
+   * The number of rows in use.
+   */
+  private int used;
+
+  /**
+   * The symbol before the last one, or -1.
+   */
+  private int previous2 = -1;
+
+  /**
+   * The last symbol, or -1.
+   */
+  private int previous1 = -1;
+
+  /**
+   * Candidates gathered during a prediction (reused).
+   */
+  private final int[] candidates = new int[3 * WIDTH];
+
+  /**
+   * Their scores (reused).
+   */
+  private final double[] scores = new double[3 * WIDTH];
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a predictor that has seen nothing.
+   *
+   * @param maxContexts
+   *   The most contexts to keep (each takes about 150 bytes).
+   */
+  public NgramPredictor(int maxContexts) {
+    if (maxContexts < 1) {
+      throw new IllegalArgumentException("Need room for at least one context.");
+    } // if
+    this.maxContexts = maxContexts;
+    int capacity = Integer.highestOneBit(maxContexts * 2 - 1) << 1;
+    this.keys = new long[capacity];
+    this.rows = new int[capacity];
+    Arrays.fill(this.keys, EMPTY);
+    this.successors = new int[maxContexts * WIDTH];
+    this.counts = new int[maxContexts * WIDTH];
+    this.totals = new long[maxContexts];
+    this.rowKeys = new long[maxContexts];
+    Arrays.fill(this.successors, -1);
+  } // NgramPredictor(int)
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Learn from the next symbol of the sequence and move past it.
+   *
+   * @param symbol
+   *   The symbol, from 0 to MAX_SYMBOL.
+   */
+  public void observe(int symbol) {
+    if (symbol < 0 || symbol > MAX_SYMBOL) {
+      throw new IllegalArgumentException("Symbol out of range: " + symbol);
+    } // if
+    count(0, symbol);
+    if (this.previous1 >= 0) {
+      count(key(this.previous1), symbol);
+      if (this.previous2 >= 0) {
+        count(key(this.previous2, this.previous1), symbol);
+      } // if
+    } // if
+    this.previous2 = this.previous1;
+    this.previous1 = symbol;
+  } // observe(int)
+
+  /**
+   * Start a new sequence (e.g., a new sentence), so the next symbol is
+   * not counted as following the last one.
+   */
+  public void endSequence() {
+    this.previous1 = -1;
+    this.previous2 = -1;
+  } // endSequence()
+
+  /**
+   * Predict the most likely next symbols of the current sequence.
+   *
+   * @param out
+   *   Where to put the symbols, most likely first; its length is the
+   *   most symbols returned.
+   *
+   * @return the number of symbols put in out.
+   */
+  public int predict(int[] out) {
+    int n = 0;
+    if (this.previous2 >= 0) {
+      n = gather(key(this.previous2, this.previous1), BACKOFF * BACKOFF, n);
+    } // if
+    if (this.previous1 >= 0) {
+      n = gather(key(this.previous1), BACKOFF, n);
+    } // if
+    n = gather(0, 1, n);
+    // Selection sort is fine for a few dozen candidates and k of a few.
+    int k = Math.min(out.length, n);
+    for (int i = 0; i < k; i++) {
+      int best = i;
+      for (int j = i + 1; j < n; j++) {
+        if (this.scores[j] > this.scores[best]) {
+          best = j;
+        } // if
+      } // for
+      swap(i, best);
+      out[i] = this.candidates[i];
+    } // for
+    return k;
+  } // predict(int[])
+
+  /**
+   * Determine how many contexts are stored.
+   *
+   * @return the number of contexts.
+   */
+  public int contexts() {
+    return this.used;
+  } // contexts()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Build the key for the context of one symbol.
+   */
+  static long key(int a) {
+    return (1L << 42) | a;
+  } // key(int)
+
+  /**
+   * Build the key for the context of two symbols.
+   */
+  static long key(int a, int b) {
+    return (2L << 42) | ((long) a << 21) | b;
+  } // key(int, int)
+
+  /**
+   * Find the hash table slot for a key: either the slot holding it or
+   * the empty slot where it would go.
+   */
+  private int slot(long key) {
+    int mask = this.keys.length - 1;
+    int i = (int) (mix(key) & mask);
+    while (this.keys[i] != EMPTY && this.keys[i] != key) {
+      i = (i + 1) & mask;
+    } // while
+    return i;
+  } // slot(long)
+
+  /**
+   * Scramble the bits of a key.
+   */
+  private static long mix(long key) {
+    key *= 0x9E3779B97F4A7C15L;
+    return key ^ (key >>> 29);
+  } // mix(long)
+
+  /**
+   * Count one occurrence of a symbol after a context.
+   */
+  private void count(long key, int symbol) {
+    int s = slot(key);
+    if (this.keys[s] == EMPTY) {
+      if (this.used == this.maxContexts) {
+        prune();
+        if (this.used == this.maxContexts) {
+          return;
+        } // if
+        s = slot(key);
+      } // if
+      this.keys[s] = key;
+      this.rows[s] = this.used;
+      this.rowKeys[this.used] = key;
+      this.used++;
+    } // if
+    int row = this.rows[s];
+    int start = row * WIDTH;
+    int min = start;
+    for (int i = start; i < start + WIDTH; i++) {
+      if (this.successors[i] == symbol) {
+        this.counts[i]++;
+        this.totals[row]++;
+        return;
+      } // if
+      if (this.counts[i] < this.counts[min]) {
+        min = i;
+      } // if
+    } // for
+    // Not there: take the least-counted entry (an unused one has 0).
+    this.successors[min] = symbol;
+    this.totals[row] += 1;
+    this.counts[min]++;
+  } // count(long, int)
+
+  /**
+   * Add the successors of a context to the candidates, weighted by how
+   * often they followed it.
+   *
+   * @return the new number of candidates.
+   */
+  private int gather(long key, double weight, int n) {
+    int s = slot(key);
+    if (this.keys[s] == EMPTY) {
+      return n;
+    } // if
+    int row = this.rows[s];
+    double scale = weight / this.totals[row];
+    for (int i = row * WIDTH; i < (row + 1) * WIDTH; i++) {
+      int symbol = this.successors[i];
+      if (symbol < 0 || this.counts[i] == 0) {
+        continue;
+      } // if
+      int j = 0;
+      while (j < n && this.candidates[j] != symbol) {
+        j++;
+      } // while
+      if (j == n) {
+        this.candidates[n] = symbol;
+        this.scores[n] = 0;
+        n++;
+      } // if
+      this.scores[j] += this.counts[i] * scale;
+    } // for
+    return n;
+  } // gather(long, double, int)
+
+  /**
+   * Swap two candidates.
+   */
+  private void swap(int i, int j) {
+    int symbol = this.candidates[i];
+    this.candidates[i] = this.candidates[j];
+    this.candidates[j] = symbol;
+    double score = this.scores[i];
+    this.scores[i] = this.scores[j];
+    this.scores[j] = score;
+  } // swap(int, int)
+
+  /**
+   * Halve every count and forget the contexts left with none, then
+   * rebuild the hash table for the contexts that remain.
+   */
+  private void prune() {
+    int kept = 0;
+    for (int row = 0; row < this.used; row++) {
+      long total = 0;
+      int from = row * WIDTH;
+      int to = kept * WIDTH;
+      for (int i = 0; i < WIDTH; i++) {
+        int count = this.counts[from + i] >> 1;
+        this.successors[to + i] = (count == 0) ? -1 : this.successors[from + i];
+        this.counts[to + i] = count;
+        total += count;
+      } // for
+      if (total > 0) {
+        this.totals[kept] = total;
+        this.rowKeys[kept] = this.rowKeys[row];
+        kept++;
+      } // if
+    } // for
+    Arrays.fill(this.successors, kept * WIDTH, this.used * WIDTH, -1);
+    Arrays.fill(this.counts, kept * WIDTH, this.used * WIDTH, 0);
+    this.used = kept;
+    Arrays.fill(this.keys, EMPTY);
+    for (int row = 0; row < kept; row++) {
+      int s = slot(this.rowKeys[row]);
+      this.keys[s] = this.rowKeys[row];
+      this.rows[s] = row;
+    } // for
+  } // prune()
+} // class NgramPredictor
@@ -0,0 +1,283 @@
+package edu.grinnell.csc207.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A trie from string keys to values that answers "which values have a
+ * key that starts with this prefix?" in time proportional to the length
+ * of the prefix plus the number of answers, however many keys there
+ * are. A key may have several values and a value may be stored under
+ * several keys; each value is reported at most once per search, in key
+ * order.
+ *
+ * Each node keeps its children in a sorted array of characters, so
+ * walking down the trie is a binary search per character and walking
+ * over it visits keys in order. A node keeps its values in a small
+ * list, which becomes a hash set once it grows past a few, so adding or
+ * removing one of many values under a key (e.g., a common word) takes
+ * constant time.
+ *
+ * @param <V> the value type
+ *
+ * @author Princess Alexander
+ */
+public class PrefixIndex<V> {
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The most values a node keeps in a list before it uses a set.
+   */
+  static final int LIST_MAX = 8;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The node for the empty key.
+   */
+  private final Node<V> root = new Node<V>();
+
+  /**
+   * The number of (key, value) entries.
+   */
+  private int size;
+
+  // +------------------+--------------------------------------------
+  // | Standard Methods |
+  // +------------------+
+
+  /**
+   * Summarize the index.
+   *
+   * @return a string of the form "PrefixIndex[size=N]".
+   */
+  public String toString() {
+    return "PrefixIndex[size=" + this.size + "]";
+  } // toString()
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Store a value under a key. Storing the same value under the same
+   * key twice has no effect.
+   *
+   * @param key
+   *   The key.
+   * @param value
+   *   The value.
+   *
+   * @throws NullKeyException
+   *   If the key is null.
+   */
+  public void add(String key, V value) throws NullKeyException {
+    if (key == null) {
+      throw new NullKeyException();
+    } // if
+    Node<V> node = this.root;
+    for (int i = 0; i < key.length(); i++) {
+      node = node.childFor(key.charAt(i));
+    } // for
+    if (node.values == null) {
+      node.values = new ArrayList<V>(1);
+    } else if (node.values.size() == LIST_MAX && node.values instanceof ArrayList) {
+      node.values = new LinkedHashSet<V>(node.values);
+    } // if/else
+    if (!node.values.contains(value)) {
+      node.values.add(value);
+      this.size++;
+    } // if
+  } // add(String, V)
+
+  /**
+   * Remove a value from under a key. Removing an entry that is not there
+   * has no effect.
+   *
+   * @param key
+   *   The key.
+   * @param value
+   *   The value.
+   *
+   * @return true if the entry was there, false otherwise.
+   */
+  public boolean remove(String key, V value) {
+    Node<V> node = find(key);
+    if (node == null || node.values == null || !node.values.remove(value)) {
+      return false;
+    } // if
+    this.size--;
+    // Empty nodes are left in place; they cost a little memory but keep
+    // removal simple and are reused if the key comes back.
+    return true;
+  } // remove(String, V)
+
+  /**
+   * Find the values stored under keys that start with a prefix.
+   *
+   * @param prefix
+   *   The prefix (the empty string matches every key).
+   * @param limit
+   *   The most values to return.
+   *
+   * @return the values, in key order, without duplicates.
+   */
+  public List<V> search(String prefix, int limit) {
+    Set<V> found = new LinkedHashSet<V>();
+    Node<V> node = find(prefix);
+    if (node != null && limit > 0) {
+      collect(node, found, limit);
+    } // if
+    return new ArrayList<V>(found);
+  } // search(String, int)
+
+  /**
+   * Determine how many (key, value) entries are stored.
+   *
+   * @return the number of entries.
+   */
+  public int size() {
+    return this.size;
+  } // size()
+
+  // +-----------------+---------------------------------------------
+  // | Private Methods |
+  // +-----------------+
+
+  /**
+   * Find the node for a key, without creating it.
+   *
+   * @param key
+   *   The key.
+   *
+   * @return the node, or null if no stored key starts with key.
+   */
+  private Node<V> find(String key) {
+    if (key == null) {
+      return null;
+    } // if
+    Node<V> node = this.root;
+    for (int i = 0; i < key.length() && node != null; i++) {
+      node = node.child(key.charAt(i));
+    } // for
+    return node;
+  } // find(String)
+
+  /**
+   * Add the values at and below a node, in key order, until there are
+   * limit of them.
+   *
+   * @param node
+   *   Where to start.
+   * @param found
+   *   Where to put the values.
+   * @param limit
+   *   The most values to collect.
+   *
+   * @return true if the limit has been reached.
+   */
+  private static <V> boolean collect(Node<V> node, Set<V> found, int limit) {
+    if (node.values != null) {
+      for (V value : node.values) {
+        found.add(value);
+        if (found.size() >= limit) {
+          return true;
+        } // if
+      } // for
+    } // if
+    for (int i = 0; i < node.count; i++) {
+      if (collect(node.children[i], found, limit)) {
+        return true;
+      } // if
+    } // for
+    return false;
+  } // collect(Node, Set, int)
+
+  // +---------------+-----------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * One node of the trie.
+   */
+  private static class Node<V> {
+    /**
+     * The characters that lead to each child, sorted.
+     */
+    char[] labels = new char[0];
+
+    /**
+     * The children, in the same order as labels.
+     */
+    Node<V>[] children = newNodes(0);
+
+    /**
+     * The number of children.
+     */
+    int count;
+
+    /**
+     * The values whose key ends here, in the order they were added: a
+     * list while there are at most LIST_MAX, a set after that (null if
+     * there have never been any).
+     */
+    Collection<V> values;
+
+    /**
+     * Find the child for a character.
+     *
+     * @param ch
+     *   The character.
+     *
+     * @return the child, or null if there is none.
+     */
+    Node<V> child(char ch) {
+      int i = Arrays.binarySearch(this.labels, 0, this.count, ch);
+      return (i >= 0) ? this.children[i] : null;
+    } // child(char)
+
+    /**
+     * Find the child for a character, adding it if need be.
+     *
+     * @param ch
+     *   The character.
+     *
+     * @return the child.
+     */
+    Node<V> childFor(char ch) {
+      int i = Arrays.binarySearch(this.labels, 0, this.count, ch);
+      if (i >= 0) {
+        return this.children[i];
+      } // if
+      i = -(i + 1);
+      if (this.count == this.labels.length) {
+        int capacity = Math.max(2, this.count * 2);
+        this.labels = Arrays.copyOf(this.labels, capacity);
+        this.children = Arrays.copyOf(this.children, capacity);
+      } // if
+      System.arraycopy(this.labels, i, this.labels, i + 1, this.count - i);
+      System.arraycopy(this.children, i, this.children, i + 1, this.count - i);
+      Node<V> child = new Node<V>();
+      this.labels[i] = ch;
+      this.children[i] = child;
+      this.count++;
+      return child;
+    } // childFor(char)
+
+    /**
+     * Create an array of nodes.
+     */
+    @SuppressWarnings({ "unchecked" })
+    static <V> Node<V>[] newNodes(int length) {
+      return (Node<V>[]) new Node<?>[length];
+    } // newNodes(int)
+  } // class Node
+} // class PrefixIndex
@@ -0,0 +1,153 @@
+package edu.grinnell.csc207.util;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Counts how often each key is used, with older uses counting for less.
+ * A use that is one half-life old counts half as much as one made now.
+ *
+ * The counts use "forward decay": rather than shrinking every count as
+ * time passes, each new use is weighted by how far it is past a fixed
+ * landmark time, so that newer uses weigh more. Every count shrinks by
+ * the same factor as time passes, so the order of the keys only changes
+ * when a key is used, and only that key moves. Recording a use is one
+ * lock-free add, and several threads may record at once.
+ *
+ * @param <K> the key type
+ *
+ * @author Princess Alexander
+ */
+public class UsageCounts<K> {
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The decay rate, per millisecond.
+   */
+  private final double rate;
+
+  /**
+   * The landmark time, in milliseconds since the epoch.
+   */
+  private final long landmark;
+
+  /**
+   * The forward-decayed count for each key.
+   */
+  private final ConcurrentHashMap<K, DoubleAdder> counts = new ConcurrentHashMap<K, DoubleAdder>();
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new set of counts, all zero.
+   *
+   * @param halfLifeMillis
+   *   How long it takes for a use to count for half as much.
+   */
+  public UsageCounts(long halfLifeMillis) {
+    this(halfLifeMillis, System.currentTimeMillis());
+  } // UsageCounts(long)
+
+  /**
+   * Create a new set of counts, all zero, with a given landmark.
+   *
+   * @param halfLifeMillis
+   *   How long it takes for a use to count for half as much.
+   * @param landmark
+   *   The landmark time, in milliseconds since the epoch. Uses should
+   *   not be (much) earlier than the landmark.
+   */
+  public UsageCounts(long halfLifeMillis, long landmark) {
+    if (halfLifeMillis <= 0) {
+      throw new IllegalArgumentException("Half-life must be positive.");
+    } // if
+    this.rate = Math.log(2) / halfLifeMillis;
+    this.landmark = landmark;
+  } // UsageCounts(long, long)
+
+  // +----------------+----------------------------------------------
+  // | Public Methods |
+  // +----------------+
+
+  /**
+   * Record one use of a key, now.
+   *
+   * @param key
+   *   The key.
+   */
+  public void record(K key) {
+    record(key, 1, System.currentTimeMillis());
+  } // record(K)
+
+  /**
+   * Record uses of a key.
+   *
+   * @param key
+   *   The key.
+   * @param uses
+   *   How many uses (as they counted at the time).
+   * @param time
+   *   When the uses were made, in milliseconds since the epoch.
+   */
+  public void record(K key, double uses, long time) {
+    DoubleAdder count = this.counts.get(key);
+    if (count == null) {
+      count = this.counts.computeIfAbsent(key, (k) -> new DoubleAdder());
+    } // if
+    count.add(uses * Math.exp(this.rate * (time - this.landmark)));
+  } // record(K, double, long)
+
+  /**
+   * Get a score for a key that orders the keys by their decayed counts.
+   * Scores are only comparable within one UsageCounts.
+   *
+   * @param key
+   *   The key.
+   *
+   * @return the score, or 0 if the key has never been used.
+   */
+  public double score(K key) {
+    DoubleAdder count = this.counts.get(key);
+    return (count == null) ? 0 : count.sum();
+  } // score(K)
+
+  /**
+   * Get the decayed count of a key: how many uses it has had, with each
+   * counting for less the older it is.
+   *
+   * @param key
+   *   The key.
+   * @param time
+   *   The time to decay to, in milliseconds since the epoch.
+   *
+   * @return the decayed count.
+   */
+  public double count(K key, long time) {
+    return score(key) * Math.exp(-this.rate * (time - this.landmark));
+  } // count(K, long)
+
+  /**
+   * Forget a key.
+   *
+   * @param key
+   *   The key.
+   */
+  public void remove(K key) {
+    this.counts.remove(key);
+  } // remove(K)
+
+  /**
+   * Get the keys that have been used. The set may be read while other
+   * threads record uses.
+   *
+   * @return the keys.
+   */
+  public Set<K> keys() {
+    return this.counts.keySet();
+  } // keys()
+} // class UsageCounts